@@ -7,4 +7,8 @@ package io.github.ilyaslabs.foodstack.authservice.api;
 public class Constants {
 
     public static final String API_PREFIX_V1 = "/api/v1";
+    public static final String API_PREFIX_V1_INTERNAL = API_PREFIX_V1 + "/internal";
+
+    public static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+    public static final String MEDIA_TYPE_SMILE = "application/x-jackson-smile";
 }
@@ -0,0 +1,19 @@
+package io.github.ilyaslabs.foodstack.authservice.api.v1.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Result of minting tokens for one user of a {@link BulkTokenRequest}, either {@code response}
+ * or {@code error} is set.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@Accessors(chain = true)
+public class BulkTokenResult {
+
+    private String userId;
+    private AuthResponse response;
+    private String error;
+}
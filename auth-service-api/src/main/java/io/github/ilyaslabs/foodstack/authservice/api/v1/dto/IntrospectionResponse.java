@@ -0,0 +1,20 @@
+package io.github.ilyaslabs.foodstack.authservice.api.v1.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@Accessors(chain = true)
+public class IntrospectionResponse {
+
+    /**
+     * one result per token of the {@link IntrospectionRequest}, in the same order
+     */
+    private List<TokenIntrospection> results;
+}
@@ -0,0 +1,23 @@
+package io.github.ilyaslabs.foodstack.authservice.api.v1.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(force = true)
+@Accessors(chain = true)
+public class RevokeRefreshTokensRequest {
+
+    @NotEmpty(message = "User ids are required")
+    private List<String> userIds;
+}
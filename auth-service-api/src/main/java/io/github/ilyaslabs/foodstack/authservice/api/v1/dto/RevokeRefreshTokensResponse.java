@@ -0,0 +1,18 @@
+package io.github.ilyaslabs.foodstack.authservice.api.v1.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@Accessors(chain = true)
+public class RevokeRefreshTokensResponse {
+
+    /**
+     * number of refresh token families revoked
+     */
+    private int revokedFamilies;
+}
@@ -0,0 +1,29 @@
+package io.github.ilyaslabs.foodstack.authservice.api.v1.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.Map;
+
+/**
+ * Verdict on one token of an {@link IntrospectionRequest}. A token is active if its signature
+ * verifies, it has not expired and its user exists and is enabled.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@Accessors(chain = true)
+public class TokenIntrospection {
+
+    private boolean active;
+
+    /**
+     * claims of the token, timestamps in epoch seconds, only set if the token could be verified
+     */
+    private Map<String, Object> claims;
+
+    /**
+     * why the token is not active
+     */
+    private String error;
+}
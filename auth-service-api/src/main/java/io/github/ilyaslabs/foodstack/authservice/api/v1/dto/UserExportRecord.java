@@ -0,0 +1,32 @@
+package io.github.ilyaslabs.foodstack.authservice.api.v1.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One user of an export, a line of the newline delimited JSON response.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@Accessors(chain = true)
+public class UserExportRecord {
+
+    private String userId;
+    private String username;
+    private Boolean enabled;
+    private List<String> scopes;
+
+    /**
+     * time of the last change, the watermark of the next incremental export
+     */
+    private Instant updatedAt;
+
+    /**
+     * set if the user is deleted, copies should be removed
+     */
+    private Instant deletedAt;
+}
@@ -0,0 +1,44 @@
+package io.github.ilyaslabs.foodstack.authservice.api.v1.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * One user of a bulk import, a line of the newline delimited JSON upload.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(force = true)
+@Accessors(chain = true)
+public class UserImportRecord {
+
+    @NotEmpty(message = "Username is required")
+    private String username;
+
+    @NotEmpty(message = "Email is required")
+    @Email(message = "Email is invalid")
+    private String email;
+
+    @NotEmpty(message = "Password is required")
+    @Size(min = 8, message = "Password must be at least 8 characters long")
+    private String password;
+
+    /**
+     * defaults to {@code true}
+     */
+    private Boolean enabled;
+
+    /**
+     * defaults to {@code USER}
+     */
+    private List<String> scopes;
+}
@@ -0,0 +1,22 @@
+package io.github.ilyaslabs.foodstack.authservice.api.v1.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Result of importing one {@link UserImportRecord}, either {@code userId} or {@code error} is set.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@Accessors(chain = true)
+public class UserImportResult {
+
+    /**
+     * line of the record in the upload, starting at 1
+     */
+    private long line;
+    private String username;
+    private String userId;
+    private String error;
+}
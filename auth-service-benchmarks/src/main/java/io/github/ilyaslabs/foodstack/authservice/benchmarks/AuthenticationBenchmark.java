@@ -0,0 +1,85 @@
+package io.github.ilyaslabs.foodstack.authservice.benchmarks;
+
+import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityConfig;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.PublicKeyJwtDecoders;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.jwt.JwsSigner;
+import io.github.ilyaslabs.foodstack.authservice.web.service.TokenIssuer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The work the {@code security-common} filter chain does per authenticated request: decoding and
+ * verifying the bearer token, then mapping its scopes to authorities.
+ * <p>
+ * {@code mapAuthorities} isolates the mapping of an already decoded token, {@code authenticate}
+ * is both steps as the resource server runs them.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+
+    private JwtDecoder decoder;
+    private JwtAuthenticationConverter authenticationConverter;
+    private String token;
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        decoder = PublicKeyJwtDecoders.create(List.of(keyPair.getPublic()));
+        authenticationConverter = CommonSecurityConfig.jwtAuthenticationConverter();
+
+        // an access token as issued on login
+        TokenIssuer tokenIssuer = new TokenIssuer(JwsSigner.rs256(keyPair.getPrivate()), "http://foodstack.authservice.com",
+                Duration.ofDays(1), Duration.ofDays(1), Clock.systemUTC());
+        UserPrincipal user = new UserPrincipal(new ObjectId(), "benchmark-user", true, List.of(User.Scope.USER, User.Scope.ADMIN), null);
+        token = tokenIssuer.buildAuthResponse(user).getToken();
+        jwt = decoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return decoder.decode(token);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken mapAuthorities() {
+        return authenticationConverter.convert(jwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken authenticate() {
+        return authenticationConverter.convert(decoder.decode(token));
+    }
+}
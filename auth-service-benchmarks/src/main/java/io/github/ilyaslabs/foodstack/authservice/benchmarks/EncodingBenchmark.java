@@ -0,0 +1,85 @@
+package io.github.ilyaslabs.foodstack.authservice.benchmarks;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading {@code AuthResponse} per negotiated encoding, the server and client cost of
+ * a login or refresh. The encoded size of the response is printed once per encoding, as it does not
+ * change between iterations.
+ * <p>
+ * The tokens are base64url text in every encoding, so the binary encodings mostly save on the
+ * field names and numbers rather than on the bulk of the payload.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodingBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String encoding;
+
+    private ObjectReader responseReader;
+    private ObjectWriter responseWriter;
+
+    private AuthResponse response;
+    private byte[] encodedResponse;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = switch (encoding) {
+            case "json" -> JsonMapper.builder().build();
+            case "cbor" -> CBORMapper.builder().build();
+            case "smile" -> SmileMapper.builder().build();
+            default -> throw new IllegalArgumentException("Unknown encoding " + encoding);
+        };
+        responseReader = mapper.readerFor(AuthResponse.class);
+        responseWriter = mapper.writerFor(AuthResponse.class);
+
+        response = new AuthResponse()
+                .setToken(JsonBenchmark.token(620))
+                .setRefreshToken(JsonBenchmark.token(480))
+                .setScopes(List.of("USER"))
+                .setUserId("65f1c0ffee0000000000beef")
+                .setUsername("benchmark-user")
+                .setExpiresIn(1_767_225_600L)
+                .setRefreshTokenExpiresIn(1_767_312_000L);
+
+        encodedResponse = responseWriter.writeValueAsBytes(response);
+        System.out.printf("%nAuthResponse as %s: %d bytes%n", encoding, encodedResponse.length);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() {
+        return responseWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public AuthResponse readResponse() {
+        return responseReader.readValue(encodedResponse);
+    }
+}
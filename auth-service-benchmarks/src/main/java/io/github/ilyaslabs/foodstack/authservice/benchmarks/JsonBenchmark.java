@@ -0,0 +1,100 @@
+package io.github.ilyaslabs.foodstack.authservice.benchmarks;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the authenticate request and response, both the server side reading
+ * requests and writing responses and the client side doing the opposite. A realistic token is a
+ * few hundred bytes per token, which dominates the response size.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    private ObjectReader requestReader;
+    private ObjectWriter requestWriter;
+    private ObjectReader responseReader;
+    private ObjectWriter responseWriter;
+
+    private AuthRequest request;
+    private AuthResponse response;
+    private byte[] requestJson;
+    private byte[] responseJson;
+
+    @Setup
+    public void setUp() {
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        requestReader = jsonMapper.readerFor(AuthRequest.class);
+        requestWriter = jsonMapper.writerFor(AuthRequest.class);
+        responseReader = jsonMapper.readerFor(AuthResponse.class);
+        responseWriter = jsonMapper.writerFor(AuthResponse.class);
+
+        request = new AuthRequest("benchmark-user@foodstack.com", "benchmark-password");
+        response = new AuthResponse()
+                .setToken(token(620))
+                .setRefreshToken(token(480))
+                .setScopes(List.of("USER"))
+                .setUserId("65f1c0ffee0000000000beef")
+                .setUsername("benchmark-user")
+                .setExpiresIn(1_767_225_600L)
+                .setRefreshTokenExpiresIn(1_767_312_000L);
+
+        requestJson = requestWriter.writeValueAsBytes(request);
+        responseJson = responseWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public AuthRequest readRequest() {
+        return requestReader.readValue(requestJson);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() {
+        return responseWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] writeRequest() {
+        return requestWriter.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public AuthResponse readResponse() {
+        return responseReader.readValue(responseJson);
+    }
+
+    /**
+     * A base64url string of the given length, like a compact JWS.
+     */
+    static String token(int length) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        StringBuilder token = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            token.append(i % 200 == 199 ? '.' : alphabet.charAt((i * 31) % alphabet.length()));
+        }
+        return token.toString();
+    }
+}
@@ -0,0 +1,295 @@
+package io.github.ilyaslabs.foodstack.authservice.benchmarks;
+
+import io.github.ilyaslabs.foodstack.authservice.api.Constants;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Drives {@code /authenticate} and {@code /refresh} of a running auth service at a constant rate
+ * and reports throughput and latency percentiles, meant for a service started with the
+ * {@code in-memory} profile and its seeded users.
+ * <p>
+ * Requests are started on schedule whether or not earlier ones have completed, and latency is
+ * measured from the scheduled start, so a stalling service shows in the percentiles instead of
+ * slowing down the load. A request which can not be started because {@code max-in-flight} are
+ * outstanding counts as an error.
+ * <p>
+ * Each request picks a random seeded user. With the probability {@code refresh-ratio} it refreshes
+ * the user's last refresh token, if the user has one which is not in use, otherwise it logs in.
+ * <p>
+ * Given {@code max-p99} or {@code max-error-rate}, the exit status is {@code 1} if the run exceeds
+ * them, so it can gate a build.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public class LoadGenerator {
+
+    private static final String AUTHENTICATE = "authenticate";
+    private static final String REFRESH = "refresh";
+
+    private final Map<String, String> options;
+    private final URI authenticateUri;
+    private final URI refreshUri;
+    private final int users;
+    private final String usernamePrefix;
+    private final String password;
+    private final double refreshRatio;
+    private final Duration timeout;
+
+    private final HttpClient httpClient;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final AtomicReferenceArray<String> refreshTokens;
+
+    private LoadGenerator(Map<String, String> options) {
+        this.options = options;
+        String url = option("url", "http://localhost:8080");
+        this.authenticateUri = URI.create(url + Constants.API_PREFIX_V1 + "/authenticate");
+        this.refreshUri = URI.create(url + Constants.API_PREFIX_V1 + "/refresh");
+        this.users = Integer.parseInt(option("users", "10000"));
+        this.usernamePrefix = option("username-prefix", "user-");
+        this.password = option("password", "load-test-password");
+        this.refreshRatio = Double.parseDouble(option("refresh-ratio", "0.5"));
+        this.timeout = Duration.ofSeconds(Long.parseLong(option("timeout", "10")));
+
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.refreshTokens = new AtomicReferenceArray<>(users);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: LoadGenerator [--url=http://localhost:8080] [--users=10000] [--rate=200] [--duration=60] [--warmup=10]"
+                        + " [--refresh-ratio=0.5] [--max-in-flight=1000] [--timeout=10] [--username-prefix=user-] [--password=load-test-password]"
+                        + " [--max-p99=<millis>] [--max-error-rate=<fraction>]");
+                System.exit(2);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        System.exit(new LoadGenerator(options).run() ? 0 : 1);
+    }
+
+    /**
+     * @return {@code true} if the run met the given thresholds
+     */
+    private boolean run() throws InterruptedException {
+        double rate = Double.parseDouble(option("rate", "200"));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(option("warmup", "10")));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(option("duration", "60")));
+        Semaphore inFlight = new Semaphore(Integer.parseInt(option("max-in-flight", "1000")));
+
+        int capacity = (int) Math.ceil(rate * durationNanos / 1e9) + 1;
+        Map<String, Latencies> latencies = Map.of(AUTHENTICATE, new Latencies(capacity), REFRESH, new Latencies(capacity));
+        AtomicLong dropped = new AtomicLong();
+
+        System.out.printf("%.0f requests/s for %ds after %ds warmup against %s%n", rate, durationNanos / 1_000_000_000, warmupNanos / 1_000_000_000, authenticateUri);
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduled = start + (long) (i * 1e9 / rate);
+                if (scheduled >= end) {
+                    break;
+                }
+
+                long delay = scheduled - System.nanoTime();
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+
+                boolean measured = scheduled >= measureFrom;
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        dropped.incrementAndGet();
+                    }
+                    continue;
+                }
+
+                executor.execute(() -> {
+                    try {
+                        String operation = request();
+                        if (measured) {
+                            latencies.get(operation).record(System.nanoTime() - scheduled);
+                        }
+                    } catch (RequestFailedException e) {
+                        if (measured) {
+                            latencies.get(e.operation).fail();
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        return report(latencies, dropped.get(), durationNanos / 1e9);
+    }
+
+    /**
+     * Sends one request.
+     *
+     * @return the operation performed
+     * @throws RequestFailedException if the request failed or was rejected
+     */
+    private String request() {
+        int user = ThreadLocalRandom.current().nextInt(users);
+        String refreshToken = ThreadLocalRandom.current().nextDouble() < refreshRatio ? refreshTokens.getAndSet(user, null) : null;
+        String operation = refreshToken == null ? AUTHENTICATE : REFRESH;
+
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+        if (refreshToken == null) {
+            byte[] body = jsonMapper.writeValueAsBytes(new AuthRequest(usernamePrefix + user, password));
+            request.uri(authenticateUri).POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        } else {
+            request.uri(refreshUri).header("Authorization", "Bearer " + refreshToken).POST(HttpRequest.BodyPublishers.noBody());
+        }
+
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new RequestFailedException(operation);
+            }
+            refreshTokens.set(user, jsonMapper.readValue(response.body(), AuthResponse.class).getRefreshToken());
+            return operation;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(operation);
+        } catch (Exception e) {
+            throw new RequestFailedException(operation);
+        }
+    }
+
+    private boolean report(Map<String, Latencies> latencies, long dropped, double seconds) {
+        System.out.printf("%-14s %10s %8s %12s %10s %10s %10s %10s%n", "Operation", "Requests", "Errors", "Throughput", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+        Latencies total = new Latencies(0);
+        for (String operation : new String[]{AUTHENTICATE, REFRESH}) {
+            Latencies operationLatencies = latencies.get(operation);
+            print(operation, operationLatencies, 0, seconds);
+            total.add(operationLatencies);
+        }
+        print("total", total, dropped, seconds);
+        if (dropped > 0) {
+            System.out.printf("%d requests were not sent, max-in-flight was reached%n", dropped);
+        }
+
+        boolean passed = true;
+        long requests = total.count() + total.errors.get() + dropped;
+        double errorRate = requests == 0 ? 0 : (double) (total.errors.get() + dropped) / requests;
+        if (options.containsKey("max-error-rate") && errorRate > Double.parseDouble(options.get("max-error-rate"))) {
+            System.out.printf("FAILED: error rate %.4f exceeds %s%n", errorRate, options.get("max-error-rate"));
+            passed = false;
+        }
+        if (options.containsKey("max-p99") && millis(total.percentile(0.99)) > Double.parseDouble(options.get("max-p99"))) {
+            System.out.printf("FAILED: p99 %.2f ms exceeds %s ms%n", millis(total.percentile(0.99)), options.get("max-p99"));
+            passed = false;
+        }
+        return passed;
+    }
+
+    private static void print(String operation, Latencies latencies, long dropped, double seconds) {
+        System.out.printf("%-14s %10d %8d %10.1f/s %10.2f %10.2f %10.2f %10.2f%n",
+                operation,
+                latencies.count() + latencies.errors.get() + dropped,
+                latencies.errors.get() + dropped,
+                latencies.count() / seconds,
+                millis(latencies.percentile(0.5)),
+                millis(latencies.percentile(0.99)),
+                millis(latencies.percentile(0.999)),
+                millis(latencies.percentile(1)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Latencies of successful requests in nanoseconds, kept in full so percentiles are exact.
+     */
+    private static final class Latencies {
+
+        private long[] values;
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicLong errors = new AtomicLong();
+
+        private Latencies(int capacity) {
+            this.values = new long[capacity];
+        }
+
+        private void record(long nanos) {
+            int index = size.getAndIncrement();
+            if (index < values.length) {
+                values[index] = nanos;
+            }
+        }
+
+        private void fail() {
+            errors.incrementAndGet();
+        }
+
+        private int count() {
+            return Math.min(size.get(), values.length);
+        }
+
+        private void add(Latencies other) {
+            int count = count();
+            values = Arrays.copyOf(values, count + other.count());
+            System.arraycopy(other.values, 0, values, count, other.count());
+            size.set(values.length);
+            errors.addAndGet(other.errors.get());
+        }
+
+        private long percentile(double percentile) {
+            int count = count();
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, (int) Math.ceil(percentile * count) - 1)];
+        }
+    }
+
+    private static final class RequestFailedException extends RuntimeException {
+
+        private final String operation;
+
+        private RequestFailedException(String operation) {
+            super(operation + " failed", null, false, false);
+            this.operation = operation;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.ilyaslabs.foodstack.authservice.benchmarks;
+
+import io.github.ilyaslabs.foodstack.authservice.web.service.HashingPasswordEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying a password per algorithm and cost setting, the dominant share of a login.
+ * {@code matches} of a wrong password costs the same and is not measured separately.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+
+    /**
+     * the defaults of {@code auth.hashing} and a higher cost per algorithm
+     */
+    @Param({"bcrypt-10", "bcrypt-12", "argon2-16384-2", "argon2-65536-3", "pbkdf2-310000", "pbkdf2-600000"})
+    private String encoder;
+
+    private HashingPasswordEncoder passwordEncoder;
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        String[] settings = encoder.split("-");
+        passwordEncoder = switch (settings[0]) {
+            case "bcrypt" -> HashingPasswordEncoder.bcrypt(Integer.parseInt(settings[1]));
+            case "argon2" -> HashingPasswordEncoder.argon2(16, 32, 1, Integer.parseInt(settings[1]), Integer.parseInt(settings[2]));
+            case "pbkdf2" -> HashingPasswordEncoder.pbkdf2(16, Integer.parseInt(settings[1]));
+            default -> throw new IllegalArgumentException("Unknown encoder " + encoder);
+        };
+        encodedPassword = passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, encodedPassword);
+    }
+}
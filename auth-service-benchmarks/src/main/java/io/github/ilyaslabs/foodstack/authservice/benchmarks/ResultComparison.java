@@ -0,0 +1,78 @@
+package io.github.ilyaslabs.foodstack.authservice.benchmarks;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JSON result files of {@link BenchmarkRunner}, e.g. of the previous and the current
+ * release, printing the score and the allocation per operation of every benchmark in both.
+ * <p>
+ * A change within the combined score errors of both runs is marked as noise.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public class ResultComparison {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: ResultComparison <baseline.json> <current.json>");
+            System.exit(1);
+        }
+
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        Map<String, JsonNode> baseline = read(jsonMapper, args[0]);
+        Map<String, JsonNode> current = read(jsonMapper, args[1]);
+
+        System.out.printf("%-70s %16s %16s %9s %14s %14s%n", "Benchmark", "Baseline", "Current", "Change", "Baseline B/op", "Current B/op");
+        current.forEach((name, result) -> {
+            JsonNode previous = baseline.get(name);
+            if (previous == null) {
+                System.out.printf("%-70s %16s %16s%n", name, "-", score(result));
+                return;
+            }
+
+            double before = previous.path("primaryMetric").path("score").asDouble();
+            double after = result.path("primaryMetric").path("score").asDouble();
+            double error = previous.path("primaryMetric").path("scoreError").asDouble(0) + result.path("primaryMetric").path("scoreError").asDouble(0);
+            String change = Math.abs(after - before) <= error
+                    ? "noise"
+                    : String.format("%+.1f%%", (after - before) / before * 100);
+
+            System.out.printf("%-70s %16s %16s %9s %14s %14s%n", name, score(previous), score(result), change, allocation(previous), allocation(result));
+        });
+    }
+
+    /**
+     * @return results by benchmark name and parameters
+     */
+    private static Map<String, JsonNode> read(JsonMapper jsonMapper, String file) {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : jsonMapper.readTree(new File(file))) {
+            StringBuilder name = new StringBuilder(result.path("benchmark").asString().replaceFirst("^.*\\.benchmarks\\.", ""));
+            result.path("params").properties().forEach(param -> name.append(' ').append(param.getKey()).append('=').append(param.getValue().asString()));
+            results.put(name.toString(), result);
+        }
+        return results;
+    }
+
+    private static String score(JsonNode result) {
+        JsonNode metric = result.path("primaryMetric");
+        return String.format("%.3f %s", metric.path("score").asDouble(), metric.path("scoreUnit").asString());
+    }
+
+    private static String allocation(JsonNode result) {
+        // named with a leading middle dot before JMH 1.36
+        for (Map.Entry<String, JsonNode> metric : result.path("secondaryMetrics").properties()) {
+            if (metric.getKey().endsWith(ALLOCATION_METRIC)) {
+                return String.format("%.0f", metric.getValue().path("score").asDouble());
+            }
+        }
+        return "-";
+    }
+}
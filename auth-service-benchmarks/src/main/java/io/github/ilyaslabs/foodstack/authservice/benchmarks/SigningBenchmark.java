@@ -0,0 +1,80 @@
+package io.github.ilyaslabs.foodstack.authservice.benchmarks;
+
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.PublicKeyJwtDecoders;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.SigningAlgorithm;
+import io.github.ilyaslabs.foodstack.authservice.web.jwt.JwsSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of signing a token and of verifying it through the {@code security-common} decoder, per
+ * {@link SigningAlgorithm}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SigningBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private SigningAlgorithm algorithm;
+
+    private JwsSigner signer;
+    private JwtDecoder decoder;
+    private String payload;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm.getKeyAlgorithm());
+        switch (algorithm) {
+            case RS256 -> generator.initialize(2048);
+            case ES256 -> generator.initialize(new ECGenParameterSpec("secp256r1"));
+            case EdDSA -> {
+                // Ed25519 has no parameters
+            }
+        }
+        KeyPair keyPair = generator.generateKeyPair();
+
+        signer = JwsSigner.of(keyPair.getPrivate(), algorithm);
+        decoder = PublicKeyJwtDecoders.create(List.of(keyPair.getPublic()));
+
+        long now = Instant.now().getEpochSecond();
+        payload = "{\"iss\":\"http://foodstack.authservice.com\",\"sub\":\"65f1c0ffee0000000000beef\",\"iat\":" + now
+                + ",\"exp\":" + (now + TimeUnit.DAYS.toSeconds(1))
+                + ",\"userId\":\"65f1c0ffee0000000000beef\",\"username\":\"benchmark-user\",\"scope\":\"USER\"}";
+        token = signer.sign(payload);
+    }
+
+    @Benchmark
+    public String sign() {
+        return signer.sign(payload);
+    }
+
+    @Benchmark
+    public Jwt verify() {
+        return decoder.decode(token);
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.ilyaslabs.foodstack.authservice.benchmarks;
+
+import io.github.ilyaslabs.foodstack.authservice.api.Constants;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from launching the auth service until its first successful
+ * {@code /authenticate}, e.g. to compare the plain jar with the fast-start build.
+ * <p>
+ * Everything after {@code --} is the command starting the service. It is launched {@code runs}
+ * times, each time {@code /authenticate} is polled until it answers with 200, then the process is
+ * stopped. The user must exist, e.g. a seeded user of the {@code in-memory} profile.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public class StartupTimer {
+
+    private static final long POLL_INTERVAL_MILLIS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1) {
+            System.err.println("Usage: StartupTimer [--url=http://localhost:8080] [--username=user-0] [--password=load-test-password]"
+                    + " [--runs=5] [--timeout=120] -- <command starting the service>");
+            System.exit(2);
+        }
+
+        String url = "http://localhost:8080";
+        String username = "user-0";
+        String password = "load-test-password";
+        int runs = 5;
+        long timeoutSeconds = 120;
+        for (String arg : Arrays.copyOfRange(args, 0, separator)) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--url=")) {
+                url = value;
+            } else if (arg.startsWith("--username=")) {
+                username = value;
+            } else if (arg.startsWith("--password=")) {
+                password = value;
+            } else if (arg.startsWith("--runs=")) {
+                runs = Integer.parseInt(value);
+            } else if (arg.startsWith("--timeout=")) {
+                timeoutSeconds = Long.parseLong(value);
+            }
+        }
+        List<String> command = List.of(Arrays.copyOfRange(args, separator + 1, args.length));
+
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + Constants.API_PREFIX_V1 + "/authenticate"))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(JsonMapper.builder().build().writeValueAsBytes(new AuthRequest(username, password))))
+                .build();
+
+        List<Long> millis = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            long elapsed = measure(command, httpClient, request, TimeUnit.SECONDS.toNanos(timeoutSeconds));
+            System.out.printf("run %d: %d ms%n", run, elapsed);
+            millis.add(elapsed);
+        }
+
+        millis.sort(null);
+        System.out.printf("time to first successful /authenticate: min %d ms, median %d ms, max %d ms%n",
+                millis.getFirst(), millis.get((millis.size() - 1) / 2), millis.getLast());
+    }
+
+    private static long measure(List<String> command, HttpClient httpClient, HttpRequest request, long timeoutNanos) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - start < timeoutNanos) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("The service exited with status " + process.exitValue());
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+            throw new IllegalStateException("No successful /authenticate within the timeout");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+}
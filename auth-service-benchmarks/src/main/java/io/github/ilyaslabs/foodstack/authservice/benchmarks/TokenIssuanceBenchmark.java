@@ -0,0 +1,151 @@
+package io.github.ilyaslabs.foodstack.authservice.benchmarks;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.jwt.JwsSigner;
+import io.github.ilyaslabs.foodstack.authservice.web.service.TokenIssuer;
+import io.github.ilyaslabs.microservice.security.jwt.AuthService;
+import io.github.ilyaslabs.microservice.security.jwt.JwtProperties;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issuing an access and a refresh token for one user.
+ * <p>
+ * {@code tokenIssuer} is the production path. {@code authServiceBaseline} is the previous
+ * issuance: the library's {@link AuthService}, taken from a context auto-configured like the
+ * service's, called the way {@code AuthV1Controller.buildAuthResponse} called it before
+ * {@link TokenIssuer}. Both sign RS256 with the same 2048 bit key and the same expiries.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenIssuanceBenchmark {
+
+    private static final String ISSUER = "http://foodstack.authservice.com";
+    private static final String JWT_PROPERTY_PREFIX = "io.github.ilyaslabs.microservice.security.jwt.";
+
+    private final Clock clock = Clock.systemUTC();
+
+    private UserPrincipal user;
+    private TokenIssuer tokenIssuer;
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+    private JwtProperties jwtProperties;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        context = new SpringApplicationBuilder(LibraryConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(Map.of(
+                        "spring.cloud.config.enabled", "false",
+                        JWT_PROPERTY_PREFIX + "rsa.private-key", pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()),
+                        JWT_PROPERTY_PREFIX + "rsa.public-key", pem("PUBLIC KEY", keyPair.getPublic().getEncoded()),
+                        JWT_PROPERTY_PREFIX + "expiry", "10",
+                        JWT_PROPERTY_PREFIX + "refresh-expiry", "1"
+                ))
+                .run();
+        authService = context.getBean(AuthService.class);
+        jwtProperties = context.getBean(JwtProperties.class);
+
+        user = new UserPrincipal(new ObjectId(), "benchmark-user", true, List.of(User.Scope.USER), null);
+        tokenIssuer = new TokenIssuer(JwsSigner.rs256(keyPair.getPrivate()), ISSUER,
+                Duration.of(jwtProperties.getExpiry(), jwtProperties.getExpiryUnit()),
+                Duration.of(jwtProperties.getRefreshExpiry(), jwtProperties.getRefreshExpiryUnit()), clock);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AuthResponse tokenIssuer() {
+        return tokenIssuer.buildAuthResponse(user);
+    }
+
+    @Benchmark
+    public AuthResponse authServiceBaseline() {
+        List<String> scopes = Optional.ofNullable(user.scopes()).orElse(Collections.emptyList())
+                .stream().map(Enum::name).toList();
+
+        Map<String, String> claims = Map.of(
+                CommonSecurityConfig.JWT_CLAIM_USER_ID, user.id().toHexString(),
+                CommonSecurityConfig.JWT_CLAIM_USERNAME, user.username()
+        );
+
+        String token = authService.generateToken(user.id().toHexString(), ISSUER, claims, scopes);
+        String refreshToken = authService.generateRefreshToken(user.id().toHexString(), ISSUER, null, null);
+
+        return new AuthResponse()
+                .setUserId(user.id().toHexString())
+                .setUsername(user.username())
+                .setToken(token)
+                .setRefreshToken(refreshToken)
+                .setScopes(scopes)
+                .setExpiresIn(Instant.now(clock).plus(jwtProperties.getExpiry(), jwtProperties.getExpiryUnit()).getEpochSecond())
+                .setRefreshTokenExpiresIn(Instant.now(clock).plus(jwtProperties.getRefreshExpiry(), jwtProperties.getRefreshExpiryUnit()).getEpochSecond());
+    }
+
+    private static String pem(String type, byte[] key) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(key)
+                + "\n-----END " + type + "-----\n";
+    }
+
+    /**
+     * Only the library's auto-configuration, without a database.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @EnableAutoConfiguration(excludeName = {
+            "org.springframework.boot.mongodb.autoconfigure.MongoAutoConfiguration",
+            "org.springframework.boot.mongodb.autoconfigure.MongoReactiveAutoConfiguration",
+            "org.springframework.boot.data.mongodb.autoconfigure.DataMongoAutoConfiguration",
+            "org.springframework.boot.data.mongodb.autoconfigure.DataMongoReactiveAutoConfiguration",
+            "org.springframework.boot.data.mongodb.autoconfigure.DataMongoRepositoriesAutoConfiguration",
+            "org.springframework.boot.data.mongodb.autoconfigure.DataMongoReactiveRepositoriesAutoConfiguration"
+    })
+    static class LibraryConfiguration {
+    }
+}
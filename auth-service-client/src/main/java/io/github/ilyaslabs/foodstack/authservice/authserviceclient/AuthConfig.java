@@ -3,6 +3,10 @@ package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  *
  * @author Muhammad Ilyas (m.ilyas@live.com)
@@ -12,4 +16,123 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 class AuthConfig {
 
     private String baseUrl;
+
+    private final TokenCache tokenCache = new TokenCache();
+
+    private final Http http = new Http();
+
+    private final Retry retry = new Retry();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Data
+    static class TokenCache {
+
+        /**
+         * reuse the tokens of {@code authenticate} for the configured principals until they are about to expire
+         */
+        private boolean enabled = false;
+
+        /**
+         * usernames or emails whose tokens are cached, typically the service's own user, others are not cached
+         */
+        private Set<String> principals = new HashSet<>();
+
+        /**
+         * tokens are renewed by authenticating instead of refreshing once the password was checked longer ago
+         */
+        private Duration maxPasswordAge = Duration.ofMinutes(15);
+
+        /**
+         * cached tokens are no longer handed out this long before they expire
+         */
+        private Duration expirySkew = Duration.ofSeconds(30);
+
+        /**
+         * cached tokens are refreshed in the background once they expire within this time
+         */
+        private Duration refreshAhead = Duration.ofMinutes(2);
+    }
+
+    @Data
+    static class Http {
+
+        /**
+         * maximum number of pooled connections to the auth service
+         */
+        private int maxConnections = 50;
+
+        /**
+         * maximum time to establish a connection
+         */
+        private Duration connectTimeout = Duration.ofSeconds(1);
+
+        /**
+         * maximum time to wait for a response, should exceed the auth service's hashing max wait plus one hash
+         */
+        private Duration readTimeout = Duration.ofSeconds(5);
+
+        /**
+         * maximum time to wait for a free pooled connection before the call fails
+         */
+        private Duration connectionRequestTimeout = Duration.ofMillis(500);
+
+        /**
+         * pooled connections idle for longer are closed
+         */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+
+        /**
+         * pooled connections are not reused after this time, so new auth service instances receive traffic
+         */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        /**
+         * ask for CBOR, then Smile responses before JSON, services not supporting them answer with JSON
+         */
+        private boolean binaryEncoding = true;
+    }
+
+    @Data
+    static class Retry {
+
+        /**
+         * attempts per call including the first one, 1 disables retries
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * backoff before the first retry, grows exponentially with random jitter
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        /**
+         * upper bound of the backoff between two attempts
+         */
+        private Duration maxBackoff = Duration.ofSeconds(1);
+
+        /**
+         * no retry is started once a call has been running this long
+         */
+        private Duration timeout = Duration.ofSeconds(3);
+    }
+
+    @Data
+    static class CircuitBreaker {
+
+        /**
+         * fail calls fast while the auth service keeps failing
+         */
+        private boolean enabled = true;
+
+        /**
+         * consecutive failed calls opening the circuit
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * time calls are failed fast before a single trial call is let through
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+    }
 }
@@ -0,0 +1,75 @@
+package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker of the calls to the auth service.
+ * <p>
+ * It opens after {@code failureThreshold} consecutive failed calls and rejects calls for
+ * {@code openDuration}. Then a single trial call is let through: its success closes the circuit,
+ * its failure opens it again.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Slf4j
+class AuthServiceCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final LongSupplier nanoTime;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    AuthServiceCircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoTime) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return whether a call may be made, if so its outcome must be recorded
+     */
+    synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> {
+                if (nanoTime.getAsLong() - openedAt < openDurationNanos) {
+                    yield false;
+                }
+                state = State.HALF_OPEN;
+                yield true;
+            }
+        };
+    }
+
+    synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Auth service calls succeed again, closing the circuit");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            log.warn("Opening the circuit to the auth service after {} consecutive failed calls", consecutiveFailures);
+            state = State.OPEN;
+            openedAt = nanoTime.getAsLong();
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
+
+import io.github.ilyaslabs.foodstack.authservice.api.Constants;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Pooled HTTP transport to the auth service, applied to the {@link RestClient} of the generated clients.
+ * <p>
+ * Connections are kept alive in a pool bounded by {@code auth.http.max-connections}, every call is
+ * bounded by the connect, connection request and read timeouts, and calls are retried and circuit
+ * broken by the {@link ResilienceInterceptor}. The pool is reported as {@code auth.client.pool.*}.
+ * <p>
+ * Unless {@code auth.http.binary-encoding} is disabled, responses are negotiated as CBOR, then
+ * Smile, which are smaller and cheaper to read than JSON. A format is only asked for if its Jackson
+ * dataformat is on the classpath, and JSON stays acceptable for services not supporting either.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Slf4j
+class AuthServiceTransport implements AutoCloseable {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final ResilienceInterceptor resilienceInterceptor;
+    private final String accept;
+
+    AuthServiceTransport(AuthConfig authConfig, MeterRegistry meterRegistry) {
+        AuthConfig.Http http = authConfig.getHttp();
+
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                // all calls go to one route
+                .setMaxConnPerRoute(http.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(http.getTimeToLive()))
+                        .build())
+                .build();
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(http.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(http.getReadTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.of(http.getIdleTimeout()))
+                .evictExpiredConnections()
+                // retried by the resilience interceptor
+                .disableAutomaticRetries()
+                .build();
+
+        AuthConfig.CircuitBreaker circuitBreakerConfig = authConfig.getCircuitBreaker();
+        AuthServiceCircuitBreaker circuitBreaker = circuitBreakerConfig.isEnabled()
+                ? new AuthServiceCircuitBreaker(circuitBreakerConfig.getFailureThreshold(), circuitBreakerConfig.getOpenDuration(), System::nanoTime)
+                : null;
+        this.resilienceInterceptor = new ResilienceInterceptor(authConfig.getRetry(), circuitBreaker, meterRegistry);
+
+        ClassLoader classLoader = AuthServiceTransport.class.getClassLoader();
+        this.accept = accept(http.isBinaryEncoding(), className -> ClassUtils.isPresent(className, classLoader));
+
+        registerPoolGauge(meterRegistry, "auth.client.pool.leased", "Pooled connections in use", PoolStats::getLeased);
+        registerPoolGauge(meterRegistry, "auth.client.pool.available", "Idle pooled connections", PoolStats::getAvailable);
+        registerPoolGauge(meterRegistry, "auth.client.pool.pending", "Calls waiting for a pooled connection", PoolStats::getPending);
+        registerPoolGauge(meterRegistry, "auth.client.pool.max", "Maximum number of pooled connections", PoolStats::getMax);
+
+        log.info("Auth service transport initialized with {} pooled connections, accepting {}", http.getMaxConnections(), accept);
+    }
+
+    /**
+     * Applies the pooled request factory, the negotiated response encodings and the resilience
+     * interceptor. The interceptor is added last, so interceptors of the application, e.g. adding a
+     * bearer token, run once per call.
+     */
+    RestClient.Builder apply(RestClient.Builder builder) {
+        return builder
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient))
+                .defaultHeader(HttpHeaders.ACCEPT, accept)
+                .requestInterceptor(resilienceInterceptor);
+    }
+
+    /**
+     * @param binaryEncoding whether binary encodings are preferred
+     * @param present        whether a class is on the classpath
+     * @return {@code Accept} header of the calls, JSON last
+     */
+    static String accept(boolean binaryEncoding, Predicate<String> present) {
+        List<String> mediaTypes = new ArrayList<>();
+        if (binaryEncoding && present.test("tools.jackson.dataformat.cbor.CBORMapper")) {
+            mediaTypes.add(MediaType.APPLICATION_CBOR_VALUE);
+        }
+        if (binaryEncoding && present.test("tools.jackson.dataformat.smile.SmileMapper")) {
+            mediaTypes.add(Constants.MEDIA_TYPE_SMILE + ";q=0.9");
+        }
+        mediaTypes.add(mediaTypes.isEmpty() ? MediaType.APPLICATION_JSON_VALUE : MediaType.APPLICATION_JSON_VALUE + ";q=0.5");
+        return String.join(", ", mediaTypes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private void registerPoolGauge(MeterRegistry meterRegistry, String name, String description, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder(name, connectionManager, manager -> value.applyAsDouble(manager.getTotalStats()))
+                .description(description)
+                .register(meterRegistry);
+    }
+}
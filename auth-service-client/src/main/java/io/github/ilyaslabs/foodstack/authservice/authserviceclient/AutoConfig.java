@@ -1,15 +1,23 @@
 package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
 
 import io.github.ilyaslabs.foodstack.authservice.api.v1.AuthApiV1;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.support.RestClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 
+import java.time.Clock;
+
 /**
  *
  * @author Muhammad Ilyas (m.ilyas@live.com)
@@ -20,25 +28,78 @@ import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 @Slf4j
 public class AutoConfig {
 
+    /**
+     * Pooled HTTP transport with retries and circuit breaking shared by the auth service clients
+     * @param authConfig    auth service configuration
+     * @param meterRegistry registry of the pool and latency metrics, if the application has one
+     *
+     * @return auth service transport
+     */
+    @Bean
+    AuthServiceTransport authServiceTransport(AuthConfig authConfig, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new AuthServiceTransport(authConfig, meterRegistry.getIfUnique(() -> Metrics.globalRegistry));
+    }
+
     /**
      * RestClient bean for {@link AuthApiV1} making http calls
      * @param restClient auth service rest client
      * @param authConfig auth service configuration
+     * @param transport  auth service transport
      *
      * @return AuthApiV1 client
      */
     @Bean
-    AuthApiV1 authApiV1Client(RestClient restClient, AuthConfig authConfig) {
+    AuthApiV1 authApiV1Client(RestClient restClient, AuthConfig authConfig, AuthServiceTransport transport) {
         log.info("Initializing AuthApiV1 RestClient with baseUrl: {}", authConfig.getBaseUrl());
 
-        var apiRestClient = restClient.mutate().baseUrl(authConfig.getBaseUrl()).build();
-
-        HttpServiceProxyFactory factory = HttpServiceProxyFactory
-                .builderFor(RestClientAdapter.create(apiRestClient))
-                .build();
+        AuthApiV1 client = proxyFactory(restClient, authConfig, transport).createClient(AuthApiV1.class);
 
         log.info("AuthApiV1 RestClient has been initialized");
-        return factory.createClient(AuthApiV1.class);
+        return client;
     }
 
+    /**
+     * {@link AuthApiV1} caching the tokens of {@code authenticate} for the configured principals, injected
+     * wherever an {@link AuthApiV1} is required once enabled. The uncached client remains available as
+     * {@code authApiV1Client}.
+     *
+     * @param authApiV1Client the uncached client
+     * @param restClient      auth service rest client
+     * @param authConfig      auth service configuration
+     * @param transport       auth service transport
+     * @param clock           clock of the application, if it has one
+     * @return caching AuthApiV1 client
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "auth.token-cache", name = "enabled")
+    CachingAuthApiV1 cachingAuthApiV1Client(@Qualifier("authApiV1Client") AuthApiV1 authApiV1Client,
+                                            RestClient restClient,
+                                            AuthConfig authConfig,
+                                            AuthServiceTransport transport,
+                                            ObjectProvider<Clock> clock) {
+        AuthConfig.TokenCache tokenCache = authConfig.getTokenCache();
+        if (tokenCache.getPrincipals().isEmpty()) {
+            log.warn("Token cache is enabled without auth.token-cache.principals, no tokens are cached");
+        }
+
+        return new CachingAuthApiV1(
+                authApiV1Client,
+                proxyFactory(restClient, authConfig, transport).createClient(RefreshTokenApiV1.class),
+                tokenCache.getPrincipals(),
+                tokenCache.getMaxPasswordAge(),
+                tokenCache.getExpirySkew(),
+                tokenCache.getRefreshAhead(),
+                clock.getIfUnique(Clock::systemUTC),
+                task -> Thread.ofVirtual().name("auth-token-refresh").start(task)
+        );
+    }
+
+    private static HttpServiceProxyFactory proxyFactory(RestClient restClient, AuthConfig authConfig, AuthServiceTransport transport) {
+        var apiRestClient = transport.apply(restClient.mutate().baseUrl(authConfig.getBaseUrl())).build();
+
+        return HttpServiceProxyFactory
+                .builderFor(RestClientAdapter.create(apiRestClient))
+                .build();
+    }
 }
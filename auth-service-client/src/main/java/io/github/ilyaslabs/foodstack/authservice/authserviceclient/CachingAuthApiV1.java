@@ -0,0 +1,258 @@
+package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.AuthApiV1;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link AuthApiV1} keeping the tokens of {@link #authenticate(AuthRequest)} for the configured
+ * principals, typically the service's own user. Other principals are passed through uncached, so
+ * the cache holds at most one entry per configured principal.
+ * <p>
+ * Cached tokens are handed out until {@code expirySkew} before they expire. Once they expire within
+ * {@code refreshAhead} they are refreshed with their refresh token in the background, so callers
+ * normally never wait for the auth service. Concurrent callers of one principal share a single
+ * request to the auth service, whether it refreshes in the background or authenticates because
+ * nothing valid is cached.
+ * <p>
+ * A cached entry is only used when the password matches the one it was obtained with. The
+ * password is kept as an HMAC with a key generated per instance, never in plain text. Refreshing
+ * does not check the password again, so once the password was last checked longer than
+ * {@code maxPasswordAge} ago the tokens are renewed by authenticating instead: a changed password
+ * stops yielding tokens within that time plus the lifetime of one token. Entries whose tokens
+ * expired are dropped. {@link #refreshToken()} depends on the caller's token and is not cached.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Slf4j
+public class CachingAuthApiV1 implements AuthApiV1 {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthApiV1 delegate;
+    private final RefreshTokenApiV1 refreshTokenApi;
+    private final Set<String> principals;
+    private final long maxPasswordAgeSeconds;
+    private final long expirySkewSeconds;
+    private final long refreshAheadSeconds;
+    private final Clock clock;
+    private final Executor backgroundExecutor;
+
+    private final SecretKeySpec fingerprintKey;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    CachingAuthApiV1(AuthApiV1 delegate,
+                     RefreshTokenApiV1 refreshTokenApi,
+                     Set<String> principals,
+                     Duration maxPasswordAge,
+                     Duration expirySkew,
+                     Duration refreshAhead,
+                     Clock clock,
+                     Executor backgroundExecutor) {
+        this.delegate = delegate;
+        this.refreshTokenApi = refreshTokenApi;
+        this.principals = Set.copyOf(principals);
+        this.maxPasswordAgeSeconds = maxPasswordAge.toSeconds();
+        this.expirySkewSeconds = expirySkew.toSeconds();
+        this.refreshAheadSeconds = Math.max(refreshAhead.toSeconds(), expirySkewSeconds);
+        this.clock = clock;
+        this.backgroundExecutor = backgroundExecutor;
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.fingerprintKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    /**
+     * Returns the cached tokens of a configured principal, authenticating only if none are cached
+     * for this password or they have expired.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public AuthResponse authenticate(AuthRequest request) {
+        String principal = request.getUsername();
+        if (principal == null || !principals.contains(principal)) {
+            return delegate.authenticate(request);
+        }
+
+        byte[] fingerprint = fingerprint(request.getPassword());
+        Entry entry = entries.computeIfAbsent(principal, key -> new Entry(fingerprint));
+        if (!entry.matches(fingerprint)) {
+            // another password, it replaces the cached tokens only once it authenticated
+            Entry other = new Entry(fingerprint);
+            AuthResponse response = join(other.load(() -> authenticate(other, request)));
+            entries.put(principal, other);
+            return response;
+        }
+
+        AuthResponse current = entry.current;
+        long now = clock.millis() / 1000;
+        if (current != null && now < current.getExpiresIn() - expirySkewSeconds) {
+            if (now >= current.getExpiresIn() - refreshAheadSeconds) {
+                refreshInBackground(principal, entry, request);
+            }
+            return current;
+        }
+
+        // nothing valid cached, concurrent callers share one request
+        removeExpired(entry, now);
+        try {
+            return join(entry.load(() -> renew(entry, request)));
+        } catch (RuntimeException e) {
+            entries.remove(principal, entry);
+            throw e;
+        }
+    }
+
+    /**
+     * Not cached, the refresh token is taken from the caller's request.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public AuthResponse refreshToken() {
+        return delegate.refreshToken();
+    }
+
+    private void refreshInBackground(String principal, Entry entry, AuthRequest request) {
+        if (entry.inFlight.get() != null) {
+            return;
+        }
+
+        backgroundExecutor.execute(() -> {
+            try {
+                entry.load(() -> renew(entry, request)).join();
+            } catch (CompletionException e) {
+                // the current tokens stay valid until they expire, the next caller after that retries
+                log.warn("Background token refresh of {} failed: {}", principal, e.getCause().getMessage());
+            }
+        });
+    }
+
+    /**
+     * Uses the refresh token while it is valid and the password was checked recently, otherwise
+     * authenticates again.
+     */
+    private AuthResponse renew(Entry entry, AuthRequest request) {
+        AuthResponse current = entry.current;
+        long now = clock.millis() / 1000;
+
+        if (current != null && current.getRefreshToken() != null
+                && now < current.getRefreshTokenExpiresIn() - expirySkewSeconds
+                && now - entry.passwordCheckedAt < maxPasswordAgeSeconds) {
+            try {
+                return refreshTokenApi.refreshToken("Bearer " + current.getRefreshToken());
+            } catch (RuntimeException e) {
+                // e.g. the refresh token was revoked
+                log.debug("Token refresh failed, authenticating again: {}", e.getMessage());
+            }
+        }
+
+        return authenticate(entry, request);
+    }
+
+    private AuthResponse authenticate(Entry entry, AuthRequest request) {
+        long now = clock.millis() / 1000;
+        AuthResponse response = delegate.authenticate(request);
+        entry.passwordCheckedAt = now;
+        return response;
+    }
+
+    /**
+     * Drops the other entries whose tokens can neither be handed out nor refreshed any more.
+     */
+    private void removeExpired(Entry renewed, long now) {
+        entries.values().removeIf(entry -> {
+            AuthResponse current = entry.current;
+            return entry != renewed && current != null && entry.inFlight.get() == null
+                    && now >= Math.max(current.getExpiresIn(), current.getRefreshTokenExpiresIn()) - expirySkewSeconds;
+        });
+    }
+
+    private byte[] fingerprint(String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(fingerprintKey);
+            return mac.doFinal(password == null ? new byte[0] : password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static AuthResponse join(CompletableFuture<AuthResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Tokens of one principal and password, and the request to the auth service in flight for them.
+     */
+    private static final class Entry {
+
+        private final byte[] fingerprint;
+        private final AtomicReference<CompletableFuture<AuthResponse>> inFlight = new AtomicReference<>();
+
+        private volatile AuthResponse current;
+        private volatile long passwordCheckedAt;
+
+        private Entry(byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean matches(byte[] fingerprint) {
+            return MessageDigest.isEqual(this.fingerprint, fingerprint);
+        }
+
+        /**
+         * Runs the loader unless a load is in flight already, in which case its result is shared.
+         * The loader runs on the calling thread.
+         */
+        private CompletableFuture<AuthResponse> load(Loader loader) {
+            CompletableFuture<AuthResponse> created = new CompletableFuture<>();
+            CompletableFuture<AuthResponse> existing = inFlight.compareAndExchange(null, created);
+            if (existing != null) {
+                return existing;
+            }
+
+            try {
+                AuthResponse response = loader.load();
+                current = response;
+                created.complete(response);
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.set(null);
+            }
+            return created;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Loader {
+        AuthResponse load();
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling the auth service while its circuit is open. The client surfaces it as
+ * the cause of a {@link org.springframework.web.client.ResourceAccessException}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    CircuitBreakerOpenException() {
+        super("Circuit to the auth service is open, the call was not made");
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
+
+import io.github.ilyaslabs.foodstack.authservice.api.Constants;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.AuthApiV1;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.service.annotation.HttpExchange;
+import org.springframework.web.service.annotation.PostExchange;
+
+/**
+ * {@link AuthApiV1#refreshToken()} with an explicit refresh token, used by {@link CachingAuthApiV1}
+ * to refresh the tokens it holds.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@HttpExchange(Constants.API_PREFIX_V1)
+interface RefreshTokenApiV1 {
+
+    /**
+     * @param authorization {@code Bearer} followed by the refresh token
+     * @return the new tokens
+     */
+    @PostExchange("/refresh")
+    AuthResponse refreshToken(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization);
+}
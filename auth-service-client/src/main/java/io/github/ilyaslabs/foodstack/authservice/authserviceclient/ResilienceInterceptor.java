@@ -0,0 +1,170 @@
+package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.policy.CompositeRetryPolicy;
+import org.springframework.retry.policy.MaxAttemptsRetryPolicy;
+import org.springframework.retry.policy.TimeoutRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries and circuit breaking of the calls to the auth service, with their latency recorded
+ * as {@code auth.client.requests}.
+ * <p>
+ * Only failures where the auth service did not process the request are retried: the connection
+ * could not be established, or it answered 502 or 503. Read timeouts are not retried, a refresh
+ * token that was rotated already would revoke its family when used again. Retries back off
+ * exponentially with random jitter and are no longer started once the call exceeded the retry
+ * timeout, which together with the read timeout bounds the time a call can take.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Slf4j
+class ResilienceInterceptor implements ClientHttpRequestInterceptor {
+
+    private final RetryTemplate retryTemplate;
+    private final AuthServiceCircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final Counter retryCounter;
+
+    /**
+     * @param circuitBreaker circuit breaker of the calls, {@code null} if disabled
+     */
+    ResilienceInterceptor(AuthConfig.Retry retry, AuthServiceCircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        TimeoutRetryPolicy timeoutRetryPolicy = new TimeoutRetryPolicy();
+        timeoutRetryPolicy.setTimeout(retry.getTimeout().toMillis());
+
+        CompositeRetryPolicy retryPolicy = new CompositeRetryPolicy();
+        retryPolicy.setPolicies(new RetryPolicy[]{
+                new MaxAttemptsRetryPolicy(retry.getMaxAttempts()),
+                timeoutRetryPolicy
+        });
+
+        this.retryCounter = Counter.builder("auth.client.retries")
+                .description("Calls to the auth service retried after a failed attempt")
+                .register(meterRegistry);
+
+        this.retryTemplate = RetryTemplate.builder()
+                .customPolicy(retryPolicy)
+                .retryOn(List.of(ConnectException.class, ConnectTimeoutException.class, RetryableStatusException.class))
+                .exponentialBackoff(retry.getInitialBackoff(), 2, retry.getMaxBackoff(), true)
+                .build();
+        this.circuitBreaker = circuitBreaker;
+        this.meterRegistry = meterRegistry;
+
+        if (circuitBreaker != null) {
+            Gauge.builder("auth.client.circuit.open", circuitBreaker, c -> c.state() == AuthServiceCircuitBreaker.State.CLOSED ? 0 : 1)
+                    .description("Whether calls to the auth service are failed fast")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            timer(request, "REJECTED").record(0, TimeUnit.NANOSECONDS);
+            throw new CircuitBreakerOpenException();
+        }
+
+        long start = System.nanoTime();
+        String outcome = "IO_ERROR";
+        try {
+            ClientHttpResponse response = retryTemplate.execute(
+                    context -> {
+                        if (context.getRetryCount() > 0) {
+                            retryCounter.increment();
+                        }
+                        // the response of the previous attempt is replaced
+                        if (context.getLastThrowable() instanceof RetryableStatusException e) {
+                            e.response.close();
+                        }
+
+                        ClientHttpResponse attempt = execution.execute(request, body);
+                        if (isRetryable(attempt.getStatusCode().value())) {
+                            throw new RetryableStatusException(attempt);
+                        }
+                        return attempt;
+                    },
+                    ResilienceInterceptor::recover
+            );
+
+            outcome = outcome(response.getStatusCode().value());
+            return response;
+        } finally {
+            timer(request, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (circuitBreaker != null) {
+                if (outcome.equals("SUCCESS") || outcome.equals("CLIENT_ERROR")) {
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+            }
+        }
+    }
+
+    private Timer timer(HttpRequest request, String outcome) {
+        return Timer.builder("auth.client.requests")
+                .description("Calls to the auth service including retries")
+                .tag("uri", request.getURI().getPath())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Called once no further attempt is made, returns the last response if the auth service answered.
+     */
+    private static ClientHttpResponse recover(RetryContext context) throws IOException {
+        Throwable lastThrowable = context.getLastThrowable();
+        if (lastThrowable instanceof RetryableStatusException e) {
+            return e.response;
+        }
+        if (lastThrowable instanceof IOException e) {
+            throw e;
+        }
+        if (lastThrowable instanceof RuntimeException e) {
+            throw e;
+        }
+        throw new IllegalStateException(lastThrowable);
+    }
+
+    private static String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        return status >= 400 ? "CLIENT_ERROR" : "SUCCESS";
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == HttpStatus.BAD_GATEWAY.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+
+    /**
+     * Signals a retryable response to the retry template, carrying the response for the last attempt.
+     */
+    private static final class RetryableStatusException extends IOException {
+
+        private final transient ClientHttpResponse response;
+
+        private RetryableStatusException(ClientHttpResponse response) throws IOException {
+            super("Retryable response status " + response.getStatusCode());
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class AuthServiceTransportTest {
+
+    @Test
+    void acceptsBinaryEncodingsBeforeJson() {
+        assertThat(AuthServiceTransport.accept(true, className -> true))
+                .isEqualTo("application/cbor, application/x-jackson-smile;q=0.9, application/json;q=0.5");
+    }
+
+    @Test
+    void acceptsOnlyEncodingsOnTheClasspath() {
+        assertThat(AuthServiceTransport.accept(true, className -> className.contains("smile")))
+                .isEqualTo("application/x-jackson-smile;q=0.9, application/json;q=0.5");
+        assertThat(AuthServiceTransport.accept(true, className -> false)).isEqualTo("application/json");
+    }
+
+    @Test
+    void acceptsOnlyJsonWithoutBinaryEncoding() {
+        assertThat(AuthServiceTransport.accept(false, className -> true)).isEqualTo("application/json");
+    }
+}
@@ -0,0 +1,218 @@
+package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.AuthApiV1;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class CachingAuthApiV1Test {
+
+    private static final long TOKEN_LIFETIME = 600;
+    private static final long REFRESH_TOKEN_LIFETIME = 3600;
+
+    private final TestClock clock = new TestClock();
+    private final FakeAuthApi authApi = new FakeAuthApi();
+    private final AtomicInteger refreshCalls = new AtomicInteger();
+    private final List<String> refreshedWith = new ArrayList<>();
+
+    private final RefreshTokenApiV1 refreshTokenApi = authorization -> {
+        refreshCalls.incrementAndGet();
+        refreshedWith.add(authorization);
+        return response("refreshed-" + refreshCalls.get());
+    };
+
+    private final CachingAuthApiV1 cachingAuthApi = new CachingAuthApiV1(
+            authApi,
+            refreshTokenApi,
+            Set.of("alice", "bob"),
+            Duration.ofMinutes(15),
+            Duration.ofSeconds(30),
+            Duration.ofMinutes(2),
+            clock,
+            Runnable::run
+    );
+
+    @Test
+    void authenticatesOncePerPrincipal() {
+        AuthResponse first = cachingAuthApi.authenticate(new AuthRequest("alice", "password1"));
+        AuthResponse second = cachingAuthApi.authenticate(new AuthRequest("alice", "password1"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(authApi.calls).hasValue(1);
+
+        cachingAuthApi.authenticate(new AuthRequest("bob", "password1"));
+        assertThat(authApi.calls).hasValue(2);
+    }
+
+    @Test
+    void otherPrincipalsAreNotCached() {
+        cachingAuthApi.authenticate(new AuthRequest("carol", "password1"));
+        cachingAuthApi.authenticate(new AuthRequest("carol", "password1"));
+
+        assertThat(authApi.calls).hasValue(2);
+    }
+
+    @Test
+    void otherPasswordIsNotServedFromCache() {
+        cachingAuthApi.authenticate(new AuthRequest("alice", "password1"));
+
+        authApi.failing = true;
+        assertThatThrownBy(() -> cachingAuthApi.authenticate(new AuthRequest("alice", "wrong-password")))
+                .isInstanceOf(IllegalStateException.class);
+
+        // the failed attempt did not replace the cached tokens
+        authApi.failing = false;
+        cachingAuthApi.authenticate(new AuthRequest("alice", "password1"));
+        assertThat(authApi.calls).hasValue(2);
+    }
+
+    @Test
+    void refreshesAheadOfExpiryWithRefreshToken() {
+        AuthResponse first = cachingAuthApi.authenticate(new AuthRequest("alice", "password1"));
+
+        // inside the refresh ahead window, the cached tokens are returned and refreshed
+        clock.advance(Duration.ofSeconds(TOKEN_LIFETIME - 60));
+        assertThat(cachingAuthApi.authenticate(new AuthRequest("alice", "password1"))).isSameAs(first);
+
+        assertThat(refreshCalls).hasValue(1);
+        assertThat(refreshedWith).containsExactly("Bearer " + first.getRefreshToken());
+
+        assertThat(cachingAuthApi.authenticate(new AuthRequest("alice", "password1")).getToken()).isEqualTo("refreshed-1");
+        assertThat(authApi.calls).hasValue(1);
+    }
+
+    @Test
+    void authenticatesInsteadOfRefreshingOncePasswordCheckIsTooOld() {
+        cachingAuthApi.authenticate(new AuthRequest("alice", "password1"));
+
+        // refreshed 9 minutes after the password was checked
+        clock.advance(Duration.ofSeconds(TOKEN_LIFETIME - 60));
+        cachingAuthApi.authenticate(new AuthRequest("alice", "password1"));
+        assertThat(refreshCalls).hasValue(1);
+
+        // due 18 minutes after the password was checked, past the maximum age of 15 minutes
+        clock.advance(Duration.ofSeconds(TOKEN_LIFETIME - 60));
+        cachingAuthApi.authenticate(new AuthRequest("alice", "password1"));
+
+        assertThat(refreshCalls).hasValue(1);
+        assertThat(authApi.calls).hasValue(2);
+        assertThat(cachingAuthApi.authenticate(new AuthRequest("alice", "password1")).getToken()).isEqualTo("token-2");
+    }
+
+    @Test
+    void authenticatesAgainOnceRefreshTokenExpired() {
+        cachingAuthApi.authenticate(new AuthRequest("alice", "password1"));
+
+        clock.advance(Duration.ofSeconds(REFRESH_TOKEN_LIFETIME));
+        cachingAuthApi.authenticate(new AuthRequest("alice", "password1"));
+
+        assertThat(refreshCalls).hasValue(0);
+        assertThat(authApi.calls).hasValue(2);
+    }
+
+    @Test
+    void concurrentCallersShareOneRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        authApi.blockUntil = release;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<AuthResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                responses.add(executor.submit(() -> cachingAuthApi.authenticate(new AuthRequest("alice", "password1"))));
+            }
+
+            // let the callers pile up behind the first request
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<AuthResponse> response : responses) {
+                assertThat(response.get(5, TimeUnit.SECONDS).getToken()).isEqualTo("token-1");
+            }
+        }
+
+        assertThat(authApi.calls).hasValue(1);
+    }
+
+    private AuthResponse response(String token) {
+        long now = clock.millis() / 1000;
+        return new AuthResponse()
+                .setToken(token)
+                .setRefreshToken("refresh-" + token)
+                .setExpiresIn(now + TOKEN_LIFETIME)
+                .setRefreshTokenExpiresIn(now + REFRESH_TOKEN_LIFETIME);
+    }
+
+    private class FakeAuthApi implements AuthApiV1 {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean failing;
+        private volatile CountDownLatch blockUntil;
+
+        @Override
+        public AuthResponse authenticate(AuthRequest request) {
+            int call = calls.incrementAndGet();
+            if (failing) {
+                throw new IllegalStateException("Invalid password");
+            }
+            if (blockUntil != null) {
+                try {
+                    blockUntil.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return response("token-" + call);
+        }
+
+        @Override
+        public AuthResponse refreshToken() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class TestClock extends Clock {
+
+        private volatile Instant instant = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
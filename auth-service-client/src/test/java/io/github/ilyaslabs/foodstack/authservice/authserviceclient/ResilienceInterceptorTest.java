@@ -0,0 +1,133 @@
+package io.github.ilyaslabs.foodstack.authservice.authserviceclient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class ResilienceInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final AuthServiceCircuitBreaker circuitBreaker = new AuthServiceCircuitBreaker(2, Duration.ofSeconds(10), nanoTime::get);
+    private final ResilienceInterceptor interceptor = new ResilienceInterceptor(retry(), circuitBreaker, meterRegistry);
+
+    private final MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://auth/api/v1/auth/authenticate"));
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void retriesUnavailableUntilSuccess() throws Exception {
+        var response = interceptor.intercept(request, new byte[0], execution(
+                new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE),
+                new MockClientHttpResponse(new byte[0], HttpStatus.OK)
+        ));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(attempts).hasValue(2);
+        assertThat(meterRegistry.get("auth.client.retries").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.client.requests").tag("outcome", "SUCCESS").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void returnsLastResponseOnceAttemptsAreExhausted() throws Exception {
+        var response = interceptor.intercept(request, new byte[0], execution(
+                new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE),
+                new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE),
+                new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE)
+        ));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void retriesConnectFailuresButNotReadTimeouts() {
+        assertThatThrownBy(() -> interceptor.intercept(request, new byte[0], failing(new ConnectException("refused"))))
+                .isInstanceOf(ConnectException.class);
+        assertThat(attempts).hasValue(3);
+
+        attempts.set(0);
+        assertThatThrownBy(() -> interceptor.intercept(request, new byte[0], failing(new SocketTimeoutException("read timed out"))))
+                .isInstanceOf(SocketTimeoutException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void opensCircuitAfterConsecutiveFailures() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> interceptor.intercept(request, new byte[0], failing(new SocketTimeoutException("read timed out"))))
+                    .isInstanceOf(SocketTimeoutException.class);
+        }
+
+        attempts.set(0);
+        assertThatThrownBy(() -> interceptor.intercept(request, new byte[0], execution(new MockClientHttpResponse(new byte[0], HttpStatus.OK))))
+                .isInstanceOf(CircuitBreakerOpenException.class);
+        assertThat(attempts).hasValue(0);
+        assertThat(meterRegistry.get("auth.client.circuit.open").gauge().value()).isEqualTo(1);
+
+        // a trial call is let through after the open duration and closes the circuit
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+        interceptor.intercept(request, new byte[0], execution(new MockClientHttpResponse(new byte[0], HttpStatus.OK)));
+
+        assertThat(attempts).hasValue(1);
+        assertThat(circuitBreaker.state()).isEqualTo(AuthServiceCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedTrialCallOpensCircuitAgain() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        // only one trial call at a time
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.state()).isEqualTo(AuthServiceCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+    }
+
+    private ClientHttpRequestExecution execution(MockClientHttpResponse... responses) {
+        Deque<MockClientHttpResponse> remaining = new ArrayDeque<>(List.of(responses));
+        return (request, body) -> {
+            attempts.incrementAndGet();
+            return remaining.pop();
+        };
+    }
+
+    private ClientHttpRequestExecution failing(IOException exception) {
+        return (request, body) -> {
+            attempts.incrementAndGet();
+            throw exception;
+        };
+    }
+
+    private static AuthConfig.Retry retry() {
+        AuthConfig.Retry retry = new AuthConfig.Retry();
+        retry.setInitialBackoff(Duration.ofMillis(1));
+        retry.setMaxBackoff(Duration.ofMillis(2));
+        return retry;
+    }
+}
@@ -1,17 +1,52 @@
 package io.github.ilyaslabs.foodstack.authservice.web;
 
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.AppliedIndexMigration;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.RefreshTokenFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.AuthPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.ExportedUser;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.RevokedFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory.InMemoryRepository;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
 
 /**
  *
  * @author Muhammad Ilyas (m.ilyas@live.com)¬
  */
 @Configuration
-@EnableMongoRepositories(basePackages = "io.github.ilyaslabs.foodstack.authservice.web.repository")
 @ConfigurationPropertiesScan(basePackages = "io.github.ilyaslabs.foodstack.authservice.web.config")
 @ComponentScan(basePackages = "io.github.ilyaslabs.foodstack.authservice.web")
 class Config {
+
+    /**
+     * MongoDB repositories, replaced by the in-memory ones under the {@value InMemoryRepository#PROFILE} profile.
+     */
+    @Configuration
+    @Profile("!" + InMemoryRepository.PROFILE)
+    @EnableMongoRepositories(basePackages = "io.github.ilyaslabs.foodstack.authservice.web.repository",
+            excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveMongoRepository.class))
+    // documents and projections are also mapped by MongoTemplate queries, which AOT processing does not see
+    @RegisterReflectionForBinding({User.class, RefreshTokenFamily.class, AppliedIndexMigration.class, AuthPrincipal.class, UserPrincipal.class, RevokedFamily.class, ExportedUser.class})
+    static class MongoRepositoriesConfig {
+    }
+
+    /**
+     * Reactive MongoDB repositories, only created for the reactive deployment.
+     */
+    @Configuration
+    @Profile("!" + InMemoryRepository.PROFILE)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @EnableReactiveMongoRepositories(basePackages = "io.github.ilyaslabs.foodstack.authservice.web.repository")
+    static class ReactiveMongoRepositoriesConfig {
+    }
 }
@@ -0,0 +1,79 @@
+package io.github.ilyaslabs.foodstack.authservice.web.cache;
+
+import org.bson.types.ObjectId;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of {@link ObjectId}s. Lookups read a few words of a bit array and never
+ * allocate, inserts are lock free.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.words = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+        this.bitCount = (long) words.length() << 6;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * @param expectedInsertions number of ids the filter is sized for
+     * @param falsePositiveRate  false positive rate at the expected number of ids
+     * @return an empty filter
+     */
+    static BloomFilter create(int expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        long bitCount = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+        return new BloomFilter(bitCount, hashCount);
+    }
+
+    void put(ObjectId id) {
+        long hash1 = hash(id, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(id, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            words.getAndUpdate(word, value -> value | mask);
+        }
+    }
+
+    boolean mightContain(ObjectId id) {
+        long hash1 = hash(id, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(id, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mixes the timestamp and the remaining bytes of the id, see {@link ObjectId#hashCode()} for
+     * the latter.
+     */
+    private static long hash(ObjectId id, long seed) {
+        long value = ((long) id.getTimestamp() << 32) ^ (id.hashCode() & 0xFFFFFFFFL);
+        return mix(value ^ seed);
+    }
+
+    // finalizer of MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
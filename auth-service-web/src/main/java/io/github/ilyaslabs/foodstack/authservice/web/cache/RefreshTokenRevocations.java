@@ -0,0 +1,177 @@
+package io.github.ilyaslabs.foodstack.authservice.web.cache;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.RefreshTokenConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.RevokedFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.RefreshTokenFamilyRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory view of the revoked refresh token families, so revoked tokens are rejected without
+ * a database read.
+ * <p>
+ * A Bloom filter answers almost every lookup on its own, since almost no presented token belongs
+ * to a revoked family. Its rare positives are confirmed against the exact set of revoked ids. The
+ * view is loaded at startup and revocations made by other instances are read periodically, entries
+ * are dropped once the family has expired.
+ * <p>
+ * The view only saves work: rotation is a conditional update which fails for revoked families,
+ * so a revocation not yet synchronized still cannot be used to obtain tokens.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Component
+@Slf4j
+public class RefreshTokenRevocations implements SmartLifecycle {
+
+    // revocation times are taken from the clocks of all instances
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+    private static final Duration SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final RefreshTokenConfig refreshTokenConfig;
+    private final Clock clock;
+
+    // family id to expiry in epoch millis
+    private final Map<ObjectId, Long> revoked = new ConcurrentHashMap<>();
+
+    // guards replacing the filter against concurrent inserts
+    private final ReentrantLock filterLock = new ReentrantLock();
+    private volatile BloomFilter filter;
+    private int filterCapacity;
+
+    private volatile boolean running = false;
+    private ScheduledExecutorService scheduler;
+    private Instant lastSync;
+    private Instant lastSweep;
+
+    public RefreshTokenRevocations(RefreshTokenFamilyRepository refreshTokenFamilyRepository,
+                                   RefreshTokenConfig refreshTokenConfig,
+                                   Clock clock,
+                                   MeterRegistry meterRegistry) {
+        this.refreshTokenFamilyRepository = refreshTokenFamilyRepository;
+        this.refreshTokenConfig = refreshTokenConfig;
+        this.clock = clock;
+        this.filterCapacity = refreshTokenConfig.getExpectedRevocations();
+        this.filter = BloomFilter.create(filterCapacity, refreshTokenConfig.getFalsePositiveRate());
+
+        Gauge.builder("auth.refresh-tokens.revoked", revoked, Map::size)
+                .description("Revoked, unexpired refresh token families held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param familyId family id
+     * @return {@code true} if the family is known to be revoked
+     */
+    public boolean isRevoked(ObjectId familyId) {
+        return filter.mightContain(familyId) && revoked.containsKey(familyId);
+    }
+
+    /**
+     * Records a revocation.
+     *
+     * @param familyId  family id
+     * @param expiresAt expiry of the family's current token, the entry is dropped afterwards
+     */
+    public void add(ObjectId familyId, Instant expiresAt) {
+        if (revoked.put(familyId, expiresAt.toEpochMilli()) != null) {
+            return;
+        }
+
+        filterLock.lock();
+        try {
+            if (revoked.size() > filterCapacity) {
+                rebuildFilter(filterCapacity * 2);
+            } else {
+                filter.put(familyId);
+            }
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        Instant now = clock.instant();
+        refreshTokenFamilyRepository.findRevokedSince(Instant.EPOCH, now)
+                .forEach(family -> add(family.id(), family.expiresAt()));
+        lastSync = now;
+        lastSweep = now;
+        log.info("Loaded {} revoked refresh token families", revoked.size());
+
+        long interval = refreshTokenConfig.getSyncInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("refresh-token-revocations").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void sync() {
+        try {
+            Instant now = clock.instant();
+            for (RevokedFamily family : refreshTokenFamilyRepository.findRevokedSince(lastSync.minus(CLOCK_SKEW), now)) {
+                add(family.id(), family.expiresAt());
+            }
+            lastSync = now;
+
+            if (Duration.between(lastSweep, now).compareTo(SWEEP_INTERVAL) >= 0) {
+                sweep(now);
+                lastSweep = now;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to synchronize refresh token revocations", e);
+        }
+    }
+
+    /**
+     * Drops expired families. A Bloom filter cannot forget, so it is rebuilt from the remaining ones.
+     */
+    private void sweep(Instant now) {
+        long nowMillis = now.toEpochMilli();
+        if (!revoked.values().removeIf(expiresAt -> expiresAt <= nowMillis)) {
+            return;
+        }
+
+        filterLock.lock();
+        try {
+            rebuildFilter(Math.max(refreshTokenConfig.getExpectedRevocations(), revoked.size() * 2));
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
+    // callers hold the filter lock, so no insert is lost between filling and publishing the new filter
+    private void rebuildFilter(int capacity) {
+        BloomFilter rebuilt = BloomFilter.create(capacity, refreshTokenConfig.getFalsePositiveRate());
+        revoked.keySet().forEach(rebuilt::put);
+        filterCapacity = capacity;
+        filter = rebuilt;
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.ilyaslabs.foodstack.authservice.web.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.ilyaslabs.foodstack.authservice.web.config.UserCacheConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of {@link UserPrincipal}s keyed by user id.
+ * <p>
+ * Entries are evicted by size and TTL, and invalidated by {@link UserCacheInvalidator} whenever a
+ * user changes. While the invalidator is not listening for changes the cache is bypassed, so a
+ * disabled or deleted user is never served from a cache nobody invalidates.
+ * <p>
+ * Entries are futures, so an invalidation also discards a load still in flight and a stale
+ * user read before the change is never stored.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@Slf4j
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final UserCacheConfig userCacheConfig;
+    private final AsyncCache<ObjectId, UserPrincipal> cache;
+
+    private volatile boolean listening = false;
+
+    public UserCache(UserRepository userRepository, UserCacheConfig userCacheConfig, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userCacheConfig = userCacheConfig;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(userCacheConfig.getMaximumSize())
+                .expireAfterWrite(userCacheConfig.getTtl())
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    /**
+     * Returns the user with the given id, reading it from the database on a cache miss.
+     *
+     * @param id user id
+     * @return the user, or empty if it does not exist
+     */
+    public Optional<UserPrincipal> get(ObjectId id) {
+        if (!userCacheConfig.isEnabled() || !listening) {
+            return load(id);
+        }
+
+        // a missing user is not cached, get returns null without storing an entry
+        return Optional.ofNullable(cache.synchronous().get(id, key -> load(key).orElse(null)));
+    }
+
+    /**
+     * Returns the user with the given id without blocking, reading it with the given loader on a
+     * cache miss.
+     *
+     * @param id     user id
+     * @param loader non-blocking read of a user, completes with {@code null} if the user does not exist
+     * @return future of the user, or empty if it does not exist
+     */
+    public CompletableFuture<Optional<UserPrincipal>> getAsync(ObjectId id, Function<ObjectId, CompletableFuture<UserPrincipal>> loader) {
+        if (!userCacheConfig.isEnabled() || !listening) {
+            return loader.apply(id).thenApply(Optional::ofNullable);
+        }
+
+        // a future completed with null is removed from the cache
+        return cache.get(id, (key, executor) -> loader.apply(key)).thenApply(Optional::ofNullable);
+    }
+
+    /**
+     * Removes the user from the cache.
+     *
+     * @param id user id
+     */
+    public void invalidate(ObjectId id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /**
+     * Removes every user from the cache.
+     */
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * Enables caching once changes are being listened for.
+     */
+    void resume() {
+        cache.synchronous().invalidateAll();
+        listening = true;
+        log.info("User cache enabled");
+    }
+
+    /**
+     * Bypasses and clears the cache while changes cannot be listened for.
+     */
+    void suspend() {
+        listening = false;
+        cache.synchronous().invalidateAll();
+        log.warn("User cache suspended, users are read from the database");
+    }
+
+    private Optional<UserPrincipal> load(ObjectId id) {
+        return userRepository.findPrincipalById(id);
+    }
+}
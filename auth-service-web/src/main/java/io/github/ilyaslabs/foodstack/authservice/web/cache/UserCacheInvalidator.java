@@ -0,0 +1,166 @@
+package io.github.ilyaslabs.foodstack.authservice.web.cache;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.github.ilyaslabs.foodstack.authservice.web.config.UserCacheConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory.InMemoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invalidates {@link UserCache} entries from a change stream on the {@code users} collection.
+ * <p>
+ * Updates invalidate the user only if a field relevant for token issuance changed, replacements
+ * and deletes always do. If the change stream fails the cache is suspended until the stream has
+ * been re-opened. There is no change stream under the {@value InMemoryRepository#PROFILE} profile,
+ * so the cache stays suspended and every lookup reads the in-memory store.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Component
+@Profile("!" + InMemoryRepository.PROFILE)
+@Slf4j
+class UserCacheInvalidator implements SmartLifecycle {
+
+    private static final Set<String> WATCHED_FIELDS = Set.of("username", "enabled", "scopes", "deletedAt", "updatedAt");
+    private static final long RETRY_DELAY_MILLIS = 1_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserCache userCache;
+    private final UserCacheConfig userCacheConfig;
+
+    private volatile boolean running = false;
+    private Thread worker;
+
+    UserCacheInvalidator(MongoTemplate mongoTemplate, UserCache userCache, UserCacheConfig userCacheConfig) {
+        this.mongoTemplate = mongoTemplate;
+        this.userCache = userCache;
+        this.userCacheConfig = userCacheConfig;
+    }
+
+    @Override
+    public void start() {
+        if (!userCacheConfig.isEnabled()) {
+            return;
+        }
+
+        running = true;
+        worker = new Thread(this::listen, "user-cache-invalidator");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        userCache.suspend();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        String collection = mongoTemplate.getCollectionName(User.class);
+
+        List<Bson> pipeline = List.of(
+                Aggregates.match(Filters.in("operationType", "update", "replace", "delete", "drop", "rename", "invalidate"))
+        );
+
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = mongoTemplate.getCollection(collection)
+                    .watch(pipeline)
+                    .maxAwaitTime(1, TimeUnit.SECONDS)
+                    .cursor()) {
+
+                userCache.resume();
+                log.info("Listening for changes of collection {}", collection);
+
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        onChange(change);
+                    }
+                }
+            } catch (MongoException | IllegalStateException e) {
+                if (!running) {
+                    return;
+                }
+                userCache.suspend();
+                log.warn("Change stream of collection {} failed, retrying: {}", collection, e.getMessage());
+                sleepBeforeRetry();
+            }
+        }
+    }
+
+    private void onChange(ChangeStreamDocument<Document> change) {
+        OperationType operationType = change.getOperationType();
+
+        if (operationType != OperationType.UPDATE && operationType != OperationType.REPLACE && operationType != OperationType.DELETE) {
+            // drop, rename or invalidate, every cached user is affected
+            userCache.invalidateAll();
+            return;
+        }
+
+        if (operationType == OperationType.UPDATE && !touchesWatchedField(change.getUpdateDescription())) {
+            return;
+        }
+
+        BsonValue id = change.getDocumentKey() == null ? null : change.getDocumentKey().get("_id");
+        if (id != null && id.isObjectId()) {
+            userCache.invalidate(id.asObjectId().getValue());
+        } else {
+            userCache.invalidateAll();
+        }
+    }
+
+    private static boolean touchesWatchedField(UpdateDescription updateDescription) {
+        if (updateDescription == null) {
+            return true;
+        }
+
+        return (updateDescription.getUpdatedFields() != null && containsWatchedField(updateDescription.getUpdatedFields().keySet()))
+                || (updateDescription.getRemovedFields() != null && containsWatchedField(updateDescription.getRemovedFields()));
+    }
+
+    private static boolean containsWatchedField(Collection<String> fields) {
+        for (String field : fields) {
+            // nested updates are reported by path, e.g. scopes.0
+            int dot = field.indexOf('.');
+            if (WATCHED_FIELDS.contains(dot < 0 ? field : field.substring(0, dot))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
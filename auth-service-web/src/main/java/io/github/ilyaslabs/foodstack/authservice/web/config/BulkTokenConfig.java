@@ -0,0 +1,25 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of internal bulk token minting.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.bulk-tokens")
+public class BulkTokenConfig {
+
+    /**
+     * maximum number of user ids per request
+     */
+    private int maxUserIds = 10_000;
+
+    /**
+     * number of threads signing tokens, defaults to the number of available processors. With virtual
+     * threads it only sizes the number of tokens in flight per request
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+}
@@ -0,0 +1,111 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of password hashing: the algorithm and its cost parameters, the optional
+ * startup calibration and the dedicated hashing executor.
+ * <p>
+ * {@code threads + queueCapacity} bounds how many servlet threads can be parked on password
+ * verification at once, so it should stay well below the servlet container's thread count. With
+ * virtual threads it is the only bound on concurrent logins.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.hashing")
+public class HashingConfig {
+
+    /**
+     * number of threads running password hashing, defaults to the number of available processors
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * maximum number of hashing tasks waiting for a free thread before new work is rejected
+     */
+    private int queueCapacity = 32;
+
+    /**
+     * maximum time a hashing task waits for a free thread, a task still queued after it is skipped
+     * and its request rejected, a running hash is not interrupted
+     */
+    private Duration maxWait = Duration.ofSeconds(2);
+
+    /**
+     * algorithm used for new password hashes, existing hashes of any supported algorithm keep verifying
+     */
+    private Algorithm algorithm = Algorithm.BCRYPT;
+
+    private final BCrypt bcrypt = new BCrypt();
+
+    private final Argon2 argon2 = new Argon2();
+
+    private final Pbkdf2 pbkdf2 = new Pbkdf2();
+
+    private final Calibration calibration = new Calibration();
+
+    public enum Algorithm {
+        BCRYPT, ARGON2, PBKDF2
+    }
+
+    @Data
+    public static class BCrypt {
+
+        /**
+         * log rounds, also the minimum used by calibration
+         */
+        private int strength = 10;
+    }
+
+    @Data
+    public static class Argon2 {
+
+        private int saltLength = 16;
+
+        private int hashLength = 32;
+
+        private int parallelism = 1;
+
+        /**
+         * memory cost in KiB
+         */
+        private int memory = 1 << 14;
+
+        /**
+         * number of passes, also the minimum used by calibration
+         */
+        private int iterations = 2;
+    }
+
+    @Data
+    public static class Pbkdf2 {
+
+        private int saltLength = 16;
+
+        /**
+         * number of iterations, also the minimum used by calibration
+         */
+        private int iterations = 310_000;
+    }
+
+    @Data
+    public static class Calibration {
+
+        /**
+         * raises the work factor of the selected algorithm at startup until a single verification
+         * takes about {@link #targetVerifyLatency} on the current hardware
+         */
+        private boolean enabled = false;
+
+        private Duration targetVerifyLatency = Duration.ofMillis(250);
+
+        /**
+         * number of verifications measured per candidate work factor, the median is used
+         */
+        private int samples = 3;
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the in-memory store replacing MongoDB under the {@code in-memory} profile, used
+ * for load tests of the service alone.
+ * <p>
+ * Seeded users are named {@code <username-prefix><n>}, have the email
+ * {@code <username-prefix><n>@<email-domain>} and all share the seed password.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.in-memory")
+public class InMemoryStoreConfig {
+
+    /**
+     * number of users created at startup
+     */
+    private int seedUsers = 0;
+
+    /**
+     * password of the seeded users
+     */
+    private String seedPassword = "load-test-password";
+
+    /**
+     * username of a seeded user without its number
+     */
+    private String usernamePrefix = "user-";
+
+    /**
+     * email domain of the seeded users
+     */
+    private String emailDomain = "load.test";
+}
@@ -0,0 +1,48 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the creation of the MongoDB indexes: the index migrations of the users and the
+ * indexes declared on the refresh token families.
+ * <p>
+ * Creating an index which exists is a no-op on the server, but still a round trip per index. The
+ * collections are only readable without collection scans once the indexes exist, so a new
+ * deployment should create them at startup once.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.indexes")
+public class IndexConfig {
+
+    /**
+     * when the indexes are created
+     */
+    private Creation creation = Creation.BACKGROUND;
+
+    /**
+     * how long an instance holds the lease on the index migrations without renewing it, renewed
+     * before every migration, so it should exceed the longest index build
+     */
+    private Duration migrationLease = Duration.ofMinutes(10);
+
+    public enum Creation {
+        /**
+         * before the application is ready, a failing migration fails the startup
+         */
+        STARTUP,
+        /**
+         * on a background thread, the application accepts requests meanwhile and refuses traffic if
+         * a migration fails
+         */
+        BACKGROUND,
+        /**
+         * never, the indexes are managed outside the application
+         */
+        NONE
+    }
+}
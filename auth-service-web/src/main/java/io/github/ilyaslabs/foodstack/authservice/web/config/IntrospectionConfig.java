@@ -0,0 +1,19 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of internal token introspection.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.introspection")
+public class IntrospectionConfig {
+
+    /**
+     * maximum number of tokens per request
+     */
+    private int maxTokens = 1_000;
+}
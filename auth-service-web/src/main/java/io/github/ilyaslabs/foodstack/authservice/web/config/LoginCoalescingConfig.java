@@ -0,0 +1,30 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the coalescing of identical login requests.
+ * <p>
+ * A verification kept for the {@code window} is reused even if the password was changed or the
+ * user disabled meanwhile, so the window should stay short. By default verifications are only
+ * shared with requests arriving while one is in flight. Tokens are issued per request.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.login-coalescing")
+public class LoginCoalescingConfig {
+
+    /**
+     * identical concurrent login requests share one user lookup and password verification
+     */
+    private boolean enabled = true;
+
+    /**
+     * a successful verification is also shared with identical requests arriving this long after it completed, zero shares it only with concurrent ones
+     */
+    private Duration window = Duration.ZERO;
+}
@@ -0,0 +1,25 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the login key backfill.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.login-keys")
+public class LoginKeysConfig {
+
+    /**
+     * derives login keys of users which do not have them yet at startup, can be disabled once
+     * every user has been backfilled
+     */
+    private boolean backfillOnStartup = true;
+
+    /**
+     * number of users updated per bulk write
+     */
+    private int backfillBatchSize = 500;
+}
@@ -0,0 +1,38 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import io.github.ilyaslabs.foodstack.authservice.web.service.AuthMetrics;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Configuration
+class MetricsConfig {
+
+    /**
+     * Publishes percentile histograms of the {@link AuthMetrics#STAGE_OBSERVATION stage timers},
+     * which are created by the observation handler and can not be configured where they are recorded.
+     *
+     * @return meter filter
+     */
+    @Bean
+    MeterFilter authStageHistogramFilter() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!AuthMetrics.STAGE_OBSERVATION.equals(id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import io.github.ilyaslabs.foodstack.authservice.web.service.HashingPasswordEncoder;
+import io.github.ilyaslabs.foodstack.authservice.web.service.PasswordEncoderCalibrator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Configuration
+class PasswordEncoderConfig {
+
+    /**
+     * Password encoder for the algorithm configured under {@code auth.hashing}, takes precedence
+     * over the default encoder so stored hashes can migrate between algorithms and cost settings.
+     *
+     * @param hashingConfig hashing configuration
+     * @return password encoder
+     */
+    @Bean
+    @Primary
+    HashingPasswordEncoder hashingPasswordEncoder(HashingConfig hashingConfig) {
+        return new PasswordEncoderCalibrator(hashingConfig).createEncoder();
+    }
+}
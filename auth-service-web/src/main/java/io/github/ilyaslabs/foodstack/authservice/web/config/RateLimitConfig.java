@@ -0,0 +1,92 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Configuration of the login rate limits and the lockout after failed logins.
+ * <p>
+ * Limits are kept in a fixed number of stripes per key type. Keys sharing a stripe share its
+ * limits, so memory stays bounded however many usernames and addresses are seen, at the cost of
+ * occasionally limiting two keys together.
+ * <p>
+ * The users other services log in as are limited by {@code service-username} instead, each with a
+ * bucket of its own: all instances of those services share the username, so the per-user limit
+ * would reject them as soon as more of them log in at once than a person would.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.rate-limit")
+public class RateLimitConfig {
+
+    /**
+     * limit login attempts per username and client address
+     */
+    private boolean enabled = true;
+
+    /**
+     * number of stripes per key type, rounded up to a power of two
+     */
+    private int stripes = 65_536;
+
+    private final Bucket username = new Bucket(5, Duration.ofSeconds(12));
+
+    /**
+     * usernames or emails of the users other services log in as, limited by {@code service-username}
+     */
+    private Set<String> servicePrincipals = new HashSet<>();
+
+    private final Bucket serviceUsername = new Bucket(100, Duration.ofMillis(100));
+
+    private final Bucket address = new Bucket(30, Duration.ofSeconds(2));
+
+    private final Lockout lockout = new Lockout();
+
+    @Data
+    public static class Bucket {
+
+        /**
+         * attempts that can be made at once
+         */
+        private int capacity;
+
+        /**
+         * time after which one more attempt can be made
+         */
+        private Duration refillPeriod;
+
+        Bucket(int capacity, Duration refillPeriod) {
+            this.capacity = capacity;
+            this.refillPeriod = refillPeriod;
+        }
+    }
+
+    @Data
+    public static class Lockout {
+
+        /**
+         * consecutive failed logins of a username after which it is locked
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * lockout after reaching the threshold, doubled with every further failure
+         */
+        private Duration initialDuration = Duration.ofSeconds(30);
+
+        /**
+         * upper bound of the lockout
+         */
+        private Duration maxDuration = Duration.ofMinutes(15);
+
+        /**
+         * failures are forgotten when the last one is older
+         */
+        private Duration resetAfter = Duration.ofMinutes(15);
+    }
+}
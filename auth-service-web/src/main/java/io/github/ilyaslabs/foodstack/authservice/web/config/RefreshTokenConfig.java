@@ -0,0 +1,38 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Configuration of refresh token rotation and of the in-memory revocation filter.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.refresh-tokens")
+public class RefreshTokenConfig {
+
+    /**
+     * accept refresh tokens without a family if issued before this instant, e.g. the rollout of rotation,
+     * they start a new family when used; unset rejects them
+     */
+    private Instant legacyTokensIssuedBefore;
+
+    /**
+     * number of revoked, unexpired families the revocation filter is sized for, it grows beyond if needed
+     */
+    private int expectedRevocations = 100_000;
+
+    /**
+     * false positive rate of the revocation filter, a false positive costs a hash set lookup
+     */
+    private double falsePositiveRate = 0.001;
+
+    /**
+     * how often revocations of other instances are read from the database
+     */
+    private Duration syncInterval = Duration.ofSeconds(5);
+}
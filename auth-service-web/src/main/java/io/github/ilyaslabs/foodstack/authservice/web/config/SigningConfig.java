@@ -0,0 +1,49 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.SigningAlgorithm;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the keys signing access and refresh tokens and published at
+ * {@code /.well-known/jwks.json}. Changes pushed by the config server are applied without a restart.
+ * <p>
+ * To rotate, publish the new public key under {@code published-keys} first, wait for verifiers'
+ * cached key sets to expire, then make it the signing key and keep the old public key published
+ * until the tokens it signed have expired.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.signing")
+public class SigningConfig {
+
+    /**
+     * signing algorithm
+     */
+    private SigningAlgorithm algorithm = SigningAlgorithm.RS256;
+
+    /**
+     * PEM encoded PKCS#8 private key, for RS256 defaults to the microservice JWT RSA private key
+     */
+    private String privateKey;
+
+    /**
+     * PEM encoded public key of the private key, may be omitted for RSA keys
+     */
+    private String publicKey;
+
+    /**
+     * PEM encoded public keys published and accepted besides the signing key, e.g. the previous or next signing key
+     */
+    private List<String> publishedKeys = new ArrayList<>();
+
+    /**
+     * how long verifiers may cache the key set
+     */
+    private Duration jwksMaxAge = Duration.ofMinutes(15);
+}
@@ -0,0 +1,29 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the in-process user cache used by the refresh endpoint.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.user-cache")
+public class UserCacheConfig {
+
+    private boolean enabled = true;
+
+    /**
+     * maximum number of cached users
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * time after which a cached user is re-read from the database, bounds staleness if a change
+     * event is ever missed
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+}
@@ -0,0 +1,19 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of internal user exports.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.user-export")
+public class UserExportConfig {
+
+    /**
+     * number of users read per query, bounds the users held per export
+     */
+    private int pageSize = 1000;
+}
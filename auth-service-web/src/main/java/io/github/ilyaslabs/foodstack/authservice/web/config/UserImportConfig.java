@@ -0,0 +1,25 @@
+package io.github.ilyaslabs.foodstack.authservice.web.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of internal bulk user imports.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Data
+@ConfigurationProperties("auth.user-import")
+public class UserImportConfig {
+
+    /**
+     * number of users hashed and inserted together, bounds the records held per import
+     */
+    private int batchSize = 500;
+
+    /**
+     * number of threads hashing passwords, shared by all imports, defaults to the number of
+     * available processors. Lower it to keep CPU for logins while importing
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+}
@@ -4,25 +4,31 @@ import io.github.ilyaslabs.foodstack.authservice.api.v1.AuthApiV1;
 import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
 import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
 import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityConfig;
-import io.github.ilyaslabs.foodstack.authservice.web.config.AuthConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.cache.UserCache;
 import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.AuthPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
 import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
+import io.github.ilyaslabs.foodstack.authservice.web.service.AuthMetrics;
+import io.github.ilyaslabs.foodstack.authservice.web.service.LoginCoalescer;
+import io.github.ilyaslabs.foodstack.authservice.web.service.LoginRateLimiter;
+import io.github.ilyaslabs.foodstack.authservice.web.service.PasswordHasher;
+import io.github.ilyaslabs.foodstack.authservice.web.service.PasswordUpgrader;
+import io.github.ilyaslabs.foodstack.authservice.web.service.RefreshTokenFamilies;
 import io.github.ilyaslabs.microservice.exception.HttpResponseException;
 import io.github.ilyaslabs.microservice.security.jwt.AuthService;
-import io.github.ilyaslabs.microservice.security.jwt.JwtProperties;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.Clock;
 import java.time.Instant;
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -31,17 +37,21 @@ import java.util.Optional;
  * @author Muhammad Ilyas (m.ilyas@live.com)
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @Slf4j
 class AuthV1Controller implements AuthApiV1 {
 
     private final AuthService authService;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final AuthConfig authConfig;
-    private final JwtProperties jwtProperties;
-
-    private final Clock clock;
+    private final UserCache userCache;
+    private final PasswordHasher passwordHasher;
+    private final PasswordUpgrader passwordUpgrader;
+    private final RefreshTokenFamilies refreshTokenFamilies;
+    private final LoginCoalescer loginCoalescer;
+    private final LoginRateLimiter loginRateLimiter;
+    private final AuthMetrics authMetrics;
+    private final HttpServletRequest httpServletRequest;
 
     /**
      * {@inheritDoc}
@@ -51,15 +61,39 @@ class AuthV1Controller implements AuthApiV1 {
 
         log.info("Authenticating user {}", request.getUsername());
 
-        User user = userRepository.findByUsernameOrEmail(request.getUsername(), request.getUsername())
-                .orElseThrow(() -> HttpResponseException.of(
-                        HttpStatus.NOT_FOUND,
-                        "Not found",
-                        Map.of("username", "Invalid username or email")
-                ));
+        // rejects with 429 before any lookup or hashing
+        loginRateLimiter.acquire(request.getUsername(), httpServletRequest.getRemoteAddr());
+
+        // identical requests, e.g. retries of a client, share one verification
+        UserPrincipal principal = loginCoalescer.coalesce(request, () -> verify(request)).toUserPrincipal();
+        if (!principal.isActive()) {
+            authMetrics.outcome(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Outcome.DISABLED);
+            throw HttpResponseException.ofForbidden("User is disabled");
+        }
+
+        // every request gets a refresh token family of its own
+        AuthResponse response = refreshTokenFamilies.issue(principal);
+        authMetrics.outcome(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Outcome.SUCCESS);
+
+        return response;
+    }
 
-        // match password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+    private AuthPrincipal verify(AuthRequest request) {
+        AuthPrincipal user = authMetrics.observe(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Stage.LOOKUP, () -> findUser(request.getUsername()))
+                .orElseThrow(() -> {
+                    authMetrics.outcome(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Outcome.NOT_FOUND);
+                    loginRateLimiter.onFailure(request.getUsername());
+                    return HttpResponseException.of(
+                            HttpStatus.NOT_FOUND,
+                            "Not found",
+                            Map.of("username", "Invalid username or email")
+                    );
+                });
+
+        // match password on the hashing executor, rejects with 503 when saturated
+        if (!authMetrics.observe(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Stage.VERIFY, () -> passwordHasher.matches(request.getPassword(), user.password()))) {
+            authMetrics.outcome(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Outcome.BAD_PASSWORD);
+            loginRateLimiter.onFailure(request.getUsername());
             throw HttpResponseException.of(
                     HttpStatus.BAD_REQUEST,
                     "Validation failed",
@@ -67,7 +101,12 @@ class AuthV1Controller implements AuthApiV1 {
             );
         }
 
-        return buildAuthResponse(user);
+        loginRateLimiter.onSuccess(request.getUsername());
+
+        // rehash in the background if the stored hash uses outdated parameters
+        passwordUpgrader.upgradeIfNeeded(user.id(), request.getPassword(), user.password());
+
+        return user;
     }
 
     /**
@@ -78,59 +117,51 @@ class AuthV1Controller implements AuthApiV1 {
         // get user id from jwt claim
         String userId = authService.getClaim(CommonSecurityConfig.JWT_CLAIM_USER_ID, String.class).orElseThrow(() -> HttpResponseException.ofForbidden("Invalid user id"));
 
-        // get user from the database
-        User user = userRepository.findById(new ObjectId(userId))
-                .orElseThrow(() -> HttpResponseException.ofNotFound("User not found"));
+        // get user from the cache, falls back to the database
+        UserPrincipal user = authMetrics.observe(AuthMetrics.Operation.REFRESH, AuthMetrics.Stage.LOOKUP, () -> userCache.get(new ObjectId(userId)))
+                .orElseThrow(() -> {
+                    authMetrics.outcome(AuthMetrics.Operation.REFRESH, AuthMetrics.Outcome.NOT_FOUND);
+                    return HttpResponseException.ofNotFound("User not found");
+                });
+        if (!user.isActive()) {
+            authMetrics.outcome(AuthMetrics.Operation.REFRESH, AuthMetrics.Outcome.DISABLED);
+            throw HttpResponseException.ofForbidden("User is disabled");
+        }
 
-        return buildAuthResponse(user);
+        // rotate the refresh token, a token used before revokes its family
+        String familyId = authService.getClaim(CommonSecurityConfig.JWT_CLAIM_FAMILY_ID, String.class).orElse(null);
+        String tokenId = authService.getClaim(CommonSecurityConfig.JWT_CLAIM_TOKEN_ID, String.class).orElse(null);
+        Instant issuedAt = authService.getClaim(JwtClaimNames.IAT, Instant.class).orElse(null);
+
+        AuthResponse response;
+        try {
+            response = refreshTokenFamilies.rotate(user, familyId, tokenId, issuedAt);
+        } catch (HttpResponseException e) {
+            authMetrics.outcome(AuthMetrics.Operation.REFRESH, AuthMetrics.Outcome.REJECTED);
+            throw e;
+        }
+        authMetrics.outcome(AuthMetrics.Operation.REFRESH, AuthMetrics.Outcome.SUCCESS);
 
+        return response;
     }
 
     /**
-     * Constructs an {@link AuthResponse} for the given user by generating authentication
-     * and refresh tokens, along with associated claims and scopes.
+     * Finds the user by username or email with a single lookup on the normalized login keys of the
+     * users which are not deleted. On a miss, looks up deleted users, so they are answered as
+     * disabled, and falls back to matching username and email as given of users without login keys,
+     * e.g. stored by another writer of {@code users} after the login keys backfill.
      *
-     * @param user the user for whom the authentication response is to be built; must be enabled
-     *             and not deleted
-     * @return an {@link AuthResponse} containing the user's ID, username, authentication token,
-     * refresh token, scopes, token expiration time, and refresh token expiration time
-     * @throws HttpResponseException if the user is disabled or deleted
+     * @param username username or email
+     * @return the principal of the user
      */
-    private AuthResponse buildAuthResponse(User user) {
-        // user should be enabled and not deleted
-        if (!Boolean.TRUE.equals(user.getEnabled()) || user.getDeletedAt() != null) {
-            throw HttpResponseException.ofForbidden("User is disabled");
+    private Optional<AuthPrincipal> findUser(String username) {
+        String loginKey = User.toLoginKey(username);
+        if (loginKey == null) {
+            return Optional.empty();
         }
 
-        List<String> scopes = Optional.ofNullable(user.getScopes()).orElse(Collections.emptyList())
-                .stream().map(Enum::name).toList();
-
-        Map<String, String> claims = Map.of(
-                CommonSecurityConfig.JWT_CLAIM_USER_ID, user.getId().toHexString(),
-                CommonSecurityConfig.JWT_CLAIM_USERNAME, user.getUsername()
-        );
-
-        String token = authService.generateToken(
-                user.getId().toHexString(),
-                authConfig.getIssuer(),
-                claims,
-                scopes
-        );
-
-        String refreshToken = authService.generateRefreshToken(
-                user.getId().toHexString(),
-                authConfig.getIssuer(),
-                null,
-                null
-        );
-
-        return new AuthResponse()
-                .setUserId(user.getId().toHexString())
-                .setUsername(user.getUsername())
-                .setToken(token)
-                .setRefreshToken(refreshToken)
-                .setScopes(scopes)
-                .setExpiresIn(Instant.now(clock).plus(jwtProperties.getExpiry(), jwtProperties.getExpiryUnit()).getEpochSecond())
-                .setRefreshTokenExpiresIn(Instant.now(clock).plus(jwtProperties.getRefreshExpiry(), jwtProperties.getRefreshExpiryUnit()).getEpochSecond());
+        return userRepository.findLivePrincipalByLoginKeys(loginKey)
+                .or(() -> userRepository.findFirstPrincipalByLoginKeysOrderByDeletedAtDesc(loginKey))
+                .or(() -> userRepository.findUnkeyedPrincipalsByUsernameOrEmail(username, username).stream().findFirst());
     }
 }
@@ -0,0 +1,122 @@
+package io.github.ilyaslabs.foodstack.authservice.web.controller;
+
+import io.github.ilyaslabs.foodstack.authservice.api.Constants;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.BulkTokenRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.IntrospectionRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.IntrospectionResponse;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.RevokeRefreshTokensRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.RevokeRefreshTokensResponse;
+import io.github.ilyaslabs.foodstack.authservice.web.config.BulkTokenConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.config.IntrospectionConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.service.BulkTokenIssuer;
+import io.github.ilyaslabs.foodstack.authservice.web.service.RefreshTokenFamilies;
+import io.github.ilyaslabs.foodstack.authservice.web.service.TokenIntrospector;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token endpoints for internal callers with the {@code SYSTEM} scope.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping(Constants.API_PREFIX_V1_INTERNAL)
+@RequiredArgsConstructor
+@Slf4j
+class InternalTokenV1Controller {
+
+    private final BulkTokenIssuer bulkTokenIssuer;
+    private final BulkTokenConfig bulkTokenConfig;
+    private final TokenIntrospector tokenIntrospector;
+    private final IntrospectionConfig introspectionConfig;
+    private final RefreshTokenFamilies refreshTokenFamilies;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Mints access and refresh tokens for the given users without their passwords.
+     *
+     * @param request ids of the users
+     * @return one {@code BulkTokenResult} per distinct user id as newline delimited JSON, in
+     * completion order
+     */
+    @PostMapping(value = "/tokens", produces = Constants.MEDIA_TYPE_NDJSON)
+    ResponseEntity<StreamingResponseBody> mintTokens(@Validated @RequestBody BulkTokenRequest request) {
+        if (request.getUserIds().size() > bulkTokenConfig.getMaxUserIds()) {
+            throw HttpResponseException.of(
+                    HttpStatus.BAD_REQUEST,
+                    "Validation failed",
+                    Map.of("userIds", "At most " + bulkTokenConfig.getMaxUserIds() + " user ids are allowed")
+            );
+        }
+
+        log.info("Minting tokens for {} users", request.getUserIds().size());
+
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            bulkTokenIssuer.issue(request.getUserIds(), writer::write);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(Constants.MEDIA_TYPE_NDJSON))
+                .body(body);
+    }
+
+    /**
+     * Verifies tokens and checks that their users are still enabled.
+     *
+     * @param request tokens to introspect
+     * @return one result per token, in request order
+     */
+    @PostMapping("/introspect")
+    IntrospectionResponse introspect(@Validated @RequestBody IntrospectionRequest request) {
+        if (request.getTokens().size() > introspectionConfig.getMaxTokens()) {
+            throw HttpResponseException.of(
+                    HttpStatus.BAD_REQUEST,
+                    "Validation failed",
+                    Map.of("tokens", "At most " + introspectionConfig.getMaxTokens() + " tokens are allowed")
+            );
+        }
+
+        return new IntrospectionResponse().setResults(tokenIntrospector.introspect(request.getTokens()));
+    }
+
+    /**
+     * Revokes all refresh tokens of the given users, their access tokens stay valid until they expire.
+     *
+     * @param request ids of the users
+     * @return number of revoked refresh token families
+     */
+    @PostMapping("/refresh-tokens/revoke")
+    RevokeRefreshTokensResponse revokeRefreshTokens(@Validated @RequestBody RevokeRefreshTokensRequest request) {
+        if (request.getUserIds().stream().anyMatch(userId -> userId == null || !ObjectId.isValid(userId))) {
+            throw HttpResponseException.of(
+                    HttpStatus.BAD_REQUEST,
+                    "Validation failed",
+                    Map.of("userIds", "Invalid user id")
+            );
+        }
+
+        List<ObjectId> userIds = request.getUserIds().stream().map(ObjectId::new).toList();
+        int revokedFamilies = refreshTokenFamilies.revokeUsers(userIds);
+        log.info("Revoked {} refresh token families of {} users", revokedFamilies, userIds.size());
+
+        return new RevokeRefreshTokensResponse().setRevokedFamilies(revokedFamilies);
+    }
+}
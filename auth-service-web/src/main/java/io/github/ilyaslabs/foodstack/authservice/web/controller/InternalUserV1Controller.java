@@ -0,0 +1,110 @@
+package io.github.ilyaslabs.foodstack.authservice.web.controller;
+
+import io.github.ilyaslabs.foodstack.authservice.api.Constants;
+import io.github.ilyaslabs.foodstack.authservice.web.service.UserExporter;
+import io.github.ilyaslabs.foodstack.authservice.web.service.UserImporter;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * User endpoints for internal callers with the {@code SYSTEM} scope.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping(Constants.API_PREFIX_V1_INTERNAL)
+@RequiredArgsConstructor
+class InternalUserV1Controller {
+
+    private final UserImporter userImporter;
+    private final UserExporter userExporter;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates users from a stream of records. The results are streamed while the upload is still
+     * being read, so the caller has to read them as it uploads.
+     *
+     * @param request newline delimited {@code UserImportRecord}s
+     * @return one {@code UserImportResult} per record as newline delimited JSON, not in upload order
+     */
+    @PostMapping(value = "/users/import", consumes = Constants.MEDIA_TYPE_NDJSON, produces = Constants.MEDIA_TYPE_NDJSON)
+    ResponseEntity<StreamingResponseBody> importUsers(HttpServletRequest request) throws IOException {
+        InputStream records = request.getInputStream();
+
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            userImporter.importUsers(records, writer::write);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(Constants.MEDIA_TYPE_NDJSON))
+                .body(body);
+    }
+
+    /**
+     * Streams users for other services to copy.
+     *
+     * @param after        id of the last user received, to resume an interrupted export
+     * @param updatedSince ISO-8601 watermark of an incremental export, the largest {@code updatedAt}
+     *                     received before, or of the last user received when resuming
+     * @return one {@code UserExportRecord} per user as newline delimited JSON
+     */
+    @GetMapping(value = "/users/export", produces = Constants.MEDIA_TYPE_NDJSON)
+    ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(required = false) String after,
+                                                      @RequestParam(required = false) String updatedSince) {
+        if (after != null && !ObjectId.isValid(after)) {
+            throw HttpResponseException.of(
+                    HttpStatus.BAD_REQUEST,
+                    "Validation failed",
+                    Map.of("after", "Invalid user id")
+            );
+        }
+
+        ObjectId afterId = after == null ? null : new ObjectId(after);
+        Instant since = parseInstant(updatedSince);
+
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            userExporter.export(afterId, since, writer::write);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(Constants.MEDIA_TYPE_NDJSON))
+                .body(body);
+    }
+
+    private static Instant parseInstant(String updatedSince) {
+        if (updatedSince == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(updatedSince);
+        } catch (DateTimeParseException e) {
+            throw HttpResponseException.of(
+                    HttpStatus.BAD_REQUEST,
+                    "Validation failed",
+                    Map.of("updatedSince", "Invalid timestamp")
+            );
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.ilyaslabs.foodstack.authservice.web.controller;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.SigningConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.jwt.SigningKeys;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Publishes the token verification keys.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@RestController
+@RequiredArgsConstructor
+class JwksController {
+
+    private final SigningKeys signingKeys;
+    private final SigningConfig signingConfig;
+
+    /**
+     * The key set is serialized once per key change. Requests with a matching
+     * {@code If-None-Match} header are answered with {@code 304 Not Modified}.
+     *
+     * @return the JWK set of the signing key and the other published keys
+     */
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<byte[]> jwks() {
+        SigningKeys.JwkSetDocument jwkSet = signingKeys.getJwkSet();
+
+        return ResponseEntity.ok()
+                .eTag(jwkSet.etag())
+                .cacheControl(CacheControl.maxAge(signingConfig.getJwksMaxAge())
+                        .cachePublic()
+                        .staleWhileRevalidate(signingConfig.getJwksMaxAge()))
+                .body(jwkSet.body());
+    }
+}
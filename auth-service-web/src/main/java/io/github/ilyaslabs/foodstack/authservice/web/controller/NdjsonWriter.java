@@ -0,0 +1,38 @@
+package io.github.ilyaslabs.foodstack.authservice.web.controller;
+
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes values as newline delimited JSON to a streaming response.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class NdjsonWriter {
+
+    private final ObjectMapper objectMapper;
+    private final OutputStream outputStream;
+
+    NdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+        this.objectMapper = objectMapper;
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Writes the value as one line. The response buffers lines and sends them as it fills up.
+     *
+     * @param value value to write
+     * @throws UncheckedIOException if the client went away
+     */
+    void write(Object value) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.ilyaslabs.foodstack.authservice.web.controller;
+
+import io.github.ilyaslabs.foodstack.authservice.api.Constants;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.AuthApiV1;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.cache.UserCache;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.AuthPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.ReactiveUserRepository;
+import io.github.ilyaslabs.foodstack.authservice.web.service.AuthMetrics;
+import io.github.ilyaslabs.foodstack.authservice.web.service.LoginCoalescer;
+import io.github.ilyaslabs.foodstack.authservice.web.service.LoginRateLimiter;
+import io.github.ilyaslabs.foodstack.authservice.web.service.PasswordHasher;
+import io.github.ilyaslabs.foodstack.authservice.web.service.PasswordUpgrader;
+import io.github.ilyaslabs.foodstack.authservice.web.service.ReactiveAuthMetrics;
+import io.github.ilyaslabs.foodstack.authservice.web.service.ReactiveRefreshTokenFamilies;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * WebFlux implementation of the {@link AuthApiV1} contract, active when the application runs with
+ * {@code spring.main.web-application-type=reactive}.
+ * <p>
+ * Users and refresh token families are read and written with the reactive MongoDB driver and
+ * passwords are verified on the bounded hashing executor, so an event loop thread never blocks.
+ * Errors are signalled as {@link HttpResponseException}s, like on the servlet stack.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@RestController
+@RequestMapping(Constants.API_PREFIX_V1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+class ReactiveAuthV1Controller {
+
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final UserCache userCache;
+    private final PasswordHasher passwordHasher;
+    private final PasswordUpgrader passwordUpgrader;
+    private final ReactiveRefreshTokenFamilies refreshTokenFamilies;
+    private final LoginCoalescer loginCoalescer;
+    private final LoginRateLimiter loginRateLimiter;
+    private final AuthMetrics authMetrics;
+    private final ReactiveAuthMetrics reactiveAuthMetrics;
+    private final Validator validator;
+
+    /**
+     * @see AuthApiV1#authenticate(AuthRequest)
+     */
+    @PostMapping("/authenticate")
+    Mono<AuthResponse> authenticate(@RequestBody AuthRequest request, ServerWebExchange exchange) {
+        Set<ConstraintViolation<AuthRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return Mono.error(HttpResponseException.of(HttpStatus.BAD_REQUEST, "Validation failed", fields(violations)));
+        }
+
+        log.info("Authenticating user {}", request.getUsername());
+
+        // rejects with 429 before any lookup or hashing
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        try {
+            loginRateLimiter.acquire(request.getUsername(), remoteAddress == null ? null : remoteAddress.getHostString());
+        } catch (HttpResponseException e) {
+            return Mono.error(e);
+        }
+
+        // identical requests, e.g. retries of a client, share one verification
+        return Mono.fromFuture(() -> loginCoalescer.coalesceAsync(request, () -> verify(request).toFuture()))
+                .map(AuthPrincipal::toUserPrincipal)
+                .filter(UserPrincipal::isActive)
+                .switchIfEmpty(Mono.error(() -> {
+                    authMetrics.outcome(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Outcome.DISABLED);
+                    return HttpResponseException.ofForbidden("User is disabled");
+                }))
+                // every request gets a refresh token family of its own
+                .flatMap(principal -> refreshTokenFamilies.issue(principal)
+                        .doOnNext(response -> authMetrics.outcome(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Outcome.SUCCESS)));
+    }
+
+    private Mono<AuthPrincipal> verify(AuthRequest request) {
+        return reactiveAuthMetrics.observe(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Stage.LOOKUP, () -> findUser(request.getUsername()))
+                .switchIfEmpty(Mono.error(() -> {
+                    authMetrics.outcome(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Outcome.NOT_FOUND);
+                    loginRateLimiter.onFailure(request.getUsername());
+                    return HttpResponseException.of(
+                            HttpStatus.NOT_FOUND,
+                            "Not found",
+                            Map.of("username", "Invalid username or email")
+                    );
+                }))
+                // match password on the hashing executor, rejects with 503 when saturated
+                .filterWhen(user -> reactiveAuthMetrics.observe(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Stage.VERIFY,
+                        () -> Mono.fromFuture(() -> passwordHasher.matchesAsync(request.getPassword(), user.password()))))
+                .switchIfEmpty(Mono.error(() -> {
+                    authMetrics.outcome(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Outcome.BAD_PASSWORD);
+                    loginRateLimiter.onFailure(request.getUsername());
+                    return HttpResponseException.of(
+                            HttpStatus.BAD_REQUEST,
+                            "Validation failed",
+                            Map.of("password", "Invalid password")
+                    );
+                }))
+                .doOnNext(user -> {
+                    loginRateLimiter.onSuccess(request.getUsername());
+                    // rehash in the background if the stored hash uses outdated parameters
+                    passwordUpgrader.upgradeIfNeeded(user.id(), request.getPassword(), user.password());
+                });
+    }
+
+    /**
+     * @see AuthApiV1#refreshToken()
+     */
+    @PostMapping("/refresh")
+    Mono<AuthResponse> refreshToken(@AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getClaimAsString(CommonSecurityConfig.JWT_CLAIM_USER_ID);
+        if (userId == null || !ObjectId.isValid(userId)) {
+            return Mono.error(HttpResponseException.ofForbidden("Invalid user id"));
+        }
+
+        // get user from the cache, falls back to the database
+        return reactiveAuthMetrics.observe(AuthMetrics.Operation.REFRESH, AuthMetrics.Stage.LOOKUP,
+                        () -> Mono.fromFuture(() -> userCache.getAsync(new ObjectId(userId), id -> reactiveUserRepository.findPrincipalById(id).toFuture())))
+                .flatMap(Mono::justOrEmpty)
+                .switchIfEmpty(Mono.error(() -> {
+                    authMetrics.outcome(AuthMetrics.Operation.REFRESH, AuthMetrics.Outcome.NOT_FOUND);
+                    return HttpResponseException.ofNotFound("User not found");
+                }))
+                .filter(UserPrincipal::isActive)
+                .switchIfEmpty(Mono.error(() -> {
+                    authMetrics.outcome(AuthMetrics.Operation.REFRESH, AuthMetrics.Outcome.DISABLED);
+                    return HttpResponseException.ofForbidden("User is disabled");
+                }))
+                // rotate the refresh token, a token used before revokes its family
+                .flatMap(user -> refreshTokenFamilies.rotate(
+                                user,
+                                jwt.getClaimAsString(CommonSecurityConfig.JWT_CLAIM_FAMILY_ID),
+                                jwt.getClaimAsString(CommonSecurityConfig.JWT_CLAIM_TOKEN_ID),
+                                jwt.getIssuedAt()
+                        )
+                        .doOnError(HttpResponseException.class, e -> authMetrics.outcome(AuthMetrics.Operation.REFRESH, AuthMetrics.Outcome.REJECTED)))
+                .doOnNext(response -> authMetrics.outcome(AuthMetrics.Operation.REFRESH, AuthMetrics.Outcome.SUCCESS));
+    }
+
+    /**
+     * @see AuthV1Controller#findUser(String)
+     */
+    private Mono<AuthPrincipal> findUser(String username) {
+        String loginKey = User.toLoginKey(username);
+        if (loginKey == null) {
+            return Mono.empty();
+        }
+
+        return reactiveUserRepository.findLivePrincipalByLoginKeys(loginKey)
+                .switchIfEmpty(Mono.defer(() -> reactiveUserRepository.findFirstPrincipalByLoginKeysOrderByDeletedAtDesc(loginKey)))
+                .switchIfEmpty(Mono.defer(() -> reactiveUserRepository.findUnkeyedPrincipalsByUsernameOrEmail(username, username).next()));
+    }
+
+    private static Map<String, String> fields(Set<ConstraintViolation<AuthRequest>> violations) {
+        return violations.stream().collect(Collectors.toMap(
+                violation -> violation.getPropertyPath().toString(),
+                ConstraintViolation::getMessage,
+                (first, second) -> first
+        ));
+    }
+}
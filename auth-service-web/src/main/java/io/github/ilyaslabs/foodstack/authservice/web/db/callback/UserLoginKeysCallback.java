@@ -0,0 +1,20 @@
+package io.github.ilyaslabs.foodstack.authservice.web.db.callback;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link User#getLoginKeys()} in sync with the username and email whenever a user is saved.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Component
+class UserLoginKeysCallback implements BeforeConvertCallback<User> {
+
+    @Override
+    public User onBeforeConvert(User user, String collection) {
+        user.setLoginKeys(user.deriveLoginKeys());
+        return user;
+    }
+}
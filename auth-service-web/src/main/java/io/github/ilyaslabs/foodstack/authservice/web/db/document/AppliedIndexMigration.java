@@ -0,0 +1,33 @@
+package io.github.ilyaslabs.foodstack.authservice.web.db.document;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Record of an index migration which has been applied, see
+ * {@link io.github.ilyaslabs.foodstack.authservice.web.db.migration.IndexMigration}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Document(collection = "indexMigrations")
+@Data
+public class AppliedIndexMigration {
+
+    /**
+     * version of the migration
+     */
+    @Id
+    private Integer version;
+
+    private String description;
+
+    private Instant appliedAt;
+
+    /**
+     * time the migration took, including the index builds
+     */
+    private Long durationMillis;
+}
@@ -0,0 +1,34 @@
+package io.github.ilyaslabs.foodstack.authservice.web.db.document;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Lease on the index migrations, held by the instance applying them, see
+ * {@link io.github.ilyaslabs.foodstack.authservice.web.service.IndexMigrator}. Stored next to the
+ * {@link AppliedIndexMigration}s under a string id.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Document(collection = "indexMigrations")
+@Data
+public class IndexMigrationLease {
+
+    public static final String ID = "lease";
+
+    @Id
+    private String id;
+
+    /**
+     * random id of the migration run holding the lease
+     */
+    private String owner;
+
+    /**
+     * the lease can be taken over by another instance after this time, e.g. if the owner stopped
+     */
+    private Instant expiresAt;
+}
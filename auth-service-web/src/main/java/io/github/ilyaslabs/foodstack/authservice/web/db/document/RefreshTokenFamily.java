@@ -0,0 +1,43 @@
+package io.github.ilyaslabs.foodstack.authservice.web.db.document;
+
+import lombok.Data;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * The refresh tokens descending from one login. Each refresh replaces the family's current token,
+ * presenting any other token of the family revokes it. Families are removed by MongoDB once
+ * their last refresh token has expired.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Document(collection = "refreshTokenFamilies")
+@Data
+public class RefreshTokenFamily {
+
+    private ObjectId id;
+
+    @Indexed
+    private ObjectId userId;
+
+    /**
+     * {@code jti} of the only refresh token of the family which may be used
+     */
+    private String currentTokenId;
+
+    private Instant createdAt;
+
+    private Instant rotatedAt;
+
+    @Indexed(sparse = true)
+    private Instant revokedAt;
+
+    /**
+     * expiry of the current refresh token
+     */
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
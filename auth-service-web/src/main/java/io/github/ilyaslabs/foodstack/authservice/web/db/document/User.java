@@ -2,13 +2,18 @@ package io.github.ilyaslabs.foodstack.authservice.web.db.document;
 
 import lombok.Data;
 import org.bson.types.ObjectId;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
+ * The indexes of the collection are created by
+ * {@link io.github.ilyaslabs.foodstack.authservice.web.db.migration.UserIndexMigrations}.
  *
  * @author Muhammad Ilyas (m.ilyas@live.com)
  */
@@ -18,12 +23,10 @@ public class User {
 
     private ObjectId id;
 
-    @Indexed(unique = true)
     private String username;
 
     private String password;
 
-    @Indexed(unique = true)
     private String email;
 
     private Boolean enabled;
@@ -34,9 +37,40 @@ public class User {
 
     private Instant updatedAt;
 
-    @Indexed
+    /**
+     * written as {@code null} while the user is not deleted, so the partial indexes can select it
+     */
+    @Field(write = Field.Write.ALWAYS)
     private Instant deletedAt;
 
+    /**
+     * normalized username and email, maintained on save, so a login is a single equality lookup
+     */
+    private List<String> loginKeys;
+
+    /**
+     * Normalizes a username or email into a login key.
+     *
+     * @param value username or email
+     * @return trimmed and lower cased value, or {@code null} if the value is blank
+     */
+    public static String toLoginKey(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return login keys derived from the username and email of this user
+     */
+    public List<String> deriveLoginKeys() {
+        return Stream.of(toLoginKey(username), toLoginKey(email))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
     public enum Scope {
         SUPER_ADMIN, ADMIN, USER
     }
@@ -0,0 +1,24 @@
+package io.github.ilyaslabs.foodstack.authservice.web.db.migration;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.function.Consumer;
+
+/**
+ * A versioned change of indexes, applied once and in the order of the versions, see
+ * {@link io.github.ilyaslabs.foodstack.authservice.web.service.IndexMigrator}.
+ * <p>
+ * A migration must be idempotent: it is applied again if the instance stops before recording it,
+ * and instances starting at the same time may apply it concurrently.
+ *
+ * @param version     version, unique and increasing
+ * @param description what the migration changes
+ * @param migration   the change
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public record IndexMigration(int version, String description, Consumer<MongoTemplate> migration) {
+
+    public void apply(MongoTemplate mongoTemplate) {
+        migration.accept(mongoTemplate);
+    }
+}
@@ -0,0 +1,139 @@
+package io.github.ilyaslabs.foodstack.authservice.web.db.migration;
+
+import com.mongodb.MongoCommandException;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import org.bson.Document;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index migrations of the {@code users} collection.
+ * <p>
+ * Logins only look up users which are not deleted, so the unique indexes are partial indexes over
+ * those users only, and a deleted user does not occupy index entries read on every login. Partial
+ * filters can not match a missing field, so users which are not deleted have an explicit
+ * {@code deletedAt: null}, written on save, see {@link User#getDeletedAt()}.
+ * <p>
+ * Since MongoDB 4.2 every index build only locks the collection briefly at its start and end, so the
+ * builds do not block reads and writes on a large collection; the {@code background} option is
+ * ignored by the server and not set.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public final class UserIndexMigrations {
+
+    public static final List<IndexMigration> MIGRATIONS = List.of(
+            new IndexMigration(1, "Write deletedAt: null on users which are not deleted", UserIndexMigrations::writeDeletedAt),
+            new IndexMigration(2, "Partial unique indexes on loginKeys, username and email of users which are not deleted", UserIndexMigrations::createPartialIndexes),
+            new IndexMigration(3, "Drop the full indexes replaced by the partial ones", UserIndexMigrations::dropFullIndexes),
+            new IndexMigration(4, "Index on updatedAt and id for incremental exports", UserIndexMigrations::createUpdatedAtIndex),
+            new IndexMigration(5, "Indexes on username and email of users without login keys", UserIndexMigrations::createUnkeyedIndexes)
+    );
+
+    /**
+     * filter of the users which are not deleted
+     */
+    private static final Document NOT_DELETED = new Document("deletedAt", new Document("$type", "null"));
+
+    /**
+     * full indexes replaced by partial ones, by their fields
+     */
+    private static final Set<List<String>> REPLACED = Set.of(List.of("username"), List.of("email"), List.of("deletedAt"));
+
+    /**
+     * server error code of dropping an index which does not exist
+     */
+    private static final int INDEX_NOT_FOUND = 27;
+
+    private UserIndexMigrations() {
+    }
+
+    private static void writeDeletedAt(MongoTemplate mongoTemplate) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("deletedAt").exists(false)), Update.update("deletedAt", null), User.class);
+    }
+
+    /**
+     * The partial indexes include {@code deletedAt} as a second field, so they do not have the key
+     * pattern of the full indexes they replace and can be built while those still exist. A field is
+     * only indexed where present, so users without an email, or without login keys until the login
+     * keys backfill has derived them, do not collide.
+     */
+    private static void createPartialIndexes(MongoTemplate mongoTemplate) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(User.class);
+        indexOperations.createIndex(partialUnique("loginKeys"));
+        indexOperations.createIndex(partialUnique("username"));
+        indexOperations.createIndex(partialUnique("email"));
+    }
+
+    /**
+     * Drops the full indexes. The unique index on {@code loginKeys} is replaced by a non-unique one,
+     * which only serves lookups missing the partial index: deleted users, answered as disabled, and
+     * users written without {@code deletedAt} by an instance predating these migrations. An index
+     * dropped by another instance meanwhile is skipped.
+     */
+    private static void dropFullIndexes(MongoTemplate mongoTemplate) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(User.class);
+        for (IndexInfo index : indexOperations.getIndexInfo()) {
+            List<String> fields = index.getIndexFields().stream().map(IndexField::getKey).toList();
+            boolean full = index.getPartialFilterExpression() == null;
+            if (full && (REPLACED.contains(fields) || fields.equals(List.of("loginKeys")) && index.isUnique())) {
+                dropIndexIfExists(indexOperations, index.getName());
+            }
+        }
+        indexOperations.createIndex(new Index().on("loginKeys", Sort.Direction.ASC).sparse().named("loginKeys"));
+    }
+
+    /**
+     * Lets an incremental export read the users updated since its watermark as a range in the order
+     * it pages them, see {@code UserRepositoryCustom#findExportPage}.
+     */
+    private static void createUpdatedAtIndex(MongoTemplate mongoTemplate) {
+        mongoTemplate.indexOps(User.class).createIndex(new Index()
+                .on("updatedAt", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("updatedAt_id"));
+    }
+
+    /**
+     * Lets logins find users stored without login keys by username or email as given, see
+     * {@code UserRepository#findUnkeyedPrincipalsByUsernameOrEmail}. Partial filters can not select a
+     * missing field, so the indexes are full and narrow to those users by {@code loginKeys}.
+     */
+    private static void createUnkeyedIndexes(MongoTemplate mongoTemplate) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(User.class);
+        indexOperations.createIndex(new Index().on("username", Sort.Direction.ASC).on("loginKeys", Sort.Direction.ASC).named("username_loginKeys"));
+        indexOperations.createIndex(new Index().on("email", Sort.Direction.ASC).on("loginKeys", Sort.Direction.ASC).named("email_loginKeys"));
+    }
+
+    private static void dropIndexIfExists(IndexOperations indexOperations, String name) {
+        try {
+            indexOperations.dropIndex(name);
+        } catch (DataAccessException e) {
+            if (!(e.getMostSpecificCause() instanceof MongoCommandException commandException)
+                    || commandException.getErrorCode() != INDEX_NOT_FOUND) {
+                throw e;
+            }
+        }
+    }
+
+    private static Index partialUnique(String field) {
+        return new Index()
+                .on(field, Sort.Direction.ASC)
+                .on("deletedAt", Sort.Direction.ASC)
+                .unique()
+                .partial(PartialIndexFilter.of(new Document(NOT_DELETED).append(field, new Document("$exists", true))))
+                .named(field + "_notDeleted");
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.ilyaslabs.foodstack.authservice.web.db.projection;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Fields of a {@link User} needed to authenticate it, read with a field projection so the login
+ * path does not decode the rest of the document.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public record AuthPrincipal(
+        ObjectId id,
+        String username,
+        String password,
+        Boolean enabled,
+        List<User.Scope> scopes,
+        Instant deletedAt
+) {
+
+    /**
+     * @return the principal without its password hash
+     */
+    public UserPrincipal toUserPrincipal() {
+        return new UserPrincipal(id, username, enabled, scopes, deletedAt);
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.ilyaslabs.foodstack.authservice.web.db.projection;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Fields of a {@link User} copied by other services, read with a field projection.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public record ExportedUser(
+        ObjectId id,
+        String username,
+        Boolean enabled,
+        List<User.Scope> scopes,
+        Instant updatedAt,
+        Instant deletedAt
+) {
+}
@@ -0,0 +1,17 @@
+package io.github.ilyaslabs.foodstack.authservice.web.db.projection;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.RefreshTokenFamily;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+
+/**
+ * Fields of a revoked {@link RefreshTokenFamily} needed to reject its tokens.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public record RevokedFamily(
+        ObjectId id,
+        Instant expiresAt
+) {
+}
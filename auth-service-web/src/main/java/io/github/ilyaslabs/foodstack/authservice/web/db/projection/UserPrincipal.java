@@ -0,0 +1,28 @@
+package io.github.ilyaslabs.foodstack.authservice.web.db.projection;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Fields of a {@link User} needed to issue tokens for it, read with a field projection.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public record UserPrincipal(
+        ObjectId id,
+        String username,
+        Boolean enabled,
+        List<User.Scope> scopes,
+        Instant deletedAt
+) {
+
+    /**
+     * @return {@code true} if the user is enabled and not deleted
+     */
+    public boolean isActive() {
+        return Boolean.TRUE.equals(enabled) && deletedAt == null;
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.ilyaslabs.foodstack.authservice.web.jwt;
+
+/**
+ * Appends JSON string literals without going through an object mapper.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public final class JsonStrings {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private JsonStrings() {
+    }
+
+    /**
+     * Appends the value as a quoted and escaped JSON string, or {@code null}.
+     *
+     * @param builder target
+     * @param value   value to append
+     * @return the builder
+     */
+    public static StringBuilder append(StringBuilder builder, String value) {
+        if (value == null) {
+            return builder.append("null");
+        }
+
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        return builder.append('"');
+    }
+}
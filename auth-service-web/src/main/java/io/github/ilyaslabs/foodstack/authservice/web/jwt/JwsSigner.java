@@ -0,0 +1,157 @@
+package io.github.ilyaslabs.foodstack.authservice.web.jwt;
+
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.SigningAlgorithm;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Signs JWS compact serializations with a fixed key.
+ * <p>
+ * The encoded JOSE header is computed once, and initialized {@link Signature} instances are
+ * pooled instead of being created per token, since they are not thread safe.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public final class JwsSigner {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final SigningAlgorithm algorithm;
+    private final String keyId;
+    private final PrivateKey privateKey;
+
+    // base64url(header) followed by '.'
+    private final byte[] encodedHeader;
+
+    private final Queue<Signature> signatures = new ConcurrentLinkedQueue<>();
+
+    private JwsSigner(SigningAlgorithm algorithm, String keyId, PrivateKey privateKey) {
+        this.algorithm = algorithm;
+        this.keyId = keyId;
+        this.privateKey = privateKey;
+
+        StringBuilder header = new StringBuilder("{\"alg\":\"").append(algorithm.getJwsName()).append('"');
+        if (keyId != null) {
+            JsonStrings.append(header.append(",\"kid\":"), keyId);
+        }
+        header.append(",\"typ\":\"JWT\"}");
+        byte[] headerBytes = BASE64_URL.encode(header.toString().getBytes(StandardCharsets.UTF_8));
+        this.encodedHeader = new byte[headerBytes.length + 1];
+        System.arraycopy(headerBytes, 0, encodedHeader, 0, headerBytes.length);
+        encodedHeader[headerBytes.length] = '.';
+
+        // fail fast on an unusable key
+        release(acquire());
+    }
+
+    /**
+     * @param privateKey RSA, P-256 or Ed25519 private key
+     * @return signer for the algorithm the key is used with
+     */
+    public static JwsSigner of(PrivateKey privateKey) {
+        return of(privateKey, SigningAlgorithm.forKey(privateKey));
+    }
+
+    /**
+     * @param privateKey RSA private key
+     * @return signer for {@code RS256}
+     */
+    public static JwsSigner rs256(PrivateKey privateKey) {
+        return of(privateKey, SigningAlgorithm.RS256);
+    }
+
+    /**
+     * @param privateKey private key
+     * @param algorithm  expected algorithm of the key
+     * @return signer for the algorithm
+     */
+    public static JwsSigner of(PrivateKey privateKey, SigningAlgorithm algorithm) {
+        return of(privateKey, algorithm, null);
+    }
+
+    /**
+     * @param privateKey private key
+     * @param algorithm  expected algorithm of the key
+     * @param keyId      {@code kid} header of signed tokens, omitted if {@code null}
+     * @return signer for the algorithm
+     */
+    public static JwsSigner of(PrivateKey privateKey, SigningAlgorithm algorithm, String keyId) {
+        if (SigningAlgorithm.forKey(privateKey) != algorithm) {
+            throw new IllegalArgumentException(privateKey.getAlgorithm() + " key cannot be used with " + algorithm.getJwsName());
+        }
+        return new JwsSigner(algorithm, keyId, privateKey);
+    }
+
+    /**
+     * @return the JWS algorithm
+     */
+    public SigningAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return the {@code kid} header, {@code null} if tokens have none
+     */
+    public String getKeyId() {
+        return keyId;
+    }
+
+    /**
+     * Signs the payload.
+     *
+     * @param payload JSON claims set
+     * @return JWS compact serialization {@code header.payload.signature}
+     */
+    public String sign(String payload) {
+        byte[] encodedPayload = BASE64_URL.encode(payload.getBytes(StandardCharsets.UTF_8));
+        byte[] encodedSignature = BASE64_URL.encode(sign(encodedPayload));
+
+        byte[] token = new byte[encodedHeader.length + encodedPayload.length + 1 + encodedSignature.length];
+        System.arraycopy(encodedHeader, 0, token, 0, encodedHeader.length);
+        System.arraycopy(encodedPayload, 0, token, encodedHeader.length, encodedPayload.length);
+        token[encodedHeader.length + encodedPayload.length] = '.';
+        System.arraycopy(encodedSignature, 0, token, encodedHeader.length + encodedPayload.length + 1, encodedSignature.length);
+
+        // base64url output is ASCII, so the string can keep its compact latin-1 representation
+        return new String(token, StandardCharsets.ISO_8859_1);
+    }
+
+    private byte[] sign(byte[] encodedPayload) {
+        Signature signature = acquire();
+        try {
+            signature.update(encodedHeader);
+            signature.update(encodedPayload);
+            byte[] result = signature.sign();
+            release(signature);
+            return result;
+        } catch (GeneralSecurityException e) {
+            // a failed signature may be in an undefined state, it is not returned to the pool
+            throw new IllegalStateException("Failed to sign token", e);
+        }
+    }
+
+    private Signature acquire() {
+        Signature signature = signatures.poll();
+        if (signature != null) {
+            return signature;
+        }
+
+        try {
+            signature = Signature.getInstance(algorithm.getJcaAlgorithm());
+            signature.initSign(privateKey);
+            return signature;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign with " + algorithm.getJwsName(), e);
+        }
+    }
+
+    private void release(Signature signature) {
+        signatures.offer(signature);
+    }
+}
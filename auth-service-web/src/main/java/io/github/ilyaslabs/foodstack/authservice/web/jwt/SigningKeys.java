@@ -0,0 +1,186 @@
+package io.github.ilyaslabs.foodstack.authservice.web.jwt;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.Jwks;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.PemKeys;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.SigningAlgorithm;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.StaticVerificationKeys;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.VerificationKeySource;
+import io.github.ilyaslabs.foodstack.authservice.web.config.SigningConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The current token signer and the published verification keys.
+ * <p>
+ * Both are replaced together when the {@code auth.signing} or microservice RSA key properties
+ * change, e.g. after a config server refresh. A configuration that cannot be loaded is logged and
+ * the previous keys stay in use.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Component
+@Slf4j
+public class SigningKeys implements VerificationKeySource {
+
+    private static final String RSA_KEY_PREFIX = "io.github.ilyaslabs.microservice.security.jwt.rsa";
+    private static final byte[] PROBE = "probe".getBytes(StandardCharsets.US_ASCII);
+
+    private final Environment environment;
+
+    private volatile Keys keys;
+
+    public SigningKeys(Environment environment, SigningConfig signingConfig) {
+        this.environment = environment;
+        this.keys = load(signingConfig);
+        log.info("Signing tokens with {} key {}", keys.signer().getAlgorithm().getJwsName(), keys.signer().getKeyId());
+    }
+
+    /**
+     * @return the signer for new tokens
+     */
+    public JwsSigner getSigner() {
+        return keys.signer();
+    }
+
+    /**
+     * @return the published key set
+     */
+    public JwkSetDocument getJwkSet() {
+        return keys.jwkSet();
+    }
+
+    @Override
+    public List<PublicKey> select(SigningAlgorithm algorithm, String keyId) {
+        return keys.verificationKeys().select(algorithm, keyId);
+    }
+
+    @EventListener
+    void onEnvironmentChange(EnvironmentChangeEvent event) {
+        boolean signingKeysChanged = event.getKeys().stream()
+                .anyMatch(key -> key.startsWith("auth.signing") || key.startsWith(RSA_KEY_PREFIX));
+        if (!signingKeysChanged) {
+            return;
+        }
+
+        try {
+            Keys reloaded = load(Binder.get(environment).bindOrCreate("auth.signing", SigningConfig.class));
+            keys = reloaded;
+            log.info("Reloaded signing keys, signing with {} key {}", reloaded.signer().getAlgorithm().getJwsName(), reloaded.signer().getKeyId());
+        } catch (RuntimeException e) {
+            log.error("Cannot reload signing keys, keeping the current ones", e);
+        }
+    }
+
+    private Keys load(SigningConfig config) {
+        SigningAlgorithm algorithm = config.getAlgorithm();
+        String privateKeyPem = config.getPrivateKey();
+        String publicKeyPem = config.getPublicKey();
+
+        if (privateKeyPem == null || privateKeyPem.isBlank()) {
+            if (algorithm != SigningAlgorithm.RS256) {
+                throw new IllegalStateException("auth.signing.private-key is required for " + algorithm.getJwsName());
+            }
+            privateKeyPem = environment.getRequiredProperty(RSA_KEY_PREFIX + ".private-key");
+            publicKeyPem = environment.getProperty(RSA_KEY_PREFIX + ".public-key");
+        }
+
+        PrivateKey privateKey = PemKeys.readPrivateKey(privateKeyPem, algorithm.getKeyAlgorithm());
+        PublicKey publicKey = publicKeyPem == null || publicKeyPem.isBlank()
+                ? derivePublicKey(privateKey)
+                : PemKeys.readPublicKey(publicKeyPem, algorithm.getKeyAlgorithm());
+        verifyKeyPair(algorithm, privateKey, publicKey);
+
+        // signing key first, duplicates removed
+        Map<String, JWK> jwks = new LinkedHashMap<>();
+        List<PublicKey> publicKeys = new ArrayList<>();
+        JWK signingJwk = Jwks.toJwk(publicKey);
+        jwks.put(signingJwk.getKeyID(), signingJwk);
+        publicKeys.add(publicKey);
+        for (String publishedKeyPem : config.getPublishedKeys()) {
+            PublicKey publishedKey = PemKeys.readPublicKey(publishedKeyPem);
+            JWK jwk = Jwks.toJwk(publishedKey);
+            if (jwks.putIfAbsent(jwk.getKeyID(), jwk) == null) {
+                publicKeys.add(publishedKey);
+            }
+        }
+
+        byte[] body = new JWKSet(List.copyOf(jwks.values())).toString(true).getBytes(StandardCharsets.UTF_8);
+
+        return new Keys(
+                JwsSigner.of(privateKey, algorithm, signingJwk.getKeyID()),
+                new StaticVerificationKeys(publicKeys),
+                new JwkSetDocument(body, etag(body))
+        );
+    }
+
+    private static PublicKey derivePublicKey(PrivateKey privateKey) {
+        if (!(privateKey instanceof RSAPrivateCrtKey rsaKey)) {
+            throw new IllegalStateException("auth.signing.public-key is required for " + privateKey.getAlgorithm() + " keys");
+        }
+
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(rsaKey.getModulus(), rsaKey.getPublicExponent()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive RSA public key", e);
+        }
+    }
+
+    private static void verifyKeyPair(SigningAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey) {
+        try {
+            Signature signature = Signature.getInstance(algorithm.getJcaAlgorithm());
+            signature.initSign(privateKey);
+            signature.update(PROBE);
+            byte[] signed = signature.sign();
+
+            signature.initVerify(publicKey);
+            signature.update(PROBE);
+            if (!signature.verify(signed)) {
+                throw new IllegalStateException("auth.signing.public-key does not match the private key");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid signing key pair", e);
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Serialized key set.
+     *
+     * @param body JSON of the JWK set
+     * @param etag strong entity tag of the body
+     */
+    public record JwkSetDocument(byte[] body, String etag) {
+    }
+
+    private record Keys(JwsSigner signer, StaticVerificationKeys verificationKeys, JwkSetDocument jwkSet) {
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.RefreshTokenFamily;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Non-blocking counterpart of {@link RefreshTokenFamilyRepository} used by the reactive endpoints.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Repository
+public interface ReactiveRefreshTokenFamilyRepository extends ReactiveMongoRepository<RefreshTokenFamily, ObjectId>, ReactiveRefreshTokenFamilyRepositoryCustom {
+}
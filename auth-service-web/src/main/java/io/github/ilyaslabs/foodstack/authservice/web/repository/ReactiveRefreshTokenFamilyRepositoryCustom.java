@@ -0,0 +1,28 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.RevokedFamily;
+import org.bson.types.ObjectId;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Non-blocking counterparts of the {@link RefreshTokenFamilyRepositoryCustom} operations used when
+ * refreshing tokens.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public interface ReactiveRefreshTokenFamilyRepositoryCustom {
+
+    /**
+     * @return {@code true} if the token was replaced
+     * @see RefreshTokenFamilyRepositoryCustom#rotate(ObjectId, String, String, Instant, Instant)
+     */
+    Mono<Boolean> rotate(ObjectId id, String tokenId, String nextTokenId, Instant expiresAt, Instant now);
+
+    /**
+     * @return the family if it was revoked by this call, otherwise empty
+     * @see RefreshTokenFamilyRepositoryCustom#revoke(ObjectId, Instant)
+     */
+    Mono<RevokedFamily> revoke(ObjectId id, Instant now);
+}
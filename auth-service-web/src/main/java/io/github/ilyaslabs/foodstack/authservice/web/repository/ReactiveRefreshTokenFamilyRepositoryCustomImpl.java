@@ -0,0 +1,50 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.RefreshTokenFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.RevokedFamily;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Runs the same queries as {@link RefreshTokenFamilyRepositoryCustomImpl}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@RequiredArgsConstructor
+class ReactiveRefreshTokenFamilyRepositoryCustomImpl implements ReactiveRefreshTokenFamilyRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<Boolean> rotate(ObjectId id, String tokenId, String nextTokenId, Instant expiresAt, Instant now) {
+        return reactiveMongoTemplate.updateFirst(
+                        RefreshTokenFamilyRepositoryCustomImpl.rotateQuery(id, tokenId),
+                        RefreshTokenFamilyRepositoryCustomImpl.rotateUpdate(nextTokenId, expiresAt, now),
+                        RefreshTokenFamily.class
+                )
+                .map(result -> result.getModifiedCount() > 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<RevokedFamily> revoke(ObjectId id, Instant now) {
+        return reactiveMongoTemplate.findAndModify(
+                        RefreshTokenFamilyRepositoryCustomImpl.revokeQuery(id),
+                        Update.update("revokedAt", now),
+                        FindAndModifyOptions.options().returnNew(true),
+                        RefreshTokenFamily.class
+                )
+                .map(RefreshTokenFamilyRepositoryCustomImpl::toRevokedFamily);
+    }
+}
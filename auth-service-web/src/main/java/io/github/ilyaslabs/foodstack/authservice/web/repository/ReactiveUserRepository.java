@@ -0,0 +1,43 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.AuthPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of the {@link UserRepository} queries used by the reactive endpoints.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Repository
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, ObjectId> {
+
+    /**
+     * @see UserRepository#findLivePrincipalByLoginKeys(String)
+     */
+    @Query(value = "{ 'loginKeys': ?0, 'deletedAt': { '$type': 'null' } }", fields = UserRepository.AUTH_PRINCIPAL_FIELDS)
+    Mono<AuthPrincipal> findLivePrincipalByLoginKeys(String loginKey);
+
+    /**
+     * @see UserRepository#findFirstPrincipalByLoginKeysOrderByDeletedAtDesc(String)
+     */
+    Mono<AuthPrincipal> findFirstPrincipalByLoginKeysOrderByDeletedAtDesc(String loginKey);
+
+    /**
+     * @see UserRepository#findUnkeyedPrincipalsByUsernameOrEmail(String, String)
+     */
+    @Query(value = "{ '$or': [ { 'username': ?0, 'loginKeys': { '$exists': false } }, { 'email': ?1, 'loginKeys': { '$exists': false } } ] }",
+            fields = UserRepository.AUTH_PRINCIPAL_FIELDS, sort = "{ 'deletedAt': 1 }")
+    Flux<AuthPrincipal> findUnkeyedPrincipalsByUsernameOrEmail(String username, String email);
+
+    /**
+     * @see UserRepository#findPrincipalById(ObjectId)
+     */
+    Mono<UserPrincipal> findPrincipalById(ObjectId id);
+}
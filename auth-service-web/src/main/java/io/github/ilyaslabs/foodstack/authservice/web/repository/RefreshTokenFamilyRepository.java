@@ -0,0 +1,14 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.RefreshTokenFamily;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Repository
+public interface RefreshTokenFamilyRepository extends MongoRepository<RefreshTokenFamily, ObjectId>, RefreshTokenFamilyRepositoryCustom {
+}
@@ -0,0 +1,60 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.RevokedFamily;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Refresh token family operations which are not expressible as derived queries.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public interface RefreshTokenFamilyRepositoryCustom {
+
+    /**
+     * Creates the indexes declared on the document, including the TTL index removing expired families.
+     */
+    void ensureIndexes();
+
+    /**
+     * Replaces the current token of the family, but only if it is the expected one and the family
+     * is not revoked, so a refresh token can be used once.
+     *
+     * @param id          family id
+     * @param tokenId     the token being refreshed
+     * @param nextTokenId the token replacing it
+     * @param expiresAt   expiry of the next token
+     * @param now         current time
+     * @return {@code true} if the token was replaced
+     */
+    boolean rotate(ObjectId id, String tokenId, String nextTokenId, Instant expiresAt, Instant now);
+
+    /**
+     * Revokes the family if it is not revoked yet.
+     *
+     * @param id  family id
+     * @param now current time
+     * @return the family if it was revoked by this call
+     */
+    Optional<RevokedFamily> revoke(ObjectId id, Instant now);
+
+    /**
+     * Revokes every family of the given users.
+     *
+     * @param userIds user ids
+     * @param now     current time
+     * @return the families revoked by this call
+     */
+    List<RevokedFamily> revokeByUserIds(Collection<ObjectId> userIds, Instant now);
+
+    /**
+     * @param since earliest revocation time
+     * @param now   current time, families which expired before are omitted
+     * @return families revoked since the given time
+     */
+    List<RevokedFamily> findRevokedSince(Instant since, Instant now);
+}
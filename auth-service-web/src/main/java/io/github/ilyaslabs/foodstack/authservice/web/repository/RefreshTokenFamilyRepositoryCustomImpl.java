@@ -0,0 +1,122 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.RefreshTokenFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.RevokedFamily;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@RequiredArgsConstructor
+class RefreshTokenFamilyRepositoryCustomImpl implements RefreshTokenFamilyRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void ensureIndexes() {
+        IndexOperations indexOperations = mongoTemplate.indexOps(RefreshTokenFamily.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(RefreshTokenFamily.class)
+                .forEach(indexOperations::createIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean rotate(ObjectId id, String tokenId, String nextTokenId, Instant expiresAt, Instant now) {
+        return mongoTemplate.updateFirst(rotateQuery(id, tokenId), rotateUpdate(nextTokenId, expiresAt, now), RefreshTokenFamily.class)
+                .getModifiedCount() > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<RevokedFamily> revoke(ObjectId id, Instant now) {
+        RefreshTokenFamily family = mongoTemplate.findAndModify(
+                revokeQuery(id),
+                Update.update("revokedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                RefreshTokenFamily.class
+        );
+
+        return Optional.ofNullable(family).map(RefreshTokenFamilyRepositoryCustomImpl::toRevokedFamily);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RevokedFamily> revokeByUserIds(Collection<ObjectId> userIds, Instant now) {
+        Query active = Query.query(Criteria.where("userId").in(userIds).and("revokedAt").is(null));
+        List<RevokedFamily> families = mongoTemplate.query(RefreshTokenFamily.class)
+                .as(RevokedFamily.class)
+                .matching(active)
+                .all();
+        if (families.isEmpty()) {
+            return families;
+        }
+
+        // families created after the read belong to logins which happen after the revocation
+        Query query = Query.query(Criteria.where("id").in(families.stream().map(RevokedFamily::id).toList()).and("revokedAt").is(null));
+        mongoTemplate.updateMulti(query, Update.update("revokedAt", now), RefreshTokenFamily.class);
+
+        return families;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RevokedFamily> findRevokedSince(Instant since, Instant now) {
+        Query query = Query.query(Criteria.where("revokedAt").gte(since).and("expiresAt").gt(now));
+
+        return mongoTemplate.query(RefreshTokenFamily.class)
+                .as(RevokedFamily.class)
+                .matching(query)
+                .all();
+    }
+
+    /**
+     * Matches the family only while the given token is its current one and it is not revoked.
+     */
+    static Query rotateQuery(ObjectId id, String tokenId) {
+        return Query.query(Criteria.where("id").is(id)
+                .and("currentTokenId").is(tokenId)
+                .and("revokedAt").is(null));
+    }
+
+    static Update rotateUpdate(String nextTokenId, Instant expiresAt, Instant now) {
+        return Update.update("currentTokenId", nextTokenId)
+                .set("rotatedAt", now)
+                .set("expiresAt", expiresAt);
+    }
+
+    static Query revokeQuery(ObjectId id) {
+        Query query = Query.query(Criteria.where("id").is(id).and("revokedAt").is(null));
+        query.fields().include("expiresAt");
+        return query;
+    }
+
+    static RevokedFamily toRevokedFamily(RefreshTokenFamily family) {
+        return new RevokedFamily(family.getId(), family.getExpiresAt());
+    }
+}
@@ -1,10 +1,15 @@
 package io.github.ilyaslabs.foodstack.authservice.web.repository;
 
 import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.AuthPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
 import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -12,8 +17,63 @@ import java.util.Optional;
  * @author Muhammad Ilyas (m.ilyas@live.com)
  */
 @Repository
-public interface UserRepository extends MongoRepository<User, ObjectId> {
+public interface UserRepository extends MongoRepository<User, ObjectId>, UserRepositoryCustom {
 
-    Optional<User> findByUsernameOrEmail(String username, String email);
+    /**
+     * fields of {@link AuthPrincipal}
+     */
+    String AUTH_PRINCIPAL_FIELDS = "{ 'username': 1, 'password': 1, 'enabled': 1, 'scopes': 1, 'deletedAt': 1 }";
+
+    /**
+     * Finds the principal of a user which is not deleted by a single equality probe on the partial
+     * {@code loginKeys_notDeleted} index. Only the fields of {@link AuthPrincipal} are read.
+     *
+     * @param loginKey normalized username or email, see {@link User#toLoginKey(String)}
+     * @return the principal
+     */
+    @Query(value = "{ 'loginKeys': ?0, 'deletedAt': { '$type': 'null' } }", fields = AUTH_PRINCIPAL_FIELDS)
+    Optional<AuthPrincipal> findLivePrincipalByLoginKeys(String loginKey);
+
+    /**
+     * Finds the principal of a user, deleted or not, by an equality probe on the {@code loginKeys}
+     * index. Deleted users may share a login key, the most recently deleted one is answered. Only
+     * the fields of {@link AuthPrincipal} are read.
+     *
+     * @param loginKey normalized username or email, see {@link User#toLoginKey(String)}
+     * @return the principal
+     */
+    Optional<AuthPrincipal> findFirstPrincipalByLoginKeysOrderByDeletedAtDesc(String loginKey);
+
+    /**
+     * Finds the principals of users without login keys by username or email as given, using the
+     * {@code username_loginKeys} and {@code email_loginKeys} indexes. Users are stored without login
+     * keys until the login keys backfill derives them, and may lack {@code deletedAt} as well, which
+     * counts as not deleted, so users which are not deleted come first. Only the fields of
+     * {@link AuthPrincipal} are read.
+     *
+     * @param username username
+     * @param email    email
+     * @return the principals, users which are not deleted first
+     */
+    @Query(value = "{ '$or': [ { 'username': ?0, 'loginKeys': { '$exists': false } }, { 'email': ?1, 'loginKeys': { '$exists': false } } ] }",
+            fields = AUTH_PRINCIPAL_FIELDS, sort = "{ 'deletedAt': 1 }")
+    List<AuthPrincipal> findUnkeyedPrincipalsByUsernameOrEmail(String username, String email);
+
+    /**
+     * Finds the principal of a user by id. Only the fields of {@link UserPrincipal} are read.
+     *
+     * @param id user id
+     * @return the principal
+     */
+    Optional<UserPrincipal> findPrincipalById(ObjectId id);
+
+    /**
+     * Finds the principals of the users with the given ids using a single {@code $in} query.
+     * Only the fields of {@link UserPrincipal} are read.
+     *
+     * @param ids user ids
+     * @return principals of the users which exist
+     */
+    List<UserPrincipal> findPrincipalsByIdIn(Collection<ObjectId> ids);
 
 }
@@ -0,0 +1,73 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.ExportedUser;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * User operations which are not expressible as derived queries.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Replaces the password hash of the user, but only if it still equals the expected hash, so a
+     * concurrent password change is never overwritten.
+     *
+     * @param id               user id
+     * @param expectedPassword the password hash the user currently has
+     * @param password         the new password hash
+     * @return {@code true} if the password was replaced
+     */
+    boolean updatePasswordIfUnchanged(ObjectId id, String expectedPassword, String password);
+
+    /**
+     * Inserts the users with a single unordered bulk write, so a user which can not be inserted does
+     * not keep the others from being inserted.
+     *
+     * @param users users with their ids assigned
+     * @return errors of the users which were not inserted, by their index in {@code users}
+     */
+    Map<Integer, String> insertUnordered(List<User> users);
+
+    /**
+     * Reads the next page of an export with a range query on an index, so every page costs the same
+     * however far the export has progressed.
+     * <p>
+     * Without {@code updatedSince} all users are read in the order of their ids, continuing after
+     * {@code afterId}. With {@code updatedSince} only users updated at or after it are read, in the
+     * order of {@code updatedAt} and id; {@code afterId} then continues after the user with that id
+     * among the users updated exactly at {@code updatedSince}.
+     *
+     * @param afterId      id of the last user of the previous page, or {@code null} to start
+     * @param updatedSince earliest update time, or {@code null} to read all users
+     * @param limit        maximum number of users
+     * @return the users of the page
+     */
+    List<ExportedUser> findExportPage(ObjectId afterId, Instant updatedSince, int limit);
+
+    /**
+     * Derives the login keys of every user which does not have them yet.
+     *
+     * @param batchSize number of users updated per bulk write
+     * @return the result of the backfill
+     */
+    LoginKeysBackfillResult backfillLoginKeys(int batchSize);
+
+    /**
+     * @return {@code true} if the login keys of users which are not deleted are unique, enforced by an index
+     */
+    boolean hasUniqueLoginKeysIndex();
+
+    /**
+     * @param updated    number of users whose login keys were written
+     * @param conflicted number of users whose login keys collide with another user's
+     */
+    record LoginKeysBackfillResult(long updated, long conflicted) {
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository;
+
+import com.mongodb.ErrorCategory;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.ExportedUser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@RequiredArgsConstructor
+@Slf4j
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updatePasswordIfUnchanged(ObjectId id, String expectedPassword, String password) {
+        Query query = Query.query(Criteria.where("id").is(id).and("password").is(expectedPassword));
+
+        return mongoTemplate.updateFirst(query, Update.update("password", password), User.class)
+                .getModifiedCount() > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, String> insertUnordered(List<User> users) {
+        if (users.isEmpty()) {
+            return Map.of();
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(users).execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            // unordered, every insert except the failed ones was applied
+            Map<Integer, String> errors = new HashMap<>();
+            e.getErrors().forEach(error -> {
+                if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+                    errors.put(error.getIndex(), "User already exists");
+                } else {
+                    log.error("Failed to insert user {}: {}", users.get(error.getIndex()).getUsername(), error.getMessage());
+                    errors.put(error.getIndex(), "Insert failed");
+                }
+            });
+            return errors;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ExportedUser> findExportPage(ObjectId afterId, Instant updatedSince, int limit) {
+        Query query;
+        if (updatedSince == null) {
+            query = afterId == null ? new Query() : Query.query(Criteria.where("id").gt(afterId));
+            query.with(Sort.by("id"));
+        } else {
+            query = Query.query(afterId == null
+                    ? Criteria.where("updatedAt").gte(updatedSince)
+                    : new Criteria().orOperator(
+                    Criteria.where("updatedAt").gt(updatedSince),
+                    Criteria.where("updatedAt").is(updatedSince).and("id").gt(afterId)
+            ));
+            query.with(Sort.by("updatedAt", "id"));
+        }
+        query.limit(limit);
+
+        return mongoTemplate.query(User.class)
+                .as(ExportedUser.class)
+                .matching(query)
+                .all();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LoginKeysBackfillResult backfillLoginKeys(int batchSize) {
+        Query query = Query.query(Criteria.where("loginKeys").exists(false));
+        query.fields().include("username", "email");
+
+        LoginKeysBackfillResult result = new LoginKeysBackfillResult(0, 0);
+        List<User> batch = new ArrayList<>(batchSize);
+
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    result = add(result, writeLoginKeys(batch));
+                    batch.clear();
+                }
+            }
+        }
+
+        return add(result, writeLoginKeys(batch));
+    }
+
+    @Override
+    public boolean hasUniqueLoginKeysIndex() {
+        return mongoTemplate.indexOps(User.class).getIndexInfo().stream()
+                .anyMatch(index -> index.isUnique() && index.getIndexFields().getFirst().getKey().equals("loginKeys"));
+    }
+
+    private LoginKeysBackfillResult writeLoginKeys(List<User> users) {
+        if (users.isEmpty()) {
+            return new LoginKeysBackfillResult(0, 0);
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        for (User user : users) {
+            bulkOperations.updateOne(
+                    Query.query(Criteria.where("id").is(user.getId())),
+                    Update.update("loginKeys", user.deriveLoginKeys())
+            );
+        }
+
+        try {
+            return new LoginKeysBackfillResult(bulkOperations.execute().getModifiedCount(), 0);
+        } catch (BulkOperationException e) {
+            // unordered, every update except the conflicting ones was applied
+            e.getErrors().forEach(error ->
+                    log.error("Login keys of user {} conflict with another user: {}", users.get(error.getIndex()).getId(), error.getMessage()));
+            return new LoginKeysBackfillResult(e.getResult().getModifiedCount(), e.getErrors().size());
+        }
+    }
+
+    private static LoginKeysBackfillResult add(LoginKeysBackfillResult a, LoginKeysBackfillResult b) {
+        return new LoginKeysBackfillResult(a.updated() + b.updated(), a.conflicted() + b.conflicted());
+    }
+}
@@ -0,0 +1,160 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.NullValueInNestedPathException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Sorting and query by example over documents held in memory, following MongoDB where the two
+ * differ from Java: missing values sort before all others, and an example matches embedded
+ * documents property by property.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+final class InMemoryQueries {
+
+    private InMemoryQueries() {
+    }
+
+    /**
+     * @param sort sort of a query, property paths may be nested
+     * @return comparator ordering documents like MongoDB, {@code null} if unsorted
+     * @throws IllegalArgumentException when comparing values which are not {@link Comparable}
+     */
+    static <T> Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<T> next = Comparator.comparing(document -> propertyValue(document, order.getProperty()), valueComparator(order));
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private static Comparator<Object> valueComparator(Sort.Order order) {
+        Comparator<Object> comparator = (left, right) -> {
+            if (order.isIgnoreCase() && left instanceof String leftString && right instanceof String rightString) {
+                return leftString.compareToIgnoreCase(rightString);
+            }
+            if (left instanceof Comparable<?> && left.getClass().isInstance(right)) {
+                @SuppressWarnings("unchecked")
+                Comparable<Object> comparable = (Comparable<Object>) left;
+                return comparable.compareTo(right);
+            }
+            throw new IllegalArgumentException("Can not sort by " + order.getProperty() + ", its values are not comparable");
+        };
+        if (order.isDescending()) {
+            comparator = comparator.reversed();
+        }
+
+        // missing values are the lowest, unless requested otherwise
+        boolean nullsFirst = switch (order.getNullHandling()) {
+            case NULLS_FIRST -> true;
+            case NULLS_LAST -> false;
+            case NATIVE -> order.isAscending();
+        };
+        return nullsFirst ? Comparator.nullsFirst(comparator) : Comparator.nullsLast(comparator);
+    }
+
+    private static Object propertyValue(Object document, String path) {
+        try {
+            return PropertyAccessorFactory.forDirectFieldAccess(document).getPropertyValue(path);
+        } catch (NullValueInNestedPathException e) {
+            // missing embedded document
+            return null;
+        }
+    }
+
+    /**
+     * @param example example of a query
+     * @return predicate matching the documents of the example's type matching its probe
+     */
+    static <T> Predicate<T> predicate(Example<?> example) {
+        ExampleMatcher matcher = example.getMatcher();
+        ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(matcher);
+
+        List<Predicate<Object>> conditions = new ArrayList<>();
+        collectConditions(example.getProbe(), "", accessor, conditions);
+
+        Class<?> type = example.getProbeType();
+        Predicate<Object> matches = matcher.isAllMatching()
+                ? document -> conditions.stream().allMatch(condition -> condition.test(document))
+                : document -> conditions.isEmpty() || conditions.stream().anyMatch(condition -> condition.test(document));
+        return document -> type.isInstance(document) && matches.test(document);
+    }
+
+    private static void collectConditions(Object probe, String prefix, ExampleMatcherAccessor accessor, List<Predicate<Object>> conditions) {
+        ReflectionUtils.doWithFields(probe.getClass(), field -> {
+            String path = prefix + field.getName();
+            if (accessor.isIgnoredPath(path)) {
+                return;
+            }
+
+            ReflectionUtils.makeAccessible(field);
+            Object probeValue = accessor.getValueTransformerForPath(path).apply(Optional.ofNullable(field.get(probe))).orElse(null);
+            if (probeValue == null) {
+                if (accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                    conditions.add(document -> propertyValue(document, path) == null);
+                }
+                return;
+            }
+
+            if (isEmbeddedDocument(probeValue)) {
+                collectConditions(probeValue, path + ".", accessor, conditions);
+            } else if (probeValue instanceof String string) {
+                Predicate<String> matches = stringPredicate(string, accessor.getStringMatcherForPath(path), accessor.isIgnoreCaseForPath(path));
+                conditions.add(document -> propertyValue(document, path) instanceof String value && matches.test(value));
+            } else {
+                conditions.add(document -> Objects.equals(propertyValue(document, path), probeValue));
+            }
+        }, InMemoryQueries::isPersistent);
+    }
+
+    private static Predicate<String> stringPredicate(String probe, ExampleMatcher.StringMatcher stringMatcher, boolean ignoreCase) {
+        return switch (stringMatcher) {
+            case DEFAULT, EXACT -> ignoreCase ? probe::equalsIgnoreCase : probe::equals;
+            case STARTING -> regex(Pattern.quote(probe) + ".*", ignoreCase);
+            case ENDING -> regex(".*" + Pattern.quote(probe), ignoreCase);
+            case CONTAINING -> regex(".*" + Pattern.quote(probe) + ".*", ignoreCase);
+            case REGEX -> regex(probe, ignoreCase);
+        };
+    }
+
+    private static Predicate<String> regex(String regex, boolean ignoreCase) {
+        Pattern pattern = Pattern.compile(regex, Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0));
+        return value -> pattern.matcher(value).matches();
+    }
+
+    private static boolean isPersistent(Field field) {
+        return !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers());
+    }
+
+    /**
+     * Values of other types are matched as a whole.
+     */
+    private static boolean isEmbeddedDocument(Object value) {
+        return !BeanUtils.isSimpleValueType(value.getClass())
+                && !(value instanceof ObjectId)
+                && !(value instanceof Collection<?>)
+                && !(value instanceof Map<?, ?>)
+                && !value.getClass().isArray()
+                && !value.getClass().isRecord();
+    }
+}
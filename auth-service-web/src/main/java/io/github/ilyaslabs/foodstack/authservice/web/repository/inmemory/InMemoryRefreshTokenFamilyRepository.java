@@ -0,0 +1,154 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.RefreshTokenFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.RevokedFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.RefreshTokenFamilyRepository;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory {@link RefreshTokenFamilyRepository}. Rotation and revocation are atomic per family,
+ * like the conditional updates on MongoDB. Expired families are purged on insert at most once per
+ * minute, standing in for the TTL index.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Repository
+@Profile(InMemoryRepository.PROFILE)
+public class InMemoryRefreshTokenFamilyRepository extends InMemoryRepository<RefreshTokenFamily> implements RefreshTokenFamilyRepository {
+
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Clock clock;
+    private final AtomicLong lastPurge;
+
+    public InMemoryRefreshTokenFamilyRepository(Clock clock) {
+        this.clock = clock;
+        this.lastPurge = new AtomicLong(clock.millis());
+    }
+
+    @Override
+    public <S extends RefreshTokenFamily> S save(S entity) {
+        purgeExpired();
+        return super.save(entity);
+    }
+
+    /**
+     * There are no indexes in memory.
+     */
+    @Override
+    public void ensureIndexes() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean rotate(ObjectId id, String tokenId, String nextTokenId, Instant expiresAt, Instant now) {
+        boolean[] rotated = {false};
+        documents.computeIfPresent(id, (key, family) -> {
+            if (!Objects.equals(family.getCurrentTokenId(), tokenId) || family.getRevokedAt() != null) {
+                return family;
+            }
+            RefreshTokenFamily next = copy(family);
+            next.setCurrentTokenId(nextTokenId);
+            next.setRotatedAt(now);
+            next.setExpiresAt(expiresAt);
+            rotated[0] = true;
+            return next;
+        });
+        return rotated[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<RevokedFamily> revoke(ObjectId id, Instant now) {
+        RevokedFamily[] revoked = {null};
+        documents.computeIfPresent(id, (key, family) -> {
+            if (family.getRevokedAt() != null) {
+                return family;
+            }
+            RefreshTokenFamily next = copy(family);
+            next.setRevokedAt(now);
+            revoked[0] = new RevokedFamily(next.getId(), next.getExpiresAt());
+            return next;
+        });
+        return Optional.ofNullable(revoked[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RevokedFamily> revokeByUserIds(Collection<ObjectId> userIds, Instant now) {
+        Set<ObjectId> users = new HashSet<>(userIds);
+        List<RevokedFamily> revoked = new ArrayList<>();
+        documents.values().stream()
+                .filter(family -> users.contains(family.getUserId()) && family.getRevokedAt() == null)
+                .map(RefreshTokenFamily::getId)
+                .toList()
+                .forEach(id -> revoke(id, now).ifPresent(revoked::add));
+        return revoked;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RevokedFamily> findRevokedSince(Instant since, Instant now) {
+        return documents.values().stream()
+                .filter(family -> family.getRevokedAt() != null && !family.getRevokedAt().isBefore(since))
+                .filter(family -> family.getExpiresAt() != null && family.getExpiresAt().isAfter(now))
+                .map(family -> new RevokedFamily(family.getId(), family.getExpiresAt()))
+                .toList();
+    }
+
+    private void purgeExpired() {
+        long now = clock.millis();
+        long last = lastPurge.get();
+        if (now - last < PURGE_INTERVAL_MILLIS || !lastPurge.compareAndSet(last, now)) {
+            return;
+        }
+
+        Instant instant = Instant.ofEpochMilli(now);
+        documents.values().removeIf(family -> family.getExpiresAt() != null && !family.getExpiresAt().isAfter(instant));
+    }
+
+    @Override
+    protected ObjectId getId(RefreshTokenFamily family) {
+        return family.getId();
+    }
+
+    @Override
+    protected void setId(RefreshTokenFamily family, ObjectId id) {
+        family.setId(id);
+    }
+
+    @Override
+    protected RefreshTokenFamily copy(RefreshTokenFamily family) {
+        RefreshTokenFamily copy = new RefreshTokenFamily();
+        copy.setId(family.getId());
+        copy.setUserId(family.getUserId());
+        copy.setCurrentTokenId(family.getCurrentTokenId());
+        copy.setCreatedAt(family.getCreatedAt());
+        copy.setRotatedAt(family.getRotatedAt());
+        copy.setRevokedAt(family.getRevokedAt());
+        copy.setExpiresAt(family.getExpiresAt());
+        return copy;
+    }
+}
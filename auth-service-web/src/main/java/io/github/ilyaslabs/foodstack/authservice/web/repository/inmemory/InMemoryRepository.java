@@ -0,0 +1,351 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory;
+
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * {@link MongoRepository} keeping its documents in a concurrent map, for running the service
+ * without MongoDB under the {@value #PROFILE} profile.
+ * <p>
+ * Documents are copied on the way in and out, so callers can modify them as they would a decoded
+ * document. Sorting and query by example follow MongoDB as far as documents compared in Java can,
+ * see {@link InMemoryQueries}; every query scans all documents.
+ *
+ * @param <T> document type
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public abstract class InMemoryRepository<T> implements MongoRepository<T, ObjectId> {
+
+    /**
+     * profile replacing the MongoDB repositories with in-memory ones
+     */
+    public static final String PROFILE = "in-memory";
+
+    private static final ProjectionFactory PROJECTION_FACTORY = new SpelAwareProxyProjectionFactory();
+
+    protected final ConcurrentMap<ObjectId, T> documents = new ConcurrentHashMap<>();
+
+    protected abstract ObjectId getId(T document);
+
+    protected abstract void setId(T document, ObjectId id);
+
+    protected abstract T copy(T document);
+
+    /**
+     * Called before a document is stored, e.g. to maintain a secondary index.
+     *
+     * @param previous the stored document it replaces, {@code null} if it is new
+     * @param document the document being stored
+     * @throws DuplicateKeyException if it would violate a unique index
+     */
+    protected void beforeStore(T previous, T document) {
+    }
+
+    /**
+     * Called after a document was removed.
+     *
+     * @param document the removed document
+     */
+    protected void afterRemove(T document) {
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        if (getId(entity) == null) {
+            setId(entity, new ObjectId());
+        }
+
+        T document = copy(entity);
+        beforeStore(documents.get(getId(entity)), document);
+        documents.put(getId(entity), document);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S insert(S entity) {
+        if (getId(entity) != null && documents.containsKey(getId(entity))) {
+            throw new DuplicateKeyException("Duplicate id " + getId(entity));
+        }
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        entities.forEach(entity -> inserted.add(insert(entity)));
+        return inserted;
+    }
+
+    @Override
+    public Optional<T> findById(ObjectId id) {
+        return Optional.ofNullable(documents.get(id)).map(this::copy);
+    }
+
+    @Override
+    public boolean existsById(ObjectId id) {
+        return documents.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return documents.values().stream().map(this::copy).toList();
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<ObjectId> ids) {
+        List<T> found = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        return sorted(documents.values().stream(), sort).map(this::copy).toList();
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        return page(documents.values().stream(), pageable);
+    }
+
+    @Override
+    public long count() {
+        return documents.size();
+    }
+
+    @Override
+    public void deleteById(ObjectId id) {
+        T removed = documents.remove(id);
+        if (removed != null) {
+            afterRemove(removed);
+        }
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(getId(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends ObjectId> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        documents.keySet().forEach(this::deleteById);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IncorrectResultSizeDataAccessException if more than one document matches
+     */
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        List<S> found = matching(example).limit(2).toList();
+        if (found.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, found.size());
+        }
+        return found.stream().findFirst().map(this::copyOf);
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        return matching(example).map(this::copyOf).toList();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        return sorted(matching(example), sort).map(this::copyOf).toList();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return page(matching(example), pageable);
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        return matching(example).count();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        return matching(example).findAny().isPresent();
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(new InMemoryFluentQuery<>(example, Sort.unsorted(), 0));
+    }
+
+    /**
+     * @return the stored documents matching the example, not copied
+     */
+    private <S extends T> Stream<S> matching(Example<S> example) {
+        Predicate<Object> predicate = InMemoryQueries.predicate(example);
+        return documents.values().stream()
+                .filter(predicate)
+                .map(document -> example.getProbeType().cast(document));
+    }
+
+    private static <S> Stream<S> sorted(Stream<S> documents, Sort sort) {
+        Comparator<S> comparator = InMemoryQueries.comparator(sort);
+        return comparator == null ? documents : documents.sorted(comparator);
+    }
+
+    private <S extends T> Page<S> page(Stream<S> documents, Pageable pageable) {
+        List<S> sorted = sorted(documents, pageable.getSort()).toList();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(sorted.stream().map(this::copyOf).toList());
+        }
+
+        List<S> content = sorted.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(this::copyOf)
+                .toList();
+        return new PageImpl<>(content, pageable, sorted.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S extends T> S copyOf(S document) {
+        return (S) copy(document);
+    }
+
+    /**
+     * {@link FluentQuery.FetchableFluentQuery} over the documents matching an example. Field
+     * projections are not applied, the documents are always read in full.
+     */
+    private class InMemoryFluentQuery<S extends T, R> implements FluentQuery.FetchableFluentQuery<R> {
+
+        private final Example<S> example;
+        private final Sort sort;
+        private final int limit;
+        private final Function<S, R> mapper;
+
+        @SuppressWarnings("unchecked")
+        private InMemoryFluentQuery(Example<S> example, Sort sort, int limit) {
+            this(example, sort, limit, document -> (R) document);
+        }
+
+        private InMemoryFluentQuery(Example<S> example, Sort sort, int limit, Function<S, R> mapper) {
+            this.example = example;
+            this.sort = sort;
+            this.limit = limit;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> sortBy(Sort sort) {
+            return new InMemoryFluentQuery<>(example, this.sort.and(sort), limit, mapper);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> limit(int limit) {
+            return new InMemoryFluentQuery<>(example, sort, limit, mapper);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the type is neither an interface nor a supertype of the document type
+         */
+        @Override
+        public <P> FluentQuery.FetchableFluentQuery<P> as(Class<P> resultType) {
+            if (resultType.isAssignableFrom(example.getProbeType())) {
+                return new InMemoryFluentQuery<>(example, sort, limit, resultType::cast);
+            }
+            if (resultType.isInterface()) {
+                return new InMemoryFluentQuery<>(example, sort, limit, document -> PROJECTION_FACTORY.createProjection(resultType, document));
+            }
+            throw new IllegalArgumentException(resultType.getName() + " is not a projection of " + example.getProbeType().getName());
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> project(Collection<String> properties) {
+            return this;
+        }
+
+        @Override
+        public R oneValue() {
+            List<R> found = stream().limit(2).toList();
+            if (found.size() > 1) {
+                throw new IncorrectResultSizeDataAccessException(1, found.size());
+            }
+            return found.isEmpty() ? null : found.getFirst();
+        }
+
+        @Override
+        public R firstValue() {
+            return stream().findFirst().orElse(null);
+        }
+
+        @Override
+        public List<R> all() {
+            return stream().toList();
+        }
+
+        @Override
+        public Page<R> page(Pageable pageable) {
+            // the stable sort by the pageable keeps this query's order among equal documents
+            return InMemoryRepository.this.page(sorted(limited(), sort), pageable).map(mapper);
+        }
+
+        @Override
+        public Stream<R> stream() {
+            return sorted(limited(), sort).map(InMemoryRepository.this::copyOf).map(mapper);
+        }
+
+        @Override
+        public long count() {
+            return limited().count();
+        }
+
+        @Override
+        public boolean exists() {
+            return matching(example).findAny().isPresent();
+        }
+
+        private Stream<S> limited() {
+            Stream<S> matching = matching(example);
+            if (limit <= 0) {
+                return matching;
+            }
+            // the limit applies after sorting
+            return sorted(matching, sort).limit(limit);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.AuthPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.ExportedUser;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory {@link UserRepository}. Login keys are derived on save, like on MongoDB, and the keys of
+ * the users which are not deleted are kept in a unique index, so a login is a single map lookup.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Repository
+@Profile(InMemoryRepository.PROFILE)
+public class InMemoryUserRepository extends InMemoryRepository<User> implements UserRepository {
+
+    private final ConcurrentMap<String, ObjectId> loginKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Saves the user, writes are serialized to keep the login keys consistent.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized <S extends User> S save(S entity) {
+        entity.setLoginKeys(entity.deriveLoginKeys());
+        return super.save(entity);
+    }
+
+    @Override
+    public synchronized void deleteById(ObjectId id) {
+        super.deleteById(id);
+    }
+
+    @Override
+    protected void beforeStore(User previous, User user) {
+        for (String loginKey : indexed(user)) {
+            ObjectId owner = loginKeys.get(loginKey);
+            if (owner != null && !owner.equals(user.getId())) {
+                throw new DuplicateKeyException("Duplicate login key " + loginKey);
+            }
+        }
+
+        if (previous != null) {
+            indexed(previous).forEach(loginKey -> loginKeys.remove(loginKey, previous.getId()));
+        }
+        indexed(user).forEach(loginKey -> loginKeys.put(loginKey, user.getId()));
+    }
+
+    @Override
+    protected void afterRemove(User user) {
+        indexed(user).forEach(loginKey -> loginKeys.remove(loginKey, user.getId()));
+    }
+
+    @Override
+    public Optional<AuthPrincipal> findLivePrincipalByLoginKeys(String loginKey) {
+        return findLive(loginKey).map(InMemoryUserRepository::toAuthPrincipal);
+    }
+
+    @Override
+    public Optional<AuthPrincipal> findFirstPrincipalByLoginKeysOrderByDeletedAtDesc(String loginKey) {
+        return findStored(loginKey).map(InMemoryUserRepository::toAuthPrincipal);
+    }
+
+    @Override
+    public List<AuthPrincipal> findUnkeyedPrincipalsByUsernameOrEmail(String username, String email) {
+        return documents.values().stream()
+                .filter(user -> user.getLoginKeys() == null)
+                .filter(user -> Objects.equals(user.getUsername(), username) || Objects.equals(user.getEmail(), email))
+                .sorted(Comparator.comparing(User::getDeletedAt, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .map(InMemoryUserRepository::toAuthPrincipal)
+                .toList();
+    }
+
+    @Override
+    public Optional<UserPrincipal> findPrincipalById(ObjectId id) {
+        return Optional.ofNullable(documents.get(id)).map(InMemoryUserRepository::toUserPrincipal);
+    }
+
+    @Override
+    public List<UserPrincipal> findPrincipalsByIdIn(Collection<ObjectId> ids) {
+        return ids.stream()
+                .distinct()
+                .map(documents::get)
+                .filter(Objects::nonNull)
+                .map(InMemoryUserRepository::toUserPrincipal)
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updatePasswordIfUnchanged(ObjectId id, String expectedPassword, String password) {
+        boolean[] updated = {false};
+        documents.computeIfPresent(id, (key, user) -> {
+            if (!Objects.equals(user.getPassword(), expectedPassword)) {
+                return user;
+            }
+            User next = copy(user);
+            next.setPassword(password);
+            updated[0] = true;
+            return next;
+        });
+        return updated[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, String> insertUnordered(List<User> users) {
+        Map<Integer, String> errors = new HashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                insert(users.get(i));
+            } catch (DuplicateKeyException e) {
+                errors.put(i, "User already exists");
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Sorts all users for every page, there is no index to read a range of.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ExportedUser> findExportPage(ObjectId afterId, Instant updatedSince, int limit) {
+        Comparator<User> byId = Comparator.comparing(User::getId);
+        return documents.values().stream()
+                .filter(user -> updatedSince == null
+                        ? afterId == null || user.getId().compareTo(afterId) > 0
+                        : user.getUpdatedAt() != null && (user.getUpdatedAt().isAfter(updatedSince)
+                        || user.getUpdatedAt().equals(updatedSince) && (afterId == null || user.getId().compareTo(afterId) > 0)))
+                .sorted(updatedSince == null ? byId : Comparator.comparing(User::getUpdatedAt).thenComparing(byId))
+                .limit(limit)
+                .map(user -> new ExportedUser(user.getId(), user.getUsername(), user.getEnabled(), user.getScopes(), user.getUpdatedAt(), user.getDeletedAt()))
+                .toList();
+    }
+
+    /**
+     * Login keys are derived on every save, there is nothing to backfill.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public LoginKeysBackfillResult backfillLoginKeys(int batchSize) {
+        return new LoginKeysBackfillResult(0, 0);
+    }
+
+    /**
+     * The login keys of users which are not deleted are unique in memory as well.
+     */
+    @Override
+    public boolean hasUniqueLoginKeysIndex() {
+        return true;
+    }
+
+    private Optional<User> findLive(String loginKey) {
+        ObjectId id = loginKeys.get(loginKey);
+        return id == null ? Optional.empty() : Optional.ofNullable(documents.get(id));
+    }
+
+    /**
+     * Deleted users are not indexed and looked up by a scan, like on MongoDB they are only looked up
+     * on a miss of the users which are not deleted.
+     */
+    private Optional<User> findStored(String loginKey) {
+        return findLive(loginKey).or(() -> documents.values().stream()
+                .filter(user -> user.getLoginKeys().contains(loginKey))
+                .max(Comparator.comparing(User::getDeletedAt)));
+    }
+
+    private static List<String> indexed(User user) {
+        return user.getDeletedAt() == null ? user.getLoginKeys() : List.of();
+    }
+
+    @Override
+    protected ObjectId getId(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected void setId(User user, ObjectId id) {
+        user.setId(id);
+    }
+
+    @Override
+    protected User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setPassword(user.getPassword());
+        copy.setEmail(user.getEmail());
+        copy.setEnabled(user.getEnabled());
+        copy.setScopes(user.getScopes() == null ? null : new ArrayList<>(user.getScopes()));
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        copy.setDeletedAt(user.getDeletedAt());
+        copy.setLoginKeys(user.getLoginKeys() == null ? null : List.copyOf(user.getLoginKeys()));
+        return copy;
+    }
+
+    private static AuthPrincipal toAuthPrincipal(User user) {
+        return new AuthPrincipal(user.getId(), user.getUsername(), user.getPassword(), user.getEnabled(), user.getScopes(), user.getDeletedAt());
+    }
+
+    private static UserPrincipal toUserPrincipal(User user) {
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getEnabled(), user.getScopes(), user.getDeletedAt());
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.InMemoryStoreConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Creates the {@link InMemoryStoreConfig#getSeedUsers() seed users} before the server accepts
+ * requests. The password is hashed once and shared by all of them, so seeding is fast whatever the
+ * hashing cost; logins still verify the hash as usual.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Component
+@Profile(InMemoryRepository.PROFILE)
+@RequiredArgsConstructor
+@Slf4j
+class InMemoryUserSeeder implements SmartInitializingSingleton {
+
+    private final InMemoryUserRepository userRepository;
+    private final InMemoryStoreConfig inMemoryStoreConfig;
+    private final PasswordEncoder passwordEncoder;
+    private final Clock clock;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int count = inMemoryStoreConfig.getSeedUsers();
+        if (count <= 0) {
+            return;
+        }
+
+        String password = passwordEncoder.encode(inMemoryStoreConfig.getSeedPassword());
+        Instant now = clock.instant();
+        for (int i = 0; i < count; i++) {
+            String username = inMemoryStoreConfig.getUsernamePrefix() + i;
+
+            User user = new User();
+            user.setUsername(username);
+            user.setEmail(username + "@" + inMemoryStoreConfig.getEmailDomain());
+            user.setPassword(password);
+            user.setEnabled(true);
+            user.setScopes(List.of(User.Scope.USER));
+            user.setCreatedAt(now);
+            user.setUpdatedAt(now);
+            userRepository.save(user);
+        }
+
+        log.info("Seeded {} in-memory users", count);
+    }
+}
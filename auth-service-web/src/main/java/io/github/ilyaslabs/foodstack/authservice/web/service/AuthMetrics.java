@@ -0,0 +1,128 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Observes the stages of {@code /authenticate} and {@code /refresh} and counts their outcomes.
+ * <p>
+ * Each stage is an {@link Observation} named {@value #STAGE_OBSERVATION}, tagged with the
+ * {@code operation} and the {@code stage}. It is recorded as a timer of the same name with a
+ * percentile histogram, and becomes a span below the HTTP request's span when tracing is set up.
+ * Outcomes are counted as {@code auth.requests}, tagged with the {@code operation} and the
+ * {@code outcome}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+public class AuthMetrics {
+
+    public static final String STAGE_OBSERVATION = "auth.stage";
+
+    private final ObservationRegistry observationRegistry;
+    private final Map<Operation, Map<Outcome, Counter>> outcomes = new EnumMap<>(Operation.class);
+
+    public AuthMetrics(ObjectProvider<ObservationRegistry> observationRegistry, MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP);
+
+        for (Operation operation : Operation.values()) {
+            Map<Outcome, Counter> counters = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                counters.put(outcome, Counter.builder("auth.requests")
+                        .description("Outcomes of authentication and refresh requests")
+                        .tag("operation", operation.tag)
+                        .tag("outcome", outcome.tag)
+                        .register(meterRegistry));
+            }
+            outcomes.put(operation, counters);
+        }
+    }
+
+    /**
+     * Runs a stage within its observation.
+     *
+     * @param operation operation the stage belongs to
+     * @param stage     the stage
+     * @param supplier  the stage's work
+     * @return the result of the stage
+     */
+    public <T> T observe(Operation operation, Stage stage, Supplier<T> supplier) {
+        return observation(operation, stage).observe(supplier);
+    }
+
+    /**
+     * Starts the observation of a stage whose work completes on another thread, the caller stops it.
+     *
+     * @param operation operation the stage belongs to
+     * @param stage     the stage
+     * @return the started observation
+     * @see ReactiveAuthMetrics
+     */
+    public Observation start(Operation operation, Stage stage) {
+        return observation(operation, stage).start();
+    }
+
+    /**
+     * @param operation the operation
+     * @param outcome   its outcome
+     */
+    public void outcome(Operation operation, Outcome outcome) {
+        outcomes.get(operation).get(outcome).increment();
+    }
+
+    private Observation observation(Operation operation, Stage stage) {
+        return Observation.createNotStarted(STAGE_OBSERVATION, observationRegistry)
+                .contextualName(operation.tag + " " + stage.tag)
+                .lowCardinalityKeyValue("operation", operation.tag)
+                .lowCardinalityKeyValue("stage", stage.tag);
+    }
+
+    public enum Operation {
+        AUTHENTICATE, REFRESH;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Stage {
+        /**
+         * finding the user
+         */
+        LOOKUP,
+        /**
+         * verifying the password, including the wait for a hashing thread
+         */
+        VERIFY,
+        /**
+         * signing the tokens and building the response
+         */
+        SIGN,
+        /**
+         * storing the refresh token family
+         */
+        PERSIST;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Outcome {
+        SUCCESS,
+        NOT_FOUND,
+        BAD_PASSWORD,
+        DISABLED,
+        /**
+         * refresh token invalid, revoked or used before
+         */
+        REJECTED;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+}
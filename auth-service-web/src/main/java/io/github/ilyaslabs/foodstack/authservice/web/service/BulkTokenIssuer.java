@@ -0,0 +1,131 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.BulkTokenResult;
+import io.github.ilyaslabs.foodstack.authservice.web.config.BulkTokenConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Mints tokens for many users at once, for internal batch jobs.
+ * <p>
+ * Users are read with a single {@code $in} query and their tokens are signed in parallel. At most
+ * two tasks per signing thread are in flight for a request, so a large request does not queue
+ * its whole batch up front. Every minted refresh token starts its own {@link RefreshTokenFamilies family}.
+ * <p>
+ * With {@code spring.threads.virtual.enabled} each task runs on its own virtual thread, so the
+ * insert of a token family does not hold a platform thread. The window still bounds how many
+ * tokens are signed at once.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@Slf4j
+public class BulkTokenIssuer {
+
+    private final UserRepository userRepository;
+    private final RefreshTokenFamilies refreshTokenFamilies;
+    private final ExecutorService executor;
+    private final int window;
+
+    public BulkTokenIssuer(UserRepository userRepository, RefreshTokenFamilies refreshTokenFamilies, BulkTokenConfig bulkTokenConfig, Environment environment) {
+        this.userRepository = userRepository;
+        this.refreshTokenFamilies = refreshTokenFamilies;
+        this.executor = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("token-signing-", 1).factory())
+                : Executors.newFixedThreadPool(bulkTokenConfig.getThreads(), Thread.ofPlatform().name("token-signing-", 1).daemon().factory());
+        this.window = bulkTokenConfig.getThreads() * 2;
+    }
+
+    /**
+     * Mints tokens for the given users. Each result is passed to the consumer on the calling
+     * thread as soon as it is available, so results are not in request order.
+     *
+     * @param userIds  ids of the users, duplicates are ignored
+     * @param consumer receives one result per distinct user id
+     */
+    public void issue(Collection<String> userIds, Consumer<BulkTokenResult> consumer) {
+        Map<ObjectId, String> ids = new LinkedHashMap<>();
+        userIds.stream().distinct().forEach(userId -> {
+            if (userId != null && ObjectId.isValid(userId)) {
+                ids.put(new ObjectId(userId), userId);
+            } else {
+                consumer.accept(error(userId, "Invalid user id"));
+            }
+        });
+
+        Map<ObjectId, UserPrincipal> users = new LinkedHashMap<>();
+        userRepository.findPrincipalsByIdIn(ids.keySet()).forEach(user -> users.put(user.id(), user));
+
+        ids.forEach((id, userId) -> {
+            if (!users.containsKey(id)) {
+                consumer.accept(error(userId, "User not found"));
+            }
+        });
+
+        CompletionService<BulkTokenResult> completionService = new ExecutorCompletionService<>(executor);
+        Iterator<UserPrincipal> pending = users.values().iterator();
+        int submitted = 0;
+        int completed = 0;
+
+        while (completed < users.size()) {
+            while (pending.hasNext() && submitted - completed < window) {
+                UserPrincipal user = pending.next();
+                completionService.submit(() -> issue(user));
+                submitted++;
+            }
+
+            consumer.accept(take(completionService));
+            completed++;
+        }
+    }
+
+    private BulkTokenResult issue(UserPrincipal user) {
+        String userId = user.id().toHexString();
+        try {
+            return new BulkTokenResult().setUserId(userId).setResponse(refreshTokenFamilies.issue(user));
+        } catch (HttpResponseException e) {
+            return error(userId, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Failed to mint tokens for user {}", userId, e);
+            return error(userId, "Token signing failed");
+        }
+    }
+
+    private static BulkTokenResult take(CompletionService<BulkTokenResult> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while minting tokens", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Token minting failed", e.getCause());
+        }
+    }
+
+    private static BulkTokenResult error(String userId, String error) {
+        return new BulkTokenResult().setUserId(userId).setError(error);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
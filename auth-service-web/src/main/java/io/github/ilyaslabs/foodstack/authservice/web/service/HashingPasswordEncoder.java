@@ -0,0 +1,172 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * {@link PasswordEncoder} which encodes new passwords with one configured algorithm and verifies
+ * hashes of every supported algorithm.
+ * <p>
+ * Hashes are stored as {@code {id}hash}. BCrypt and Argon2 carry their cost parameters inside the
+ * hash, PBKDF2 does not, so its iteration count is part of the id ({@code {pbkdf2-310000}}) and its
+ * salt length is derived from the length of the hash. Hashes without an id are legacy BCrypt hashes.
+ * <p>
+ * {@link #upgradeEncoding(String)} reports hashes of another algorithm and hashes with a lower work
+ * factor than the current one. Instances calibrated to different work factors therefore leave each
+ * other's hashes alone instead of rewriting them on every login, and never weaken them. Legacy
+ * BCrypt hashes count as BCrypt, so hashes written by other writers of {@code users} keep their
+ * format unless their strength is below the configured one.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public class HashingPasswordEncoder implements PasswordEncoder {
+
+    static final String BCRYPT_ID = "bcrypt";
+    static final String ARGON2_ID = "argon2";
+    static final String PBKDF2_ID_PREFIX = "pbkdf2-";
+
+    // bytes of the PBKDF2 hash following the salt, the default hash width of Pbkdf2PasswordEncoder
+    private static final int PBKDF2_HASH_LENGTH = 32;
+
+    // version and cost of a BCrypt hash, the rest is checked by BCryptPasswordEncoder
+    private static final Pattern LEGACY_BCRYPT = Pattern.compile("\\$2[aby]?\\$\\d\\d\\$.*");
+
+    private static final String ID_PREFIX = "{";
+    private static final String ID_SUFFIX = "}";
+
+    private final String idForEncode;
+    private final PasswordEncoder encoderForEncode;
+
+    // verification reads the cost parameters from the hash itself
+    private final PasswordEncoder bcryptMatcher = new BCryptPasswordEncoder();
+    private final PasswordEncoder argon2Matcher = Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+
+    // keyed by iterations and salt length
+    private final Map<String, PasswordEncoder> pbkdf2Matchers = new ConcurrentHashMap<>();
+
+    private HashingPasswordEncoder(String idForEncode, PasswordEncoder encoderForEncode) {
+        this.idForEncode = idForEncode;
+        this.encoderForEncode = encoderForEncode;
+    }
+
+    public static HashingPasswordEncoder bcrypt(int strength) {
+        return new HashingPasswordEncoder(BCRYPT_ID, new BCryptPasswordEncoder(strength));
+    }
+
+    public static HashingPasswordEncoder argon2(int saltLength, int hashLength, int parallelism, int memory, int iterations) {
+        return new HashingPasswordEncoder(
+                ARGON2_ID,
+                new Argon2PasswordEncoder(saltLength, hashLength, parallelism, memory, iterations)
+        );
+    }
+
+    public static HashingPasswordEncoder pbkdf2(int saltLength, int iterations) {
+        return new HashingPasswordEncoder(PBKDF2_ID_PREFIX + iterations, pbkdf2Encoder(saltLength, iterations));
+    }
+
+    /**
+     * @return the id prefixed to hashes produced by this encoder, e.g. {@code bcrypt}
+     */
+    public String getIdForEncode() {
+        return idForEncode;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ID_PREFIX + idForEncode + ID_SUFFIX + encoderForEncode.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+
+        String id = extractId(encodedPassword);
+        if (id == null) {
+            return bcryptMatcher.matches(rawPassword, encodedPassword);
+        }
+
+        String hash = extractHash(id, encodedPassword);
+        PasswordEncoder matcher = matcherFor(id, hash);
+        return matcher != null && matcher.matches(rawPassword, hash);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+
+        String id = extractId(encodedPassword);
+        if (id == null && BCRYPT_ID.equals(idForEncode) && LEGACY_BCRYPT.matcher(encodedPassword).matches()) {
+            return encoderForEncode.upgradeEncoding(encodedPassword);
+        }
+        if (id != null && id.startsWith(PBKDF2_ID_PREFIX) && idForEncode.startsWith(PBKDF2_ID_PREFIX)) {
+            return pbkdf2Iterations(id) < pbkdf2Iterations(idForEncode);
+        }
+        if (!idForEncode.equals(id)) {
+            return true;
+        }
+
+        return encoderForEncode.upgradeEncoding(extractHash(id, encodedPassword));
+    }
+
+    private PasswordEncoder matcherFor(String id, String hash) {
+        if (BCRYPT_ID.equals(id)) {
+            return bcryptMatcher;
+        }
+        if (ARGON2_ID.equals(id)) {
+            return argon2Matcher;
+        }
+        if (id.startsWith(PBKDF2_ID_PREFIX)) {
+            return pbkdf2Matcher(pbkdf2Iterations(id), hash);
+        }
+        return null;
+    }
+
+    /**
+     * The hash is the hex encoded salt followed by the hash, so the salt length follows from its
+     * length and hashes keep verifying when {@code auth.hashing.pbkdf2.salt-length} changes.
+     */
+    private PasswordEncoder pbkdf2Matcher(int iterations, String hash) {
+        int saltLength = hash.length() / 2 - PBKDF2_HASH_LENGTH;
+        if (iterations <= 0 || saltLength <= 0) {
+            return null;
+        }
+        return pbkdf2Matchers.computeIfAbsent(iterations + "/" + saltLength, key -> pbkdf2Encoder(saltLength, iterations));
+    }
+
+    /**
+     * @return iterations of a PBKDF2 id, {@code -1} if the id is malformed
+     */
+    private static int pbkdf2Iterations(String id) {
+        try {
+            return Integer.parseInt(id.substring(PBKDF2_ID_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static PasswordEncoder pbkdf2Encoder(int saltLength, int iterations) {
+        return new Pbkdf2PasswordEncoder("", saltLength, iterations, Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    private static String extractId(String encodedPassword) {
+        if (!encodedPassword.startsWith(ID_PREFIX)) {
+            return null;
+        }
+        int end = encodedPassword.indexOf(ID_SUFFIX);
+        return end < 0 ? null : encodedPassword.substring(ID_PREFIX.length(), end);
+    }
+
+    private static String extractHash(String id, String encodedPassword) {
+        return encodedPassword.substring(id.length() + ID_PREFIX.length() + ID_SUFFIX.length());
+    }
+}
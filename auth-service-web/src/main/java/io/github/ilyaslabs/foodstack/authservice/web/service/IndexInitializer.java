@@ -0,0 +1,73 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.IndexConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.RefreshTokenFamilyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies the index migrations of the {@code users} collection, see {@link IndexMigrator}, and
+ * creates the indexes of the {@code refreshTokenFamilies} collection, by default in the background
+ * so they do not delay startup, see {@link IndexConfig}.
+ * <p>
+ * The {@link LoginKeysBackfill} runs after the migrations on the same thread, once the unique index
+ * on the login keys exists and reports the users whose login keys collide. If the indexes can not
+ * be created in the background, e.g. because users share a login key, the application refuses
+ * traffic, as logins can not rely on unique login keys.
+ * <p>
+ * Indexes are created here rather than by {@code spring.data.mongodb.auto-index-creation}, which
+ * creates them while the mapping context initializes and should stay disabled.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class IndexInitializer implements ApplicationRunner {
+
+    private final ObjectProvider<IndexMigrator> indexMigrator;
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final IndexConfig indexConfig;
+    private final LoginKeysBackfill loginKeysBackfill;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        switch (indexConfig.getCreation()) {
+            case STARTUP -> {
+                ensureIndexes();
+                loginKeysBackfill.run();
+            }
+            case BACKGROUND -> Thread.ofPlatform().name("index-initializer").daemon().start(() -> {
+                try {
+                    ensureIndexes();
+                    loginKeysBackfill.run();
+                } catch (RuntimeException e) {
+                    log.error("Index creation failed, refusing traffic", e);
+                    AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+                }
+            });
+            case NONE -> {
+                log.info("Index creation is disabled");
+                loginKeysBackfill.run();
+            }
+        }
+    }
+
+    private void ensureIndexes() {
+        long start = System.nanoTime();
+        indexMigrator.ifAvailable(IndexMigrator::migrate);
+        refreshTokenFamilyRepository.ensureIndexes();
+        log.info("Ensured indexes in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.IndexConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.AppliedIndexMigration;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.IndexMigrationLease;
+import io.github.ilyaslabs.foodstack.authservice.web.db.migration.IndexMigration;
+import io.github.ilyaslabs.foodstack.authservice.web.db.migration.UserIndexMigrations;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory.InMemoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Applies the {@link IndexMigration}s which have not been applied yet, in the order of their
+ * versions, and records each one in the {@code indexMigrations} collection once applied.
+ * <p>
+ * A failing migration stops the migration, the following ones are not applied before it succeeds
+ * on a later run.
+ * <p>
+ * Instances starting together migrate one after another: each holds an {@link IndexMigrationLease}
+ * while it migrates, and the others wait for it and then find the migrations applied. The lease
+ * expires after {@code auth.indexes.migration-lease} unless renewed, so an instance stopping while
+ * migrating does not block the others; a migration outlasting the lease may then run concurrently,
+ * which it tolerates, see {@link IndexMigration}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@Profile("!" + InMemoryRepository.PROFILE)
+@Slf4j
+public class IndexMigrator {
+
+    // interval at which a waiting instance tries to take the lease
+    private static final Duration LEASE_POLL_INTERVAL = Duration.ofSeconds(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final Clock clock;
+    private final IndexConfig indexConfig;
+    private final List<IndexMigration> migrations;
+
+    @Autowired
+    public IndexMigrator(MongoTemplate mongoTemplate, Clock clock, IndexConfig indexConfig) {
+        this(mongoTemplate, clock, indexConfig, UserIndexMigrations.MIGRATIONS);
+    }
+
+    IndexMigrator(MongoTemplate mongoTemplate, Clock clock, IndexConfig indexConfig, List<IndexMigration> migrations) {
+        this.mongoTemplate = mongoTemplate;
+        this.clock = clock;
+        this.indexConfig = indexConfig;
+        this.migrations = migrations.stream().sorted(Comparator.comparingInt(IndexMigration::version)).toList();
+    }
+
+    /**
+     * Waits for the lease held by another instance, if any, and applies the migrations.
+     *
+     * @return number of migrations applied
+     */
+    public int migrate() {
+        String owner = UUID.randomUUID().toString();
+        awaitLease(owner);
+        try {
+            return migrate(owner);
+        } finally {
+            mongoTemplate.remove(leaseQuery().addCriteria(Criteria.where("owner").is(owner)), IndexMigrationLease.class);
+        }
+    }
+
+    private int migrate(String owner) {
+        // the applied migrations are the records with a version as id
+        Set<Integer> applied = mongoTemplate.find(Query.query(Criteria.where("appliedAt").exists(true)), AppliedIndexMigration.class).stream()
+                .map(AppliedIndexMigration::getVersion)
+                .collect(Collectors.toSet());
+
+        int count = 0;
+        for (IndexMigration migration : migrations) {
+            if (applied.contains(migration.version())) {
+                continue;
+            }
+
+            if (!tryLease(owner)) {
+                throw new IllegalStateException("Lease on the index migrations was taken over by another instance");
+            }
+            log.info("Applying index migration {}: {}", migration.version(), migration.description());
+            long start = System.nanoTime();
+            migration.apply(mongoTemplate);
+
+            AppliedIndexMigration record = new AppliedIndexMigration();
+            record.setVersion(migration.version());
+            record.setDescription(migration.description());
+            record.setAppliedAt(clock.instant());
+            record.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+            mongoTemplate.save(record);
+            log.info("Applied index migration {} in {} ms", migration.version(), record.getDurationMillis());
+            count++;
+        }
+        return count;
+    }
+
+    private void awaitLease(String owner) {
+        boolean logged = false;
+        while (!tryLease(owner)) {
+            if (!logged) {
+                log.info("Waiting for the index migrations of another instance");
+                logged = true;
+            }
+            try {
+                Thread.sleep(LEASE_POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the index migrations of another instance", e);
+            }
+        }
+    }
+
+    /**
+     * Takes the lease if it is free or expired, or renews it if held by the owner.
+     *
+     * @return {@code true} if the owner holds the lease
+     */
+    private boolean tryLease(String owner) {
+        Instant now = clock.instant();
+        Query query = leaseQuery().addCriteria(new Criteria().orOperator(
+                Criteria.where("owner").is(owner),
+                Criteria.where("expiresAt").lt(now)
+        ));
+        Update update = Update.update("owner", owner).set("expiresAt", now.plus(indexConfig.getMigrationLease()));
+        try {
+            mongoTemplate.upsert(query, update, IndexMigrationLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // the lease exists and is held by another instance, the upsert tried to insert it again
+            return false;
+        }
+    }
+
+    private static Query leaseQuery() {
+        return Query.query(Criteria.where("_id").is(IndexMigrationLease.ID));
+    }
+}
@@ -0,0 +1,173 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import io.github.ilyaslabs.foodstack.authservice.web.config.LoginCoalescingConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.AuthPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Lets identical login requests share one user lookup and password verification.
+ * <p>
+ * Only the verified user is shared, each request issues its tokens on its own. Tokens handed to
+ * two clients would share one refresh token family, and the second client to refresh would be
+ * taken for a reuse of the rotated token, revoking the family for both.
+ * <p>
+ * Requests are identical when they have the same login key and the same credential fingerprint,
+ * an HMAC of the password with a key generated per instance, so raw passwords are never kept.
+ * The first request verifies on its own thread, identical requests arriving meanwhile wait for
+ * its result. A successful verification is kept for {@code auth.login-coalescing.window} after
+ * it completed to also absorb retries arriving shortly after; failures are only shared with the
+ * requests that were already waiting.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+public class LoginCoalescer {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final LoginCoalescingConfig loginCoalescingConfig;
+    private final Executor expiryExecutor;
+    private final SecretKeySpec fingerprintKey;
+    private final ConcurrentMap<Key, CompletableFuture<AuthPrincipal>> logins = new ConcurrentHashMap<>();
+    private final Counter coalescedCounter;
+
+    public LoginCoalescer(LoginCoalescingConfig loginCoalescingConfig, MeterRegistry meterRegistry) {
+        this.loginCoalescingConfig = loginCoalescingConfig;
+        this.expiryExecutor = CompletableFuture.delayedExecutor(loginCoalescingConfig.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.fingerprintKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+
+        this.coalescedCounter = Counter.builder("auth.login.coalesced")
+                .description("Login requests sharing the verification of an identical request")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param request login request
+     * @param verify  looks up the user and verifies the password, called unless an identical request is in flight or completed within the window
+     * @return the user verified by this or an identical request
+     */
+    public AuthPrincipal coalesce(AuthRequest request, Supplier<AuthPrincipal> verify) {
+        Key key = key(request);
+        if (key == null) {
+            return verify.get();
+        }
+
+        CompletableFuture<AuthPrincipal> created = new CompletableFuture<>();
+        CompletableFuture<AuthPrincipal> existing = logins.putIfAbsent(key, created);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return join(existing);
+        }
+
+        try {
+            AuthPrincipal user = verify.get();
+            complete(key, created, user, null);
+            return user;
+        } catch (RuntimeException | Error e) {
+            complete(key, created, null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #coalesce(AuthRequest, Supplier)}. Each caller gets its own
+     * future, so a caller going away does not cancel the verification identical requests may still wait for.
+     *
+     * @param request login request
+     * @param verify  starts the lookup and verification, called unless an identical request is in flight or completed within the window
+     * @return future of the user verified by this or an identical request
+     */
+    public CompletableFuture<AuthPrincipal> coalesceAsync(AuthRequest request, Supplier<CompletableFuture<AuthPrincipal>> verify) {
+        Key key = key(request);
+        if (key == null) {
+            return verify.get();
+        }
+
+        CompletableFuture<AuthPrincipal> created = new CompletableFuture<>();
+        CompletableFuture<AuthPrincipal> existing = logins.putIfAbsent(key, created);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return existing.copy();
+        }
+
+        try {
+            verify.get().whenComplete((user, error) -> complete(key, created, user, error));
+        } catch (RuntimeException | Error e) {
+            complete(key, created, null, e);
+        }
+        return created.copy();
+    }
+
+    private void complete(Key key, CompletableFuture<AuthPrincipal> future, AuthPrincipal user, Throwable error) {
+        if (future.isDone()) {
+            return;
+        }
+
+        if (error != null || user == null || loginCoalescingConfig.getWindow().isZero()) {
+            logins.remove(key, future);
+        } else {
+            expiryExecutor.execute(() -> logins.remove(key, future));
+        }
+
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(user);
+        }
+    }
+
+    private Key key(AuthRequest request) {
+        if (!loginCoalescingConfig.isEnabled() || request.getPassword() == null) {
+            return null;
+        }
+
+        String loginKey = User.toLoginKey(request.getUsername());
+        if (loginKey == null) {
+            return null;
+        }
+
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(fingerprintKey);
+            byte[] fingerprint = mac.doFinal(request.getPassword().getBytes(StandardCharsets.UTF_8));
+            return new Key(loginKey, Base64.getEncoder().encodeToString(fingerprint));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static AuthPrincipal join(CompletableFuture<AuthPrincipal> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(String loginKey, String fingerprint) {
+    }
+}
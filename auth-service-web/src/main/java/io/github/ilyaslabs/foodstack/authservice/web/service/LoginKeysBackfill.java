@@ -0,0 +1,45 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.LoginKeysConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepositoryCustom.LoginKeysBackfillResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Derives login keys of users stored before the {@code loginKeys} field existed.
+ * <p>
+ * The backfill runs once at startup, after the index migrations, see {@link IndexInitializer}.
+ * Only the unique index detects users whose login keys collide; those users, and users stored
+ * without login keys by another writer later on, are found by the username/email fallback of the
+ * login until the next backfill.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoginKeysBackfill {
+
+    private final UserRepository userRepository;
+    private final LoginKeysConfig loginKeysConfig;
+
+    /**
+     * Derives the missing login keys, unless disabled by {@code auth.login-keys.backfill-on-startup}.
+     */
+    void run() {
+        boolean unique = userRepository.hasUniqueLoginKeysIndex();
+        if (!unique) {
+            log.warn("No unique index on the login keys, users sharing a login key are not detected");
+        }
+
+        if (!loginKeysConfig.isBackfillOnStartup()) {
+            return;
+        }
+
+        log.info("Backfilling login keys");
+        LoginKeysBackfillResult result = userRepository.backfillLoginKeys(loginKeysConfig.getBackfillBatchSize());
+        log.info("Backfilled login keys of {} users, {} conflicts", result.updated(), result.conflicted());
+    }
+}
@@ -0,0 +1,252 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.RateLimitConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Limits login attempts before any database or hashing work is done.
+ * <p>
+ * Every username and client address has a token bucket, an attempt takes a token and buckets
+ * refill over time. A username failing to log in {@code failureThreshold} times in a row is locked
+ * out, for longer with every further failure, until a login succeeds or the failures are old enough.
+ * The configured service principals are limited by a larger bucket of their own instead of the
+ * username stripes.
+ * <p>
+ * State is kept in fixed size arrays indexed by a seeded hash of the key, one {@code long} per
+ * bucket and lockout, and updated with compare-and-set. Memory is bounded regardless of the number
+ * of keys, keys sharing a stripe share its limits.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@Slf4j
+public class LoginRateLimiter {
+
+    /**
+     * a state packs the time in milliseconds since startup into the high bits and a count into the low ones
+     */
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    /**
+     * tokens are counted in thousandths, so partial refills are kept
+     */
+    private static final long TOKEN = 1_000;
+
+    private final RateLimitConfig rateLimitConfig;
+    private final Clock clock;
+    private final long startMillis;
+    private final int seed = new SecureRandom().nextInt();
+    private final int mask;
+
+    private final AtomicLongArray usernameBuckets;
+    private final AtomicLongArray addressBuckets;
+    private final AtomicLongArray usernameFailures;
+
+    // login key of each service principal to its bucket
+    private final Map<String, Integer> servicePrincipals;
+    private final AtomicLongArray serviceBuckets;
+
+    private final Counter lockedOutCounter;
+    private final Counter usernameLimitedCounter;
+    private final Counter addressLimitedCounter;
+    private final Counter lockoutCounter;
+
+    public LoginRateLimiter(RateLimitConfig rateLimitConfig, Clock clock, MeterRegistry meterRegistry) {
+        this.rateLimitConfig = rateLimitConfig;
+        this.clock = clock;
+        // time 0 marks an unused state
+        this.startMillis = clock.millis() - 1;
+
+        int stripes = Integer.highestOneBit(Math.max(1, rateLimitConfig.getStripes() - 1)) << 1;
+        this.mask = stripes - 1;
+        this.usernameBuckets = new AtomicLongArray(stripes);
+        this.addressBuckets = new AtomicLongArray(stripes);
+        this.usernameFailures = new AtomicLongArray(stripes);
+
+        Map<String, Integer> servicePrincipals = new HashMap<>();
+        for (String principal : rateLimitConfig.getServicePrincipals()) {
+            String loginKey = User.toLoginKey(principal);
+            if (loginKey != null) {
+                servicePrincipals.putIfAbsent(loginKey, servicePrincipals.size());
+            }
+        }
+        this.servicePrincipals = Map.copyOf(servicePrincipals);
+        this.serviceBuckets = new AtomicLongArray(Math.max(1, servicePrincipals.size()));
+
+        this.lockedOutCounter = rejectedCounter(meterRegistry, "lockout");
+        this.usernameLimitedCounter = rejectedCounter(meterRegistry, "username");
+        this.addressLimitedCounter = rejectedCounter(meterRegistry, "address");
+        this.lockoutCounter = Counter.builder("auth.rate-limit.lockouts")
+                .description("Failed logins locking out their username")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes an attempt from the buckets of the username and the address.
+     *
+     * @param username username or email of the login
+     * @param address  client address, {@code null} if unknown
+     * @throws HttpResponseException with status 429 if the username is locked out or a bucket is empty
+     */
+    public void acquire(String username, String address) {
+        if (!rateLimitConfig.isEnabled()) {
+            return;
+        }
+
+        long now = now();
+        String loginKey = User.toLoginKey(username);
+
+        if (loginKey != null && isLockedOut(usernameFailures.get(index(loginKey)), now)) {
+            lockedOutCounter.increment();
+            throw tooManyRequests();
+        }
+        if (address != null && !tryConsume(addressBuckets, index(address), rateLimitConfig.getAddress(), now)) {
+            addressLimitedCounter.increment();
+            throw tooManyRequests();
+        }
+        if (loginKey == null) {
+            return;
+        }
+
+        Integer serviceIndex = servicePrincipals.get(loginKey);
+        boolean acquired = serviceIndex != null
+                ? tryConsume(serviceBuckets, serviceIndex, rateLimitConfig.getServiceUsername(), now)
+                : tryConsume(usernameBuckets, index(loginKey), rateLimitConfig.getUsername(), now);
+        if (!acquired) {
+            usernameLimitedCounter.increment();
+            throw tooManyRequests();
+        }
+    }
+
+    /**
+     * Counts a failed login of the username, locking it out once the threshold is reached.
+     */
+    public void onFailure(String username) {
+        String loginKey = User.toLoginKey(username);
+        if (!rateLimitConfig.isEnabled() || loginKey == null) {
+            return;
+        }
+
+        int index = index(loginKey);
+        long now = now();
+        long resetAfter = rateLimitConfig.getLockout().getResetAfter().toMillis();
+
+        while (true) {
+            long state = usernameFailures.get(index);
+            long failures = state != 0 && now - time(state) < resetAfter ? count(state) : 0;
+            long next = pack(now, Math.min(failures + 1, COUNT_MASK));
+            if (usernameFailures.compareAndSet(index, state, next)) {
+                if (failures + 1 >= rateLimitConfig.getLockout().getFailureThreshold()) {
+                    lockoutCounter.increment();
+                    log.warn("Locking out {} after {} consecutive failed logins", loginKey, failures + 1);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forgets the failed logins of the username.
+     */
+    public void onSuccess(String username) {
+        String loginKey = User.toLoginKey(username);
+        if (!rateLimitConfig.isEnabled() || loginKey == null) {
+            return;
+        }
+
+        int index = index(loginKey);
+        if (usernameFailures.get(index) != 0) {
+            usernameFailures.set(index, 0);
+        }
+    }
+
+    private boolean isLockedOut(long state, long now) {
+        RateLimitConfig.Lockout lockout = rateLimitConfig.getLockout();
+        long failures = count(state);
+        if (state == 0 || failures < lockout.getFailureThreshold()) {
+            return false;
+        }
+
+        long elapsed = now - time(state);
+        if (elapsed >= lockout.getResetAfter().toMillis()) {
+            return false;
+        }
+
+        // doubled with every failure beyond the threshold
+        int doublings = (int) Math.min(failures - lockout.getFailureThreshold(), 30);
+        long duration = Math.min(lockout.getInitialDuration().toMillis() << doublings, lockout.getMaxDuration().toMillis());
+        return elapsed < duration;
+    }
+
+    private static boolean tryConsume(AtomicLongArray buckets, int index, RateLimitConfig.Bucket bucket, long now) {
+        long capacity = bucket.getCapacity() * TOKEN;
+        long refillPeriod = Math.max(1, bucket.getRefillPeriod().toMillis());
+
+        while (true) {
+            long state = buckets.get(index);
+            long tokens = capacity;
+            if (state != 0) {
+                long elapsed = Math.max(0, now - time(state));
+                tokens = Math.min(capacity, count(state) + elapsed * TOKEN / refillPeriod);
+            }
+
+            if (tokens < TOKEN) {
+                return false;
+            }
+            if (buckets.compareAndSet(index, state, pack(now, tokens - TOKEN))) {
+                return true;
+            }
+        }
+    }
+
+    private int index(String key) {
+        // murmur3 finalizer, spreads the seeded hash code over all stripes
+        int h = key.hashCode() ^ seed;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private long now() {
+        return clock.millis() - startMillis;
+    }
+
+    private static long pack(long time, long count) {
+        return time << COUNT_BITS | count;
+    }
+
+    private static long time(long state) {
+        return state >>> COUNT_BITS;
+    }
+
+    private static long count(long state) {
+        return state & COUNT_MASK;
+    }
+
+    private static HttpResponseException tooManyRequests() {
+        return HttpResponseException.of(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts", Map.of());
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("auth.rate-limit.rejected")
+                .description("Login attempts rejected before verification")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
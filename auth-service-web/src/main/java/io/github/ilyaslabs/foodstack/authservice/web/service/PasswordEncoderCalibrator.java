@@ -0,0 +1,133 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.HashingConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Creates the {@link HashingPasswordEncoder} for the configured algorithm, optionally raising its
+ * work factor until a single verification takes about the configured target latency.
+ * <p>
+ * The configured cost parameters are treated as a floor, calibration never weakens them.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Slf4j
+public class PasswordEncoderCalibrator {
+
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private final HashingConfig hashingConfig;
+
+    public PasswordEncoderCalibrator(HashingConfig hashingConfig) {
+        this.hashingConfig = hashingConfig;
+    }
+
+    /**
+     * @return password encoder for the configured algorithm, calibrated if enabled
+     */
+    public HashingPasswordEncoder createEncoder() {
+        HashingConfig.Calibration calibration = hashingConfig.getCalibration();
+
+        HashingPasswordEncoder encoder = switch (hashingConfig.getAlgorithm()) {
+            case BCRYPT -> calibration.isEnabled() ? calibrateBCrypt() : HashingPasswordEncoder.bcrypt(hashingConfig.getBcrypt().getStrength());
+            case ARGON2 -> argon2(calibration.isEnabled() ? calibrateArgon2() : hashingConfig.getArgon2().getIterations());
+            case PBKDF2 -> pbkdf2(calibration.isEnabled() ? calibratePbkdf2() : hashingConfig.getPbkdf2().getIterations());
+        };
+
+        log.info("Password hashing uses {} (calibrated: {})", encoder.getIdForEncode(), calibration.isEnabled());
+        return encoder;
+    }
+
+    /**
+     * BCrypt cost doubles with every step, so pick the highest strength whose next step would
+     * exceed the target latency.
+     */
+    private HashingPasswordEncoder calibrateBCrypt() {
+        long target = targetNanos();
+        int strength = hashingConfig.getBcrypt().getStrength();
+
+        HashingPasswordEncoder encoder = HashingPasswordEncoder.bcrypt(strength);
+        long latency = measure(encoder);
+        while (strength < MAX_BCRYPT_STRENGTH && latency * 2 <= target) {
+            strength++;
+            encoder = HashingPasswordEncoder.bcrypt(strength);
+            latency = measure(encoder);
+        }
+
+        logCalibration("bcrypt strength", strength, latency);
+        return encoder;
+    }
+
+    /**
+     * Argon2 cost grows linearly with the number of passes.
+     */
+    private int calibrateArgon2() {
+        int minimum = hashingConfig.getArgon2().getIterations();
+        long latency = measure(argon2(minimum));
+        int iterations = scale(minimum, latency);
+
+        logCalibration("argon2 iterations", iterations, latency * iterations / minimum);
+        return iterations;
+    }
+
+    /**
+     * PBKDF2 cost grows linearly with the number of iterations.
+     */
+    private int calibratePbkdf2() {
+        int minimum = hashingConfig.getPbkdf2().getIterations();
+        long latency = measure(pbkdf2(minimum));
+        int iterations = scale(minimum, latency);
+
+        logCalibration("pbkdf2 iterations", iterations, latency * iterations / minimum);
+        return iterations;
+    }
+
+    private HashingPasswordEncoder argon2(int iterations) {
+        HashingConfig.Argon2 argon2 = hashingConfig.getArgon2();
+        return HashingPasswordEncoder.argon2(argon2.getSaltLength(), argon2.getHashLength(), argon2.getParallelism(), argon2.getMemory(), iterations);
+    }
+
+    private HashingPasswordEncoder pbkdf2(int iterations) {
+        return HashingPasswordEncoder.pbkdf2(hashingConfig.getPbkdf2().getSaltLength(), iterations);
+    }
+
+    /**
+     * Scales a linear work factor so that its latency approaches the target, never going below the minimum.
+     */
+    private int scale(int minimum, long latency) {
+        long scaled = minimum * targetNanos() / Math.max(latency, 1);
+        return Math.clamp(scaled, minimum, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return median verification latency of the encoder in nanoseconds
+     */
+    private long measure(PasswordEncoder encoder) {
+        String encoded = encoder.encode(SAMPLE_PASSWORD);
+
+        long[] samples = new long[Math.max(hashingConfig.getCalibration().getSamples(), 1)];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE_PASSWORD, encoded);
+            samples[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private long targetNanos() {
+        return hashingConfig.getCalibration().getTargetVerifyLatency().toNanos();
+    }
+
+    private void logCalibration(String parameter, int value, long latency) {
+        log.info("Calibrated {} to {}, verification takes about {} ms (target {} ms)",
+                parameter, value, Duration.ofNanos(latency).toMillis(),
+                hashingConfig.getCalibration().getTargetVerifyLatency().toMillis());
+    }
+}
@@ -0,0 +1,219 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.HashingConfig;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs CPU heavy password hashing on a dedicated, bounded executor.
+ * <p>
+ * Work is admitted only while the executor has a free thread or queue slot, otherwise the
+ * caller is rejected immediately with {@code 503 Service Unavailable}. This keeps a burst of
+ * login attempts from occupying every servlet thread, so cheap endpoints stay responsive.
+ * <p>
+ * Hashing stays on platform threads when {@code spring.threads.virtual.enabled} is set. A hash holds
+ * its thread for its whole duration, on a virtual thread it would occupy one of the few carrier
+ * threads and stall unrelated requests. The request thread only parks in {@link CompletableFuture#get}, which
+ * unmounts a virtual thread, so nothing on this path may wait while holding a monitor.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@Slf4j
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final HashingConfig hashingConfig;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+    private final Counter timeoutCounter;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, HashingConfig hashingConfig, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.hashingConfig = hashingConfig;
+
+        this.executor = new ThreadPoolExecutor(
+                hashingConfig.getThreads(),
+                hashingConfig.getThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashingConfig.getQueueCapacity()),
+                new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        Gauge.builder("auth.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Number of hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Number of hashing tasks currently running")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("auth.hashing.queue.wait")
+                .description("Time hashing tasks spend waiting for a thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.hashing.rejected")
+                .description("Hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("auth.hashing.timeout")
+                .description("Hashing tasks skipped after waiting longer than the maximum wait for a thread")
+                .register(meterRegistry);
+
+        log.info("Password hashing executor initialized with {} threads and queue capacity {}",
+                hashingConfig.getThreads(), hashingConfig.getQueueCapacity());
+    }
+
+    /**
+     * Verifies the raw password against the encoded one on the hashing executor.
+     *
+     * @param rawPassword     the password supplied by the user
+     * @param encodedPassword the stored password hash
+     * @return {@code true} if the passwords match
+     * @throws HttpResponseException with status 503 if the executor is saturated or the task waits too long for a thread
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(submit(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Checks whether the encoded password should be re-encoded with the current algorithm and parameters.
+     * This only inspects the hash and runs on the caller thread.
+     *
+     * @param encodedPassword the stored password hash
+     * @return {@code true} if the password should be re-encoded
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Encodes the raw password on the hashing executor without waiting for the result.
+     *
+     * @param rawPassword the password to encode
+     * @return future of the encoded password, failed with a 503 {@link HttpResponseException} if the
+     * executor is saturated or the task waits too long for a thread
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Verifies the raw password against the encoded one on the hashing executor without blocking
+     * the caller, for request handling on an event loop. Cancelling the future skips the hash if it
+     * has not started yet.
+     *
+     * @param rawPassword     the password supplied by the user
+     * @param encodedPassword the stored password hash
+     * @return future completed with {@code true} if the passwords match, failed with a 503
+     * {@link HttpResponseException} if the executor is saturated or the task waits too long for a thread
+     */
+    public CompletableFuture<Boolean> matchesAsync(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Submits the task to the hashing executor. A task still queued after {@code auth.hashing.max-wait}
+     * is skipped when it reaches a thread, a hash once started runs to completion, as it can not be
+     * interrupted.
+     *
+     * @param task the hashing task
+     * @param <T>  type of the result
+     * @return future of the result, failed with a 503 {@link HttpResponseException} if the task is
+     * rejected or waits too long for a thread
+     */
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        long maxWait = hashingConfig.getMaxWait().toNanos();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long waited = System.nanoTime() - enqueuedAt;
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+                // cancelled while queued, nobody waits for the hash any longer
+                if (result.isDone()) {
+                    return;
+                }
+                // the caller is answered with 503 instead of keeping a thread busy for a stale request
+                if (waited > maxWait) {
+                    timeoutCounter.increment();
+                    result.completeExceptionally(busy());
+                    return;
+                }
+                try {
+                    result.complete(task.call());
+                } catch (Exception | Error e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            result.completeExceptionally(busy());
+        }
+        return result;
+    }
+
+    /**
+     * Waits for a submitted task, an interrupted caller cancels it.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static HttpResponseException busy() {
+        return HttpResponseException.of(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Service busy",
+                Map.of("password", "Too many authentication requests, please retry later")
+        );
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
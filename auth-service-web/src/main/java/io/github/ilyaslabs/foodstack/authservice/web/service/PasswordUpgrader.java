@@ -0,0 +1,49 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Service;
+
+/**
+ * Re-encodes passwords whose hash was produced with an outdated algorithm or work factor.
+ * <p>
+ * The raw password is only known during a successful login, so the upgrade happens then, in the
+ * background, without delaying the login response. Upgrades are best effort: if the hashing
+ * executor is saturated the upgrade is skipped and retried on a later login.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordUpgrader {
+
+    private final PasswordHasher passwordHasher;
+    private final UserRepository userRepository;
+
+    /**
+     * Re-encodes the password in the background if its hash is outdated.
+     *
+     * @param userId          id of the user who just authenticated
+     * @param rawPassword     the verified raw password
+     * @param encodedPassword the stored password hash
+     */
+    public void upgradeIfNeeded(ObjectId userId, String rawPassword, String encodedPassword) {
+        if (!passwordHasher.upgradeEncoding(encodedPassword)) {
+            return;
+        }
+
+        passwordHasher.encodeAsync(rawPassword)
+                .thenAccept(password -> {
+                    if (userRepository.updatePasswordIfUnchanged(userId, encodedPassword, password)) {
+                        log.info("Upgraded password hash of user {}", userId);
+                    }
+                })
+                .exceptionally(e -> {
+                    log.warn("Skipped password hash upgrade of user {}: {}", userId, e.getMessage());
+                    return null;
+                });
+    }
+}
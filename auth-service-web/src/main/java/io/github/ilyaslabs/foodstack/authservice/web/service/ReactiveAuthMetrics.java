@@ -0,0 +1,42 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.micrometer.observation.Observation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Observes the stages of the reactive endpoints through {@link AuthMetrics}. Kept apart so the
+ * servlet deployment runs without Reactor on the classpath.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveAuthMetrics {
+
+    private final AuthMetrics authMetrics;
+
+    /**
+     * Observes a stage from subscription until the mono terminates or is cancelled. The parent is
+     * the observation current at subscription, which on WebFlux requires automatic context
+     * propagation.
+     *
+     * @param operation operation the stage belongs to
+     * @param stage     the stage
+     * @param supplier  supplies the stage's work
+     * @return the observed mono
+     */
+    public <T> Mono<T> observe(AuthMetrics.Operation operation, AuthMetrics.Stage stage, Supplier<Mono<T>> supplier) {
+        return Mono.defer(() -> {
+            Observation observation = authMetrics.start(operation, stage);
+            return supplier.get()
+                    .doOnError(observation::error)
+                    .doFinally(signal -> observation.stop());
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import io.github.ilyaslabs.foodstack.authservice.web.cache.RefreshTokenRevocations;
+import io.github.ilyaslabs.foodstack.authservice.web.config.RefreshTokenConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.RevokedFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.ReactiveRefreshTokenFamilyRepository;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import io.github.ilyaslabs.microservice.security.jwt.JwtProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Non-blocking counterpart of {@link RefreshTokenFamilies} for the reactive endpoints, with the same
+ * rotation and reuse detection. Tokens are signed on the calling thread, which is CPU bound work
+ * of well below a millisecond.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveRefreshTokenFamilies {
+
+    private final TokenIssuer tokenIssuer;
+    private final AuthMetrics authMetrics;
+    private final ReactiveAuthMetrics reactiveAuthMetrics;
+    private final ReactiveRefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final RefreshTokenRevocations refreshTokenRevocations;
+    private final RefreshTokenConfig refreshTokenConfig;
+    private final Clock clock;
+    private final Duration refreshExpiry;
+
+    public ReactiveRefreshTokenFamilies(TokenIssuer tokenIssuer,
+                                        AuthMetrics authMetrics,
+                                        ReactiveAuthMetrics reactiveAuthMetrics,
+                                        ReactiveRefreshTokenFamilyRepository refreshTokenFamilyRepository,
+                                        RefreshTokenRevocations refreshTokenRevocations,
+                                        RefreshTokenConfig refreshTokenConfig,
+                                        JwtProperties jwtProperties,
+                                        Clock clock) {
+        this.tokenIssuer = tokenIssuer;
+        this.authMetrics = authMetrics;
+        this.reactiveAuthMetrics = reactiveAuthMetrics;
+        this.refreshTokenFamilyRepository = refreshTokenFamilyRepository;
+        this.refreshTokenRevocations = refreshTokenRevocations;
+        this.refreshTokenConfig = refreshTokenConfig;
+        this.clock = clock;
+        this.refreshExpiry = Duration.of(jwtProperties.getRefreshExpiry(), jwtProperties.getRefreshExpiryUnit());
+    }
+
+    /**
+     * @see RefreshTokenFamilies#issue(UserPrincipal)
+     */
+    public Mono<AuthResponse> issue(UserPrincipal user) {
+        return issue(user, AuthMetrics.Operation.AUTHENTICATE);
+    }
+
+    private Mono<AuthResponse> issue(UserPrincipal user, AuthMetrics.Operation operation) {
+        return Mono.defer(() -> {
+            ObjectId familyId = new ObjectId();
+            String tokenId = new ObjectId().toHexString();
+
+            AuthResponse response = authMetrics.observe(operation, AuthMetrics.Stage.SIGN,
+                    () -> tokenIssuer.buildAuthResponse(user, new TokenIssuer.RefreshTokenId(familyId.toHexString(), tokenId)));
+
+            return reactiveAuthMetrics.observe(operation, AuthMetrics.Stage.PERSIST,
+                            () -> refreshTokenFamilyRepository.insert(RefreshTokenFamilies.newFamily(familyId, tokenId, user, response, clock.instant())))
+                    .thenReturn(response);
+        });
+    }
+
+    /**
+     * @see RefreshTokenFamilies#rotate(UserPrincipal, String, String, Instant)
+     */
+    public Mono<AuthResponse> rotate(UserPrincipal user, String familyId, String tokenId, Instant issuedAt) {
+        if (familyId == null && tokenId == null && RefreshTokenFamilies.acceptsLegacyToken(refreshTokenConfig, issuedAt)) {
+            return issue(user, AuthMetrics.Operation.REFRESH);
+        }
+        if (familyId == null || tokenId == null || !ObjectId.isValid(familyId)) {
+            return Mono.error(HttpResponseException.ofForbidden("Invalid refresh token"));
+        }
+
+        ObjectId id = new ObjectId(familyId);
+        if (refreshTokenRevocations.isRevoked(id)) {
+            return Mono.error(HttpResponseException.ofForbidden("Refresh token revoked"));
+        }
+
+        return Mono.defer(() -> {
+            String nextTokenId = new ObjectId().toHexString();
+            AuthResponse response = authMetrics.observe(AuthMetrics.Operation.REFRESH, AuthMetrics.Stage.SIGN,
+                    () -> tokenIssuer.buildAuthResponse(user, new TokenIssuer.RefreshTokenId(familyId, nextTokenId)));
+
+            Instant expiresAt = Instant.ofEpochSecond(response.getRefreshTokenExpiresIn());
+            return reactiveAuthMetrics.observe(AuthMetrics.Operation.REFRESH, AuthMetrics.Stage.PERSIST,
+                            () -> refreshTokenFamilyRepository.rotate(id, tokenId, nextTokenId, expiresAt, clock.instant()))
+                    .flatMap(rotated -> {
+                        if (rotated) {
+                            return Mono.just(response);
+                        }
+
+                        // not the current token of the family: it was used before, or the family is revoked or expired
+                        log.warn("Refresh token reuse detected, revoking family {} of user {}", familyId, user.id());
+                        return revoke(id).then(Mono.error(HttpResponseException.ofForbidden("Refresh token revoked")));
+                    });
+        });
+    }
+
+    private Mono<Void> revoke(ObjectId familyId) {
+        Instant now = clock.instant();
+        return refreshTokenFamilyRepository.revoke(familyId, now)
+                .defaultIfEmpty(new RevokedFamily(familyId, now.plus(refreshExpiry)))
+                .doOnNext(family -> refreshTokenRevocations.add(family.id(), family.expiresAt()))
+                .then();
+    }
+}
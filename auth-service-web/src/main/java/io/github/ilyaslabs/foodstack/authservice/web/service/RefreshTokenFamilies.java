@@ -0,0 +1,159 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import io.github.ilyaslabs.foodstack.authservice.web.cache.RefreshTokenRevocations;
+import io.github.ilyaslabs.foodstack.authservice.web.config.RefreshTokenConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.RefreshTokenFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.RevokedFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.RefreshTokenFamilyRepository;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import io.github.ilyaslabs.microservice.security.jwt.JwtProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Issues and rotates refresh tokens in families.
+ * <p>
+ * Every login starts a family and every refresh replaces its current token. A refresh token can
+ * therefore be used once: presenting it again means it was copied, and the whole family is revoked,
+ * so neither the legitimate client nor the attacker can refresh any longer.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@Slf4j
+public class RefreshTokenFamilies {
+
+    private final TokenIssuer tokenIssuer;
+    private final AuthMetrics authMetrics;
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final RefreshTokenRevocations refreshTokenRevocations;
+    private final RefreshTokenConfig refreshTokenConfig;
+    private final Clock clock;
+    private final Duration refreshExpiry;
+
+    public RefreshTokenFamilies(TokenIssuer tokenIssuer,
+                                AuthMetrics authMetrics,
+                                RefreshTokenFamilyRepository refreshTokenFamilyRepository,
+                                RefreshTokenRevocations refreshTokenRevocations,
+                                RefreshTokenConfig refreshTokenConfig,
+                                JwtProperties jwtProperties,
+                                Clock clock) {
+        this.tokenIssuer = tokenIssuer;
+        this.authMetrics = authMetrics;
+        this.refreshTokenFamilyRepository = refreshTokenFamilyRepository;
+        this.refreshTokenRevocations = refreshTokenRevocations;
+        this.refreshTokenConfig = refreshTokenConfig;
+        this.clock = clock;
+        this.refreshExpiry = Duration.of(jwtProperties.getRefreshExpiry(), jwtProperties.getRefreshExpiryUnit());
+    }
+
+    /**
+     * Issues tokens starting a new family.
+     *
+     * @param user the user, must be enabled and not deleted
+     * @return the authentication response
+     */
+    public AuthResponse issue(UserPrincipal user) {
+        return issue(user, AuthMetrics.Operation.AUTHENTICATE);
+    }
+
+    private AuthResponse issue(UserPrincipal user, AuthMetrics.Operation operation) {
+        ObjectId familyId = new ObjectId();
+        String tokenId = new ObjectId().toHexString();
+
+        AuthResponse response = authMetrics.observe(operation, AuthMetrics.Stage.SIGN,
+                () -> tokenIssuer.buildAuthResponse(user, new TokenIssuer.RefreshTokenId(familyId.toHexString(), tokenId)));
+        authMetrics.observe(operation, AuthMetrics.Stage.PERSIST,
+                () -> refreshTokenFamilyRepository.insert(newFamily(familyId, tokenId, user, response, clock.instant())));
+
+        return response;
+    }
+
+    /**
+     * Issues tokens replacing the presented refresh token.
+     *
+     * @param user     the user, must be enabled and not deleted
+     * @param familyId {@code fid} claim of the refresh token
+     * @param tokenId  {@code jti} claim of the refresh token
+     * @param issuedAt {@code iat} claim of the refresh token
+     * @return the authentication response
+     * @throws HttpResponseException if the token was already used or its family is revoked
+     */
+    public AuthResponse rotate(UserPrincipal user, String familyId, String tokenId, Instant issuedAt) {
+        if (familyId == null && tokenId == null && acceptsLegacyToken(refreshTokenConfig, issuedAt)) {
+            return issue(user, AuthMetrics.Operation.REFRESH);
+        }
+        if (familyId == null || tokenId == null || !ObjectId.isValid(familyId)) {
+            throw HttpResponseException.ofForbidden("Invalid refresh token");
+        }
+
+        ObjectId id = new ObjectId(familyId);
+        if (refreshTokenRevocations.isRevoked(id)) {
+            throw HttpResponseException.ofForbidden("Refresh token revoked");
+        }
+
+        String nextTokenId = new ObjectId().toHexString();
+        AuthResponse response = authMetrics.observe(AuthMetrics.Operation.REFRESH, AuthMetrics.Stage.SIGN,
+                () -> tokenIssuer.buildAuthResponse(user, new TokenIssuer.RefreshTokenId(familyId, nextTokenId)));
+
+        Instant expiresAt = Instant.ofEpochSecond(response.getRefreshTokenExpiresIn());
+        boolean rotated = authMetrics.observe(AuthMetrics.Operation.REFRESH, AuthMetrics.Stage.PERSIST,
+                () -> refreshTokenFamilyRepository.rotate(id, tokenId, nextTokenId, expiresAt, clock.instant()));
+        if (!rotated) {
+            // not the current token of the family: it was used before, or the family is revoked or expired
+            log.warn("Refresh token reuse detected, revoking family {} of user {}", familyId, user.id());
+            revoke(id);
+            throw HttpResponseException.ofForbidden("Refresh token revoked");
+        }
+
+        return response;
+    }
+
+    /**
+     * A refresh token without a family can not be rotated and would be usable until it expires, so it is
+     * only accepted if issued before the configured cutoff.
+     */
+    static boolean acceptsLegacyToken(RefreshTokenConfig refreshTokenConfig, Instant issuedAt) {
+        Instant cutoff = refreshTokenConfig.getLegacyTokensIssuedBefore();
+        return cutoff != null && issuedAt != null && issuedAt.isBefore(cutoff);
+    }
+
+    /**
+     * Revokes every refresh token family of the given users, e.g. after a credential leak.
+     *
+     * @param userIds user ids
+     * @return number of revoked families
+     */
+    public int revokeUsers(Collection<ObjectId> userIds) {
+        List<RevokedFamily> families = refreshTokenFamilyRepository.revokeByUserIds(userIds, clock.instant());
+        families.forEach(family -> refreshTokenRevocations.add(family.id(), family.expiresAt()));
+        return families.size();
+    }
+
+    static RefreshTokenFamily newFamily(ObjectId familyId, String tokenId, UserPrincipal user, AuthResponse response, Instant now) {
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setId(familyId);
+        family.setUserId(user.id());
+        family.setCurrentTokenId(tokenId);
+        family.setCreatedAt(now);
+        family.setRotatedAt(now);
+        family.setExpiresAt(Instant.ofEpochSecond(response.getRefreshTokenExpiresIn()));
+        return family;
+    }
+
+    private void revoke(ObjectId familyId) {
+        Instant now = clock.instant();
+        RevokedFamily family = refreshTokenFamilyRepository.revoke(familyId, now)
+                .orElseGet(() -> new RevokedFamily(familyId, now.plus(refreshExpiry)));
+        refreshTokenRevocations.add(family.id(), family.expiresAt());
+    }
+}
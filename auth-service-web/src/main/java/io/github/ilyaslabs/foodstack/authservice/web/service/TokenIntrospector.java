@@ -0,0 +1,162 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.TokenIntrospection;
+import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.cache.RefreshTokenRevocations;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.RefreshTokenFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.RefreshTokenFamilyRepository;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Service;
+
+import java.net.URL;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tells internal callers which tokens are still valid.
+ * <p>
+ * Signatures and expiry are verified like for any request, then the state of all users the
+ * tokens belong to is read with a single {@code $in} query. The user cache is not used, so a user
+ * disabled after the token was issued is reported right away.
+ * <p>
+ * Refresh tokens of a family are also checked against the family, read with a second {@code $in}
+ * query: a token of a revoked family, or one that was already rotated, is reported inactive like
+ * {@code /refresh} would reject it.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenIntrospector {
+
+    private final JwtDecoder jwtDecoder;
+    private final UserRepository userRepository;
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final RefreshTokenRevocations refreshTokenRevocations;
+
+    /**
+     * @param tokens tokens to introspect
+     * @return one result per token, in the same order
+     */
+    public List<TokenIntrospection> introspect(List<String> tokens) {
+        // duplicates are verified once
+        Map<String, Decoded> decodedTokens = new HashMap<>();
+        Set<ObjectId> userIds = new HashSet<>();
+        Set<ObjectId> familyIds = new HashSet<>();
+        for (String token : tokens) {
+            Decoded decoded = decodedTokens.computeIfAbsent(token, this::decode);
+            if (decoded.userId() != null) {
+                userIds.add(decoded.userId());
+            }
+            // revoked families are known without a read
+            if (decoded.familyId() != null && !refreshTokenRevocations.isRevoked(decoded.familyId())) {
+                familyIds.add(decoded.familyId());
+            }
+        }
+
+        Map<ObjectId, UserPrincipal> users = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            userRepository.findPrincipalsByIdIn(userIds).forEach(user -> users.put(user.id(), user));
+        }
+
+        Map<ObjectId, RefreshTokenFamily> families = new HashMap<>();
+        if (!familyIds.isEmpty()) {
+            refreshTokenFamilyRepository.findAllById(familyIds).forEach(family -> families.put(family.getId(), family));
+        }
+
+        List<TokenIntrospection> results = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            results.add(verdict(decodedTokens.get(token), users, families));
+        }
+        return results;
+    }
+
+    private Decoded decode(String token) {
+        if (token == null || token.isBlank()) {
+            return new Decoded(null, null, null, "Invalid token");
+        }
+
+        Jwt jwt;
+        try {
+            jwt = jwtDecoder.decode(token);
+        } catch (JwtException e) {
+            return new Decoded(null, null, null, "Invalid token");
+        }
+
+        String userId = jwt.getClaimAsString(CommonSecurityConfig.JWT_CLAIM_USER_ID);
+        if (userId == null) {
+            userId = jwt.getSubject();
+        }
+        if (userId == null || !ObjectId.isValid(userId)) {
+            return new Decoded(jwt, null, null, "Token has no valid user id");
+        }
+
+        String familyId = jwt.getClaimAsString(CommonSecurityConfig.JWT_CLAIM_FAMILY_ID);
+        if (familyId == null) {
+            return new Decoded(jwt, new ObjectId(userId), null, null);
+        }
+        if (!ObjectId.isValid(familyId) || jwt.getClaimAsString(CommonSecurityConfig.JWT_CLAIM_TOKEN_ID) == null) {
+            return new Decoded(jwt, null, null, "Invalid refresh token");
+        }
+        return new Decoded(jwt, new ObjectId(userId), new ObjectId(familyId), null);
+    }
+
+    private static TokenIntrospection verdict(Decoded decoded, Map<ObjectId, UserPrincipal> users,
+                                              Map<ObjectId, RefreshTokenFamily> families) {
+        TokenIntrospection result = new TokenIntrospection();
+        if (decoded.jwt() != null) {
+            result.setClaims(claims(decoded.jwt()));
+        }
+        if (decoded.error() != null) {
+            return result.setError(decoded.error());
+        }
+
+        UserPrincipal user = users.get(decoded.userId());
+        if (user == null) {
+            return result.setError("User not found");
+        }
+        if (!user.isActive()) {
+            return result.setError("User is disabled");
+        }
+
+        if (decoded.familyId() != null) {
+            // absent if revoked in memory, or expired and purged
+            RefreshTokenFamily family = families.get(decoded.familyId());
+            if (family == null || family.getRevokedAt() != null) {
+                return result.setError("Refresh token revoked");
+            }
+            if (!decoded.jwt().getClaimAsString(CommonSecurityConfig.JWT_CLAIM_TOKEN_ID).equals(family.getCurrentTokenId())) {
+                return result.setError("Refresh token already used");
+            }
+        }
+        return result.setActive(true);
+    }
+
+    /**
+     * @return the claims as they appear in the token: timestamps in epoch seconds, URLs as strings
+     */
+    private static Map<String, Object> claims(Jwt jwt) {
+        Map<String, Object> claims = new LinkedHashMap<>(jwt.getClaims());
+        claims.replaceAll((name, value) -> switch (value) {
+            case Instant instant -> instant.getEpochSecond();
+            case URL url -> url.toString();
+            default -> value;
+        });
+        return claims;
+    }
+
+    private record Decoded(Jwt jwt, ObjectId userId, ObjectId familyId, String error) {
+    }
+}
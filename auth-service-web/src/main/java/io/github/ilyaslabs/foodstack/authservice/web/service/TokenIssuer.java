@@ -0,0 +1,202 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.config.AuthConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.jwt.JsonStrings;
+import io.github.ilyaslabs.foodstack.authservice.web.jwt.JwsSigner;
+import io.github.ilyaslabs.foodstack.authservice.web.jwt.SigningKeys;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import io.github.ilyaslabs.microservice.security.jwt.AuthService;
+import io.github.ilyaslabs.microservice.security.jwt.JwtProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Issues access and refresh tokens for users.
+ * <p>
+ * Everything that does not depend on the user is computed once: the issuer claim, the scope
+ * claim and scope list for every possible combination of {@link User.Scope}s, and the encoded
+ * JOSE header (see {@link JwsSigner}). Issuing a token then only appends the user's id and
+ * username and a single timestamp to the precomputed fragments.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+public class TokenIssuer {
+
+    private static final User.Scope[] SCOPES = User.Scope.values();
+
+    // the signer changes when the signing keys are reloaded
+    private final Supplier<JwsSigner> jwsSigner;
+    private final Clock clock;
+    private final long expirySeconds;
+    private final long refreshExpirySeconds;
+
+    // {"iss":"<issuer>","sub":"
+    private final String payloadPrefix;
+
+    // scope claim and names indexed by the bit set of the scopes' ordinals
+    private final ScopeSet[] scopeSets;
+    private final String refreshScopeFragment;
+
+    @Autowired
+    public TokenIssuer(SigningKeys signingKeys, AuthConfig authConfig, JwtProperties jwtProperties, Clock clock) {
+        this(
+                signingKeys::getSigner,
+                authConfig.getIssuer(),
+                Duration.of(jwtProperties.getExpiry(), jwtProperties.getExpiryUnit()),
+                Duration.of(jwtProperties.getRefreshExpiry(), jwtProperties.getRefreshExpiryUnit()),
+                clock
+        );
+    }
+
+    public TokenIssuer(JwsSigner jwsSigner, String issuer, Duration expiry, Duration refreshExpiry, Clock clock) {
+        this(() -> jwsSigner, issuer, expiry, refreshExpiry, clock);
+    }
+
+    private TokenIssuer(Supplier<JwsSigner> jwsSigner, String issuer, Duration expiry, Duration refreshExpiry, Clock clock) {
+        this.jwsSigner = jwsSigner;
+        this.clock = clock;
+        this.expirySeconds = expiry.toSeconds();
+        this.refreshExpirySeconds = refreshExpiry.toSeconds();
+
+        this.payloadPrefix = JsonStrings.append(new StringBuilder("{\"iss\":"), issuer)
+                .append(",\"sub\":\"")
+                .toString();
+
+        this.scopeSets = new ScopeSet[1 << SCOPES.length];
+        for (int mask = 0; mask < scopeSets.length; mask++) {
+            List<String> names = new ArrayList<>();
+            for (User.Scope scope : SCOPES) {
+                if ((mask & (1 << scope.ordinal())) != 0) {
+                    names.add(scope.name());
+                }
+            }
+            scopeSets[mask] = new ScopeSet(List.copyOf(names), scopeFragment(names));
+        }
+        this.refreshScopeFragment = scopeFragment(List.of(CommonSecurityConfig.SCOPE_REFRESH_TOKEN));
+    }
+
+    /**
+     * Constructs an {@link AuthResponse} for the given user by generating authentication
+     * and refresh tokens, along with associated claims and scopes.
+     *
+     * @param user the user for whom the authentication response is to be built; must be enabled
+     *             and not deleted
+     * @return an {@link AuthResponse} containing the user's ID, username, authentication token,
+     * refresh token, scopes, token expiration time, and refresh token expiration time
+     * @throws HttpResponseException if the user is disabled or deleted
+     */
+    public AuthResponse buildAuthResponse(UserPrincipal user) {
+        return buildAuthResponse(user, null);
+    }
+
+    /**
+     * Like {@link #buildAuthResponse(UserPrincipal)}, the refresh token additionally identifies
+     * itself and its family.
+     *
+     * @param user           the user for whom the authentication response is to be built
+     * @param refreshTokenId {@code jti} and {@code fid} claims of the refresh token, omitted if {@code null}
+     * @return the authentication response
+     * @throws HttpResponseException if the user is disabled or deleted
+     */
+    public AuthResponse buildAuthResponse(UserPrincipal user, RefreshTokenId refreshTokenId) {
+        // user should be enabled and not deleted
+        if (!user.isActive()) {
+            throw HttpResponseException.ofForbidden("User is disabled");
+        }
+
+        ScopeSet scopeSet = scopeSetOf(user.scopes());
+        String userId = user.id().toHexString();
+
+        // one timestamp for issued at and both expirations
+        long now = clock.millis() / 1000;
+        long expiresIn = now + expirySeconds;
+        long refreshTokenExpiresIn = now + refreshExpirySeconds;
+
+        // both tokens are signed with the same key
+        JwsSigner signer = jwsSigner.get();
+        String token = signer.sign(payload(userId, user.username(), now, expiresIn, scopeSet.fragment()));
+        String refreshToken = signer.sign(payload(userId, null, now, refreshTokenExpiresIn, refreshScopeFragment(refreshTokenId)));
+
+        return new AuthResponse()
+                .setUserId(userId)
+                .setUsername(user.username())
+                .setToken(token)
+                .setRefreshToken(refreshToken)
+                .setScopes(scopeSet.names())
+                .setExpiresIn(expiresIn)
+                .setRefreshTokenExpiresIn(refreshTokenExpiresIn);
+    }
+
+    /**
+     * Builds the claims set, the username claim is omitted if {@code username} is {@code null}.
+     */
+    private String payload(String userId, String username, long issuedAt, long expiresAt, String scopeFragment) {
+        StringBuilder payload = new StringBuilder(payloadPrefix.length() + 160)
+                .append(payloadPrefix).append(userId)
+                .append("\",\"iat\":").append(issuedAt)
+                .append(",\"exp\":").append(expiresAt)
+                .append(",\"" + CommonSecurityConfig.JWT_CLAIM_USER_ID + "\":\"").append(userId).append('"');
+
+        if (username != null) {
+            JsonStrings.append(payload.append(",\"" + CommonSecurityConfig.JWT_CLAIM_USERNAME + "\":"), username);
+        }
+
+        return payload.append(scopeFragment).toString();
+    }
+
+    private String refreshScopeFragment(RefreshTokenId refreshTokenId) {
+        if (refreshTokenId == null) {
+            return refreshScopeFragment;
+        }
+
+        StringBuilder fragment = new StringBuilder(64 + refreshScopeFragment.length());
+        JsonStrings.append(fragment.append(",\"" + CommonSecurityConfig.JWT_CLAIM_TOKEN_ID + "\":"), refreshTokenId.tokenId());
+        JsonStrings.append(fragment.append(",\"" + CommonSecurityConfig.JWT_CLAIM_FAMILY_ID + "\":"), refreshTokenId.familyId());
+        return fragment.append(refreshScopeFragment).toString();
+    }
+
+    private ScopeSet scopeSetOf(List<User.Scope> scopes) {
+        int mask = 0;
+        if (scopes != null) {
+            for (User.Scope scope : scopes) {
+                mask |= 1 << scope.ordinal();
+            }
+        }
+        return scopeSets[mask];
+    }
+
+    /**
+     * @return the closing part of the claims set: the space delimited scope claim, if any, and the closing brace
+     */
+    private static String scopeFragment(List<String> scopes) {
+        if (scopes.isEmpty()) {
+            return "}";
+        }
+        return JsonStrings.append(new StringBuilder(",\"" + AuthService.KEY_SCOPE_CLAIM + "\":"), String.join(" ", scopes))
+                .append('}')
+                .toString();
+    }
+
+    /**
+     * Identifies a refresh token within its family.
+     *
+     * @param familyId id of the family, see {@code RefreshTokenFamily}
+     * @param tokenId  id of the token
+     */
+    public record RefreshTokenId(String familyId, String tokenId) {
+    }
+
+    private record ScopeSet(List<String> names, String fragment) {
+    }
+}
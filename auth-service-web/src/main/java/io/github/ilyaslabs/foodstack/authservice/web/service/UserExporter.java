@@ -0,0 +1,79 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.UserExportRecord;
+import io.github.ilyaslabs.foodstack.authservice.web.config.UserExportConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.ExportedUser;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams users to other services keeping copies of them.
+ * <p>
+ * Users are read page by page, each page continuing after the last user of the previous one
+ * instead of skipping over the users already read, see {@link UserRepository#findExportPage}. An
+ * export holds one page at a time and every page is read with the same effort, whether it is the
+ * first or the thousandth. As no cursor stays open between pages, an export can run for as long as
+ * the caller reads, and an interrupted export is resumed from its last user.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserExporter {
+
+    private final UserRepository userRepository;
+    private final UserExportConfig userExportConfig;
+
+    /**
+     * Exports all users in the order of their ids, or with {@code updatedSince} the users updated at
+     * or after it in the order of their update time. Each user is passed to the consumer on the
+     * calling thread.
+     *
+     * @param afterId      resume after the user with this id, the last user received; with
+     *                     {@code updatedSince} it must be that user's {@code updatedAt}
+     * @param updatedSince watermark of an incremental export, the largest {@code updatedAt} received
+     *                     by the previous export
+     * @param consumer     receives the users
+     * @return number of users exported
+     */
+    public long export(ObjectId afterId, Instant updatedSince, Consumer<UserExportRecord> consumer) {
+        int pageSize = userExportConfig.getPageSize();
+        long exported = 0;
+
+        List<ExportedUser> page;
+        do {
+            page = userRepository.findExportPage(afterId, updatedSince, pageSize);
+            page.forEach(user -> consumer.accept(toRecord(user)));
+            exported += page.size();
+
+            if (!page.isEmpty()) {
+                ExportedUser last = page.getLast();
+                afterId = last.id();
+                if (updatedSince != null) {
+                    updatedSince = last.updatedAt();
+                }
+            }
+        } while (page.size() == pageSize);
+
+        log.info("Exported {} users", exported);
+        return exported;
+    }
+
+    private static UserExportRecord toRecord(ExportedUser user) {
+        return new UserExportRecord()
+                .setUserId(user.id().toHexString())
+                .setUsername(user.username())
+                .setEnabled(user.enabled())
+                .setScopes(user.scopes() == null ? List.of() : user.scopes().stream().map(Enum::name).toList())
+                .setUpdatedAt(user.updatedAt())
+                .setDeletedAt(user.deletedAt());
+    }
+}
@@ -0,0 +1,210 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.UserImportRecord;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.UserImportResult;
+import io.github.ilyaslabs.foodstack.authservice.web.config.UserImportConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Creates users from a stream of newline delimited {@link UserImportRecord}s, for onboarding many
+ * accounts at once.
+ * <p>
+ * Records are read in batches of {@code auth.user-import.batch-size}. Each password is hashed on
+ * the shared import executor as soon as its record is read, and once a batch is hashed it is
+ * written with a single unordered bulk insert, so a duplicate user only fails its own record. The
+ * next batch is only read after that, so an import holds at most one batch however large the
+ * upload is, and a fast uploader is slowed down to the speed of hashing.
+ * <p>
+ * Hashing runs on platform threads for the same reason as in {@link PasswordHasher}, but not on its
+ * executor: an import would fill its queue and turn logins away.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Service
+@Slf4j
+public class UserImporter {
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final Clock clock;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    public UserImporter(UserRepository userRepository,
+                        PasswordEncoder passwordEncoder,
+                        ObjectMapper objectMapper,
+                        Validator validator,
+                        Clock clock,
+                        UserImportConfig userImportConfig) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.clock = clock;
+        this.batchSize = userImportConfig.getBatchSize();
+        this.executor = Executors.newFixedThreadPool(userImportConfig.getThreads(), Thread.ofPlatform().name("user-import-", 1).daemon().factory());
+    }
+
+    /**
+     * Imports the users of the upload. Each result is passed to the consumer on the calling thread,
+     * rejected records as soon as they are read and the others once their batch is inserted, so
+     * results are not in upload order. Blank lines are skipped.
+     *
+     * @param ndjson   one {@link UserImportRecord} per line, UTF-8 encoded
+     * @param consumer receives one result per record
+     * @return number of users created
+     * @throws IOException if the upload can not be read
+     */
+    public long importUsers(InputStream ndjson, Consumer<UserImportResult> consumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        List<PendingUser> batch = new ArrayList<>(batchSize);
+        long created = 0;
+        long line = 0;
+
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+
+            PendingUser pending = read(line, text, consumer);
+            if (pending == null) {
+                continue;
+            }
+
+            batch.add(pending);
+            if (batch.size() == batchSize) {
+                created += insert(batch, consumer);
+                batch.clear();
+            }
+        }
+        created += insert(batch, consumer);
+
+        log.info("Imported {} users from {} lines", created, line);
+        return created;
+    }
+
+    /**
+     * Parses and validates the record and starts hashing its password.
+     *
+     * @return the user, or {@code null} if the record was rejected
+     */
+    private PendingUser read(long line, String text, Consumer<UserImportResult> consumer) {
+        UserImportRecord record;
+        try {
+            record = objectMapper.readValue(text, UserImportRecord.class);
+        } catch (JacksonException e) {
+            consumer.accept(error(line, null, "Invalid JSON"));
+            return null;
+        }
+
+        Set<ConstraintViolation<UserImportRecord>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(ConstraintViolation::getMessage)
+                    .findFirst()
+                    .orElseThrow();
+            consumer.accept(error(line, record.getUsername(), message));
+            return null;
+        }
+
+        List<User.Scope> scopes;
+        try {
+            scopes = record.getScopes() == null ? List.of(User.Scope.USER) : record.getScopes().stream().map(User.Scope::valueOf).toList();
+        } catch (IllegalArgumentException e) {
+            consumer.accept(error(line, record.getUsername(), "Invalid scope"));
+            return null;
+        }
+
+        Instant now = clock.instant();
+        User user = new User();
+        user.setId(new ObjectId());
+        user.setUsername(record.getUsername());
+        user.setEmail(record.getEmail());
+        user.setEnabled(record.getEnabled() == null || record.getEnabled());
+        user.setScopes(scopes);
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        user.setLoginKeys(user.deriveLoginKeys());
+
+        String password = record.getPassword();
+        return new PendingUser(line, user, executor.submit(() -> passwordEncoder.encode(password)));
+    }
+
+    /**
+     * Waits for the passwords of the batch and inserts the users.
+     *
+     * @return number of users inserted
+     */
+    private long insert(List<PendingUser> batch, Consumer<UserImportResult> consumer) {
+        List<PendingUser> hashed = new ArrayList<>(batch.size());
+        for (PendingUser pending : batch) {
+            try {
+                pending.user().setPassword(pending.password().get());
+                hashed.add(pending);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(remaining -> remaining.password().cancel(true));
+                throw new IllegalStateException("Interrupted while importing users", e);
+            } catch (ExecutionException e) {
+                log.error("Failed to hash the password of user {}", pending.user().getUsername(), e.getCause());
+                consumer.accept(error(pending.line(), pending.user().getUsername(), "Password hashing failed"));
+            }
+        }
+
+        Map<Integer, String> errors = userRepository.insertUnordered(hashed.stream().map(PendingUser::user).toList());
+
+        for (int i = 0; i < hashed.size(); i++) {
+            PendingUser pending = hashed.get(i);
+            String error = errors.get(i);
+            consumer.accept(error == null
+                    ? new UserImportResult().setLine(pending.line()).setUsername(pending.user().getUsername()).setUserId(pending.user().getId().toHexString())
+                    : error(pending.line(), pending.user().getUsername(), error));
+        }
+        return hashed.size() - errors.size();
+    }
+
+    private static UserImportResult error(long line, String username, String error) {
+        return new UserImportResult().setLine(line).setUsername(username).setError(error);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record PendingUser(long line, User user, Future<String> password) {
+    }
+}
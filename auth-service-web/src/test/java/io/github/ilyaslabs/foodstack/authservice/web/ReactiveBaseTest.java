@@ -0,0 +1,29 @@
+package io.github.ilyaslabs.foodstack.authservice.web;
+
+import io.github.ilyaslabs.microservice.test.common.FixedClockConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.context.ImportTestcontainers;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Base of tests running the application on WebFlux.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@SpringBootTest(classes = {Config.class, FixedClockConfiguration.class}, properties = "spring.main.web-application-type=reactive")
+@ImportTestcontainers(TestContainersConfiguration.class)
+public abstract class ReactiveBaseTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    protected WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUpWebTestClient() {
+        webTestClient = WebTestClient.bindToApplicationContext(applicationContext).build();
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.ilyaslabs.foodstack.authservice.web.cache;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class BloomFilterTest {
+
+    @Test
+    void testInsertedIdsAreAlwaysContained() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.001);
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ObjectId id = new ObjectId();
+            ids.add(id);
+            filter.put(id);
+        }
+
+        assertThat(ids).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void testFalsePositiveRateIsNearConfiguredRate() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(new ObjectId());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(new ObjectId())) {
+                falsePositives++;
+            }
+        }
+
+        // 1% expected, allow for variance
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}
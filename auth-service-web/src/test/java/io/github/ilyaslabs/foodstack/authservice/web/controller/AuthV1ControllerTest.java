@@ -8,6 +8,7 @@ import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityC
 import io.github.ilyaslabs.foodstack.authservice.web.BaseTest;
 import io.github.ilyaslabs.foodstack.authservice.web.UserTestDataHandler;
 import io.github.ilyaslabs.foodstack.authservice.web.config.AuthConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.config.RateLimitConfig;
 import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
 import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
 import io.github.ilyaslabs.microservice.exception.HttpResponseException;
@@ -15,15 +16,29 @@ import io.github.ilyaslabs.microservice.security.jwt.AuthService;
 import io.github.ilyaslabs.microservice.security.jwt.JwtProperties;
 import io.github.ilyaslabs.microservice.test.common.MutableClock;
 import org.assertj.core.data.MapEntry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import tools.jackson.dataformat.cbor.CBORMapper;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
@@ -38,6 +53,11 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class AuthV1ControllerTest extends BaseTest {
 
+    /**
+     * before {@code auth.refresh-tokens.legacy-tokens-issued-before} of the tests
+     */
+    private static final Instant LEGACY_ISSUED_AT = Instant.parse("2024-12-01T00:00:00Z");
+
     @Autowired
     private UserTestDataHandler userTestDataHandler;
 
@@ -53,6 +73,10 @@ class AuthV1ControllerTest extends BaseTest {
     private UserRepository userRepository;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private RateLimitConfig rateLimitConfig;
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
     @BeforeAll
     void setUp() {
@@ -103,6 +127,45 @@ class AuthV1ControllerTest extends BaseTest {
 
     }
 
+    @Test
+    void testLoginIgnoresCaseAndSurroundingWhitespace() throws Exception {
+
+        var request = post("/api/v1/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(toJsonString(new AuthRequest().setUsername("  Admin@Domain.COM ").setPassword("test123456")));
+
+        String responseString = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        AuthResponse response = objectMapper.readValue(responseString, AuthResponse.class);
+
+        assertThat(response.getUserId()).isEqualTo(UserTestDataHandler.ADMIN_USER_ID.toHexString());
+    }
+
+    @Test
+    void testLoginNegotiatesBinaryEncoding() throws Exception {
+
+        var request = post("/api/v1/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT, "application/cbor, application/x-jackson-smile;q=0.9, application/json;q=0.5")
+                .content(toJsonString(new AuthRequest().setUsername("admin@domain.com").setPassword("test123456")));
+
+        byte[] responseBytes = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        AuthResponse response = CBORMapper.builder().build().readValue(responseBytes, AuthResponse.class);
+
+        assertThat(response.getUserId()).isEqualTo(UserTestDataHandler.ADMIN_USER_ID.toHexString());
+        assertThat(response.getToken()).isNotNull();
+    }
+
     @Test
     void testLoginFailedWhenNoUserNameIsProvided() throws Exception {
         var request = post("/api/v1/authenticate")
@@ -244,6 +307,87 @@ class AuthV1ControllerTest extends BaseTest {
         assertThat(response.fields()).contains(MapEntry.entry("password", "Invalid password"));
     }
 
+    @Test
+    void testLoginUpgradesOutdatedPasswordHash() throws Exception {
+
+        String password = "password12345";
+        String legacyHash = new BCryptPasswordEncoder(4).encode(password);
+        User user = new User();
+        user.setUsername("legacy");
+        user.setEmail("legacy@domain.com");
+        user.setPassword(legacyHash);
+        user.setEnabled(true);
+        user = userRepository.save(user);
+
+        mockMvc.perform(
+                post("/api/v1/authenticate").contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(new AuthRequest().setUsername("legacy").setPassword(password)))
+        ).andExpect(status().isOk());
+
+        // the upgrade happens in the background
+        String upgradedHash = legacyHash;
+        for (int i = 0; i < 100 && upgradedHash.equals(legacyHash); i++) {
+            Thread.sleep(50);
+            upgradedHash = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        }
+
+        assertThat(upgradedHash).startsWith("{bcrypt}");
+        assertThat(passwordEncoder.matches(password, upgradedHash)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(upgradedHash)).isFalse();
+    }
+
+    @Test
+    void testLoginOfUserStoredWithoutLoginKeys() throws Exception {
+
+        // stored by another writer of users after the login keys backfill, shaped like the baseline
+        ObjectId id = new ObjectId();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).insertOne(new Document("_id", id)
+                .append("username", "External")
+                .append("email", "external@domain.com")
+                .append("password", passwordEncoder.encode("password12345"))
+                .append("enabled", true)
+                .append("scopes", List.of(User.Scope.USER.name())));
+
+        String responseString = mockMvc.perform(
+                post("/api/v1/authenticate").contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(new AuthRequest().setUsername("External").setPassword("password12345")))
+        ).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+        AuthResponse response = objectMapper.readValue(responseString, AuthResponse.class);
+        assertThat(response.getUserId()).isEqualTo(id.toHexString());
+    }
+
+    @Test
+    void testLoginIsLockedOutAfterRepeatedFailures() throws Exception {
+
+        User user = new User();
+        user.setUsername("lockout");
+        user.setEmail("lockout@domain.com");
+        user.setPassword(passwordEncoder.encode("password12345"));
+        user.setEnabled(true);
+        userRepository.save(user);
+
+        var invalidLogin = post("/api/v1/authenticate").contentType(MediaType.APPLICATION_JSON)
+                .content(toJsonString(new AuthRequest().setUsername("lockout").setPassword("invalidpassword")));
+        var validLogin = post("/api/v1/authenticate").contentType(MediaType.APPLICATION_JSON)
+                .content(toJsonString(new AuthRequest().setUsername("lockout").setPassword("password12345")));
+
+        RateLimitConfig.Lockout lockout = rateLimitConfig.getLockout();
+        for (int i = 0; i < lockout.getFailureThreshold(); i++) {
+            mockMvc.perform(invalidLogin).andExpect(status().isBadRequest());
+        }
+
+        // rejected before the password is verified, even a valid one
+        mockMvc.perform(validLogin)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Content-Type", "application/problem+json"));
+
+        // the lockout is per username, other users logging in from the same address are not affected
+        mockMvc.perform(post("/api/v1/authenticate").contentType(MediaType.APPLICATION_JSON)
+                .content(toJsonString(new AuthRequest().setUsername("admin@domain.com").setPassword("test123456"))))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void testRefreshTokenSuccessfully() throws Exception {
 
@@ -251,10 +395,57 @@ class AuthV1ControllerTest extends BaseTest {
                 .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_REFRESH_TOKEN))
                         .jwt(jwt ->
                                 jwt.claim(CommonSecurityConfig.JWT_CLAIM_USER_ID, UserTestDataHandler.ADMIN_USER_ID.toHexString())
+                                        .issuedAt(LEGACY_ISSUED_AT)
                         )
                 )).andExpect(status().isOk());
     }
 
+    @Test
+    void testRefreshTokenWithoutFamilyFailedWhenIssuedAfterCutoff() throws Exception {
+
+        mockMvc.perform(post("/api/v1/refresh")
+                .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_REFRESH_TOKEN))
+                        .jwt(jwt ->
+                                jwt.claim(CommonSecurityConfig.JWT_CLAIM_USER_ID, UserTestDataHandler.ADMIN_USER_ID.toHexString())
+                                        .issuedAt(Instant.parse("2025-01-01T00:00:00Z"))
+                        )
+                )).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testRefreshTokenFailedOnceUserIsDisabled() throws Exception {
+
+        String userId = new ObjectId().toHexString();
+        User user = new User();
+        user.setId(new ObjectId(userId));
+        user.setUsername("cached");
+        user.setEmail("cached@domain.com");
+        user.setPassword(passwordEncoder.encode("password12345"));
+        user.setEnabled(true);
+        user.setScopes(List.of(User.Scope.USER));
+        userRepository.save(user);
+
+        var request = post("/api/v1/refresh")
+                .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_REFRESH_TOKEN))
+                        .jwt(jwt -> jwt.claim(CommonSecurityConfig.JWT_CLAIM_USER_ID, userId).issuedAt(LEGACY_ISSUED_AT))
+                );
+
+        // first refresh caches the user
+        mockMvc.perform(request).andExpect(status().isOk());
+
+        user.setEnabled(false);
+        userRepository.save(user);
+
+        // the change stream invalidates the cached user
+        int status = HttpStatus.OK.value();
+        for (int i = 0; i < 100 && status == HttpStatus.OK.value(); i++) {
+            Thread.sleep(50);
+            status = mockMvc.perform(request).andReturn().getResponse().getStatus();
+        }
+
+        assertThat(status).isEqualTo(HttpStatus.FORBIDDEN.value());
+    }
+
     @Test
     void testRefreshTokenFailedWhenNoJwtTokenIsProvided() throws Exception {
         mockMvc.perform(post("/api/v1/refresh"))
@@ -271,4 +462,75 @@ class AuthV1ControllerTest extends BaseTest {
                 )
         ).andExpect(status().isForbidden());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRefreshTokenIsRotatedAndReuseRevokesFamily() throws Exception {
+        AuthResponse login = authenticate("admin", UserTestDataHandler.PASSWORD);
+        JWTClaimsSet refreshClaims = SignedJWT.parse(login.getRefreshToken()).getJWTClaimsSet();
+        assertThat(refreshClaims.getJWTID()).isNotNull();
+        assertThat(refreshClaims.getStringClaim(CommonSecurityConfig.JWT_CLAIM_FAMILY_ID)).isNotNull();
+
+        AuthResponse refreshed = refresh(login.getRefreshToken(), HttpStatus.OK);
+        JWTClaimsSet rotatedClaims = SignedJWT.parse(refreshed.getRefreshToken()).getJWTClaimsSet();
+        assertThat(rotatedClaims.getStringClaim(CommonSecurityConfig.JWT_CLAIM_FAMILY_ID))
+                .isEqualTo(refreshClaims.getStringClaim(CommonSecurityConfig.JWT_CLAIM_FAMILY_ID));
+        assertThat(rotatedClaims.getJWTID()).isNotEqualTo(refreshClaims.getJWTID());
+
+        // reusing the first token revokes the family, including the rotated token
+        refresh(login.getRefreshToken(), HttpStatus.FORBIDDEN);
+        refresh(refreshed.getRefreshToken(), HttpStatus.FORBIDDEN);
+
+        // a new login starts a new family
+        AuthResponse relogin = authenticate("admin", UserTestDataHandler.PASSWORD);
+        refresh(relogin.getRefreshToken(), HttpStatus.OK);
+    }
+
+    @Test
+    void testConcurrentIdenticalLoginsRefreshIndependently() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AuthResponse>> logins = new ArrayList<>();
+
+        // identical logins arriving together share one verification
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            for (int i = 0; i < 2; i++) {
+                logins.add(executor.submit(() -> {
+                    start.await(5, TimeUnit.SECONDS);
+                    return authenticate("user", UserTestDataHandler.PASSWORD);
+                }));
+            }
+            start.countDown();
+
+            AuthResponse first = logins.get(0).get(5, TimeUnit.SECONDS);
+            AuthResponse second = logins.get(1).get(5, TimeUnit.SECONDS);
+
+            // each login starts a family of its own, so one refreshing does not revoke the other
+            assertThat(SignedJWT.parse(first.getRefreshToken()).getJWTClaimsSet().getStringClaim(CommonSecurityConfig.JWT_CLAIM_FAMILY_ID))
+                    .isNotEqualTo(SignedJWT.parse(second.getRefreshToken()).getJWTClaimsSet().getStringClaim(CommonSecurityConfig.JWT_CLAIM_FAMILY_ID));
+            refresh(first.getRefreshToken(), HttpStatus.OK);
+            refresh(second.getRefreshToken(), HttpStatus.OK);
+        }
+    }
+
+    private AuthResponse authenticate(String username, String password) throws Exception {
+        String responseString = mockMvc.perform(post("/api/v1/authenticate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(new AuthRequest().setUsername(username).setPassword(password))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        return objectMapper.readValue(responseString, AuthResponse.class);
+    }
+
+    private AuthResponse refresh(String refreshToken, HttpStatus expectedStatus) throws Exception {
+        String responseString = mockMvc.perform(post("/api/v1/refresh")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken))
+                .andExpect(status().is(expectedStatus.value()))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        return expectedStatus == HttpStatus.OK ? objectMapper.readValue(responseString, AuthResponse.class) : null;
+    }
+}
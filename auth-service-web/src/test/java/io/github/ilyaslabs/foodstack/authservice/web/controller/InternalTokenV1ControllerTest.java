@@ -0,0 +1,243 @@
+package io.github.ilyaslabs.foodstack.authservice.web.controller;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.BulkTokenRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.BulkTokenResult;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.IntrospectionRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.IntrospectionResponse;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.RevokeRefreshTokensRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.RevokeRefreshTokensResponse;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.TokenIntrospection;
+import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.BaseTest;
+import io.github.ilyaslabs.foodstack.authservice.web.UserTestDataHandler;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.UserRepository;
+import io.github.ilyaslabs.foodstack.authservice.web.service.RefreshTokenFamilies;
+import io.github.ilyaslabs.foodstack.authservice.web.service.TokenIssuer;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class InternalTokenV1ControllerTest extends BaseTest {
+
+    private static final ObjectId DISABLED_USER_ID = new ObjectId("5f7333333333333333333399");
+    private static final ObjectId INTROSPECTED_USER_ID = new ObjectId("5f7333333333333333333398");
+
+    @Autowired
+    private UserTestDataHandler userTestDataHandler;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenIssuer tokenIssuer;
+
+    @Autowired
+    private RefreshTokenFamilies refreshTokenFamilies;
+
+    @BeforeAll
+    void setUp() {
+        userTestDataHandler.clearAllUsers();
+        userTestDataHandler.setupData();
+
+        User user = new User();
+        user.setId(DISABLED_USER_ID);
+        user.setUsername("disabled");
+        user.setEnabled(false);
+        userRepository.save(user);
+    }
+
+    @Test
+    void testMintTokensSuccessfully() throws Exception {
+        String unknownUserId = new ObjectId().toHexString();
+        BulkTokenRequest bulkTokenRequest = new BulkTokenRequest().setUserIds(List.of(
+                UserTestDataHandler.ADMIN_USER_ID.toHexString(),
+                UserTestDataHandler.USER_ID.toHexString(),
+                DISABLED_USER_ID.toHexString(),
+                unknownUserId,
+                "invalid"
+        ));
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/internal/tokens")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_SYSTEM)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(bulkTokenRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String responseString = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        Map<String, BulkTokenResult> results = Arrays.stream(responseString.split("\n"))
+                .map(line -> objectMapper.readValue(line, BulkTokenResult.class))
+                .collect(Collectors.toMap(BulkTokenResult::getUserId, Function.identity()));
+
+        assertThat(results).hasSize(5);
+        assertThat(results.get(UserTestDataHandler.ADMIN_USER_ID.toHexString()).getResponse().getToken()).isNotNull();
+        assertThat(results.get(UserTestDataHandler.ADMIN_USER_ID.toHexString()).getResponse().getScopes()).containsExactly("ADMIN");
+        assertThat(results.get(UserTestDataHandler.USER_ID.toHexString()).getResponse().getUsername()).isEqualTo("user");
+        assertThat(results.get(DISABLED_USER_ID.toHexString()).getError()).isEqualTo("User is disabled");
+        assertThat(results.get(unknownUserId).getError()).isEqualTo("User not found");
+        assertThat(results.get("invalid").getError()).isEqualTo("Invalid user id");
+    }
+
+    @Test
+    void testMintTokensFailedWithoutSystemScope() throws Exception {
+        mockMvc.perform(post("/api/v1/internal/tokens")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_USER)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(new BulkTokenRequest().setUserIds(List.of(UserTestDataHandler.ADMIN_USER_ID.toHexString())))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testMintTokensFailedWhenNoUserIdsAreProvided() throws Exception {
+        mockMvc.perform(post("/api/v1/internal/tokens")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_SYSTEM)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(new BulkTokenRequest().setUserIds(List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testIntrospectTokensSuccessfully() throws Exception {
+        User user = new User();
+        user.setId(INTROSPECTED_USER_ID);
+        user.setUsername("introspected");
+        user.setEnabled(true);
+        user.setScopes(List.of(User.Scope.USER));
+        userRepository.save(user);
+
+        String token = tokenIssuer.buildAuthResponse(
+                new UserPrincipal(INTROSPECTED_USER_ID, "introspected", true, List.of(User.Scope.USER), null)
+        ).getToken();
+
+        List<TokenIntrospection> results = introspect(List.of(token, "invalid"));
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).isActive()).isTrue();
+        assertThat(results.get(0).getClaims())
+                .containsEntry(CommonSecurityConfig.JWT_CLAIM_USER_ID, INTROSPECTED_USER_ID.toHexString())
+                .containsEntry(CommonSecurityConfig.JWT_CLAIM_USERNAME, "introspected")
+                .containsKey("exp");
+        assertThat(results.get(1).isActive()).isFalse();
+        assertThat(results.get(1).getError()).isEqualTo("Invalid token");
+
+        // disabled after the token was issued
+        user.setEnabled(false);
+        userRepository.save(user);
+
+        results = introspect(List.of(token));
+
+        assertThat(results.getFirst().isActive()).isFalse();
+        assertThat(results.getFirst().getError()).isEqualTo("User is disabled");
+    }
+
+    @Test
+    void testIntrospectRotatedRefreshToken() throws Exception {
+        String refreshToken = refreshTokenFamilies.issue(
+                new UserPrincipal(UserTestDataHandler.ADMIN_USER_ID, "admin", true, List.of(User.Scope.ADMIN), null)
+        ).getRefreshToken();
+
+        assertThat(introspect(List.of(refreshToken)).getFirst().isActive()).isTrue();
+
+        String responseString = mockMvc.perform(post("/api/v1/refresh").header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String nextRefreshToken = objectMapper.readValue(responseString, AuthResponse.class).getRefreshToken();
+
+        List<TokenIntrospection> results = introspect(List.of(refreshToken, nextRefreshToken));
+
+        assertThat(results.get(0).isActive()).isFalse();
+        assertThat(results.get(0).getError()).isEqualTo("Refresh token already used");
+        assertThat(results.get(1).isActive()).isTrue();
+    }
+
+    @Test
+    void testIntrospectRefreshTokenOfRevokedFamily() throws Exception {
+        String refreshToken = refreshTokenFamilies.issue(
+                new UserPrincipal(UserTestDataHandler.USER_ID, "user", true, List.of(User.Scope.USER), null)
+        ).getRefreshToken();
+
+        refreshTokenFamilies.revokeUsers(List.of(UserTestDataHandler.USER_ID));
+
+        TokenIntrospection result = introspect(List.of(refreshToken)).getFirst();
+
+        assertThat(result.isActive()).isFalse();
+        assertThat(result.getError()).isEqualTo("Refresh token revoked");
+    }
+
+    @Test
+    void testIntrospectTokensFailedWithoutSystemScope() throws Exception {
+        mockMvc.perform(post("/api/v1/internal/introspect")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_USER)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(new IntrospectionRequest().setTokens(List.of("token")))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testRevokeRefreshTokensSuccessfully() throws Exception {
+        String refreshToken = refreshTokenFamilies.issue(
+                new UserPrincipal(UserTestDataHandler.USER_ID, "user", true, List.of(User.Scope.USER), null)
+        ).getRefreshToken();
+
+        String responseString = mockMvc.perform(post("/api/v1/internal/refresh-tokens/revoke")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_SYSTEM)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(new RevokeRefreshTokensRequest().setUserIds(List.of(UserTestDataHandler.USER_ID.toHexString())))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(objectMapper.readValue(responseString, RevokeRefreshTokensResponse.class).getRevokedFamilies()).isGreaterThanOrEqualTo(1);
+
+        mockMvc.perform(post("/api/v1/refresh").header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken))
+                .andExpect(status().isForbidden());
+    }
+
+    private List<TokenIntrospection> introspect(List<String> tokens) throws Exception {
+        String responseString = mockMvc.perform(post("/api/v1/internal/introspect")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_SYSTEM)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(new IntrospectionRequest().setTokens(tokens))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        return objectMapper.readValue(responseString, IntrospectionResponse.class).getResults();
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.ilyaslabs.foodstack.authservice.web.controller;
+
+import io.github.ilyaslabs.foodstack.authservice.api.Constants;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.UserExportRecord;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.UserImportResult;
+import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.BaseTest;
+import io.github.ilyaslabs.foodstack.authservice.web.UserTestDataHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class InternalUserV1ControllerTest extends BaseTest {
+
+    private static final String RECORDS = """
+            {"username":"imported","email":"imported@domain.com","password":"password1"}
+            {"username":"user","email":"other@domain.com","password":"password1"}
+            {"username":"incomplete","password":"password1"}
+            """;
+
+    @Autowired
+    private UserTestDataHandler userTestDataHandler;
+
+    @BeforeEach
+    void setUp() {
+        userTestDataHandler.clearAllUsers();
+        userTestDataHandler.setupData();
+    }
+
+    @Test
+    void testImportUsersSuccessfully() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/internal/users/import")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_SYSTEM)))
+                        .contentType(MediaType.parseMediaType(Constants.MEDIA_TYPE_NDJSON))
+                        .content(RECORDS))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String responseString = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        Map<Long, UserImportResult> results = Arrays.stream(responseString.split("\n"))
+                .map(line -> objectMapper.readValue(line, UserImportResult.class))
+                .collect(Collectors.toMap(UserImportResult::getLine, Function.identity()));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(1L).getUserId()).isNotNull();
+        assertThat(results.get(2L).getError()).isEqualTo("User already exists");
+        assertThat(results.get(3L).getError()).isEqualTo("Email is required");
+
+        mockMvc.perform(post("/api/v1/authenticate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(new AuthRequest("Imported@Domain.com", "password1"))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testImportUsersFailedWithoutSystemScope() throws Exception {
+        mockMvc.perform(post("/api/v1/internal/users/import")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_USER)))
+                        .contentType(MediaType.parseMediaType(Constants.MEDIA_TYPE_NDJSON))
+                        .content(RECORDS))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testExportUsersSuccessfully() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/internal/users/export")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_SYSTEM)))
+                        .param("after", UserTestDataHandler.ADMIN_USER_ID.toHexString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String responseString = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        UserExportRecord user = objectMapper.readValue(responseString.strip(), UserExportRecord.class);
+        assertThat(user.getUserId()).isEqualTo(UserTestDataHandler.USER_ID.toHexString());
+        assertThat(user.getUsername()).isEqualTo("user");
+        assertThat(user.getScopes()).containsExactly("USER");
+    }
+
+    @Test
+    void testExportUsersFailedWithInvalidWatermark() throws Exception {
+        mockMvc.perform(get("/api/v1/internal/users/export")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_SYSTEM)))
+                        .param("updatedSince", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.ilyaslabs.foodstack.authservice.web.controller;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import io.github.ilyaslabs.foodstack.authservice.web.BaseTest;
+import io.github.ilyaslabs.foodstack.authservice.web.UserTestDataHandler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JwksControllerTest extends BaseTest {
+
+    @Autowired
+    private UserTestDataHandler userTestDataHandler;
+
+    @BeforeAll
+    void setUp() {
+        userTestDataHandler.clearAllUsers();
+        userTestDataHandler.setupData();
+    }
+
+    @Test
+    void testJwksPublishesSigningKey() throws Exception {
+        MvcResult jwksResult = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=900, public, stale-while-revalidate=900"))
+                .andReturn();
+        JWKSet jwkSet = JWKSet.parse(jwksResult.getResponse().getContentAsString());
+
+        assertThat(jwkSet.getKeys()).hasSize(1);
+        JWK jwk = jwkSet.getKeys().getFirst();
+        assertThat(jwk.isPrivate()).isFalse();
+        assertThat(jwk.getAlgorithm().getName()).isEqualTo("RS256");
+
+        // issued tokens reference the published key
+        String responseString = mockMvc.perform(post("/api/v1/authenticate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJsonString(new AuthRequest().setUsername("admin").setPassword(UserTestDataHandler.PASSWORD))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        AuthResponse authResponse = objectMapper.readValue(responseString, AuthResponse.class);
+
+        assertThat(SignedJWT.parse(authResponse.getToken()).getHeader().getKeyID()).isEqualTo(jwk.getKeyID());
+    }
+
+    @Test
+    void testJwksIsNotModifiedForMatchingEtag() throws Exception {
+        String etag = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.ilyaslabs.foodstack.authservice.web.controller;
+
+import com.nimbusds.jwt.SignedJWT;
+import io.github.ilyaslabs.foodstack.authservice.api.Constants;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.ReactiveBaseTest;
+import io.github.ilyaslabs.foodstack.authservice.web.UserTestDataHandler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReactiveAuthV1ControllerTest extends ReactiveBaseTest {
+
+    @Autowired
+    private UserTestDataHandler userTestDataHandler;
+
+    @BeforeAll
+    void setUp() {
+        userTestDataHandler.clearAllUsers();
+        userTestDataHandler.setupData();
+    }
+
+    @Test
+    void testLoginSuccessfully() throws Exception {
+        AuthResponse response = authenticate("admin@domain.com", UserTestDataHandler.PASSWORD, HttpStatus.OK);
+
+        assertThat(response.getUserId()).isEqualTo(UserTestDataHandler.ADMIN_USER_ID.toHexString());
+        assertThat(response.getUsername()).isEqualTo("admin");
+        assertThat(response.getScopes()).containsExactly("ADMIN");
+        assertThat(SignedJWT.parse(response.getToken()).getJWTClaimsSet().getSubject())
+                .isEqualTo(UserTestDataHandler.ADMIN_USER_ID.toHexString());
+    }
+
+    @Test
+    void testLoginNegotiatesBinaryEncoding() {
+        AuthResponse response = webTestClient.post().uri("/api/v1/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT, Constants.MEDIA_TYPE_SMILE + ", application/json;q=0.5")
+                .bodyValue(new AuthRequest().setUsername("admin").setPassword(UserTestDataHandler.PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(Constants.MEDIA_TYPE_SMILE)
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(response.getUserId()).isEqualTo(UserTestDataHandler.ADMIN_USER_ID.toHexString());
+    }
+
+    @Test
+    void testLoginFailedWithWrongPassword() {
+        authenticate("admin", "wrong-password", HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testLoginFailedWithUnknownUser() {
+        authenticate("nobody", UserTestDataHandler.PASSWORD, HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void testLoginFailedWhenNoUserNameIsProvided() {
+        authenticate(null, UserTestDataHandler.PASSWORD, HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testRefreshRequiresRefreshToken() {
+        AuthResponse login = authenticate("admin", UserTestDataHandler.PASSWORD, HttpStatus.OK);
+
+        refresh(login.getToken(), HttpStatus.FORBIDDEN);
+
+        webTestClient.post().uri("/api/v1/refresh")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void testRefreshTokenIsRotatedAndReuseRevokesFamily() throws Exception {
+        AuthResponse login = authenticate("admin", UserTestDataHandler.PASSWORD, HttpStatus.OK);
+
+        AuthResponse refreshed = refresh(login.getRefreshToken(), HttpStatus.OK);
+        assertThat(SignedJWT.parse(refreshed.getRefreshToken()).getJWTClaimsSet().getStringClaim(CommonSecurityConfig.JWT_CLAIM_FAMILY_ID))
+                .isEqualTo(SignedJWT.parse(login.getRefreshToken()).getJWTClaimsSet().getStringClaim(CommonSecurityConfig.JWT_CLAIM_FAMILY_ID));
+
+        // reusing the first token revokes the family, including the rotated token
+        refresh(login.getRefreshToken(), HttpStatus.FORBIDDEN);
+        refresh(refreshed.getRefreshToken(), HttpStatus.FORBIDDEN);
+    }
+
+    private AuthResponse authenticate(String username, String password, HttpStatus expectedStatus) {
+        return webTestClient.post().uri("/api/v1/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new AuthRequest().setUsername(username).setPassword(password))
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private AuthResponse refresh(String refreshToken, HttpStatus expectedStatus) {
+        return webTestClient.post().uri("/api/v1/refresh")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
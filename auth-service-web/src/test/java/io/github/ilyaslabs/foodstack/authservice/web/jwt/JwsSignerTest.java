@@ -0,0 +1,94 @@
+package io.github.ilyaslabs.foodstack.authservice.web.jwt;
+
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.PublicKeyJwtDecoders;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.SigningAlgorithm;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class JwsSignerTest {
+
+    private static final String PAYLOAD = "{\"sub\":\"user\",\"scope\":\"USER\"}";
+
+    @ParameterizedTest
+    @EnumSource(SigningAlgorithm.class)
+    void testSignedTokenVerifies(SigningAlgorithm algorithm) throws Exception {
+        KeyPair keyPair = generateKeyPair(algorithm);
+        JwsSigner signer = JwsSigner.of(keyPair.getPrivate(), algorithm);
+
+        // decoder knows keys of every algorithm, the one of the header is selected
+        List<PublicKey> publicKeys = new ArrayList<>();
+        publicKeys.add(keyPair.getPublic());
+        for (SigningAlgorithm other : SigningAlgorithm.values()) {
+            if (other != algorithm) {
+                publicKeys.add(generateKeyPair(other).getPublic());
+            }
+        }
+        JwtDecoder decoder = PublicKeyJwtDecoders.create(publicKeys);
+
+        Jwt jwt = decoder.decode(signer.sign(PAYLOAD));
+
+        assertThat(jwt.getHeaders()).containsEntry("alg", algorithm.getJwsName());
+        assertThat(jwt.getSubject()).isEqualTo("user");
+    }
+
+    @ParameterizedTest
+    @EnumSource(SigningAlgorithm.class)
+    void testTokenSignedWithUnknownKeyIsRejected(SigningAlgorithm algorithm) throws Exception {
+        JwsSigner signer = JwsSigner.of(generateKeyPair(algorithm).getPrivate(), algorithm);
+        JwtDecoder decoder = PublicKeyJwtDecoders.create(List.of(generateKeyPair(algorithm).getPublic()));
+
+        assertThatThrownBy(() -> decoder.decode(signer.sign(PAYLOAD))).isInstanceOf(JwtException.class);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SigningAlgorithm.class)
+    void testTokenOfUnconfiguredAlgorithmIsRejected(SigningAlgorithm algorithm) throws Exception {
+        JwsSigner signer = JwsSigner.of(generateKeyPair(algorithm).getPrivate(), algorithm);
+        SigningAlgorithm other = algorithm == SigningAlgorithm.RS256 ? SigningAlgorithm.ES256 : SigningAlgorithm.RS256;
+        JwtDecoder decoder = PublicKeyJwtDecoders.create(List.of(generateKeyPair(other).getPublic()));
+
+        assertThatThrownBy(() -> decoder.decode(signer.sign(PAYLOAD))).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void testKeyOnOtherCurveOfSameSizeIsRejected() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC", new BouncyCastleProvider());
+        generator.initialize(new ECGenParameterSpec("secp256k1"));
+        KeyPair keyPair = generator.generateKeyPair();
+
+        assertThatThrownBy(() -> SigningAlgorithm.forKey(keyPair.getPublic())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> JwsSigner.of(keyPair.getPrivate())).isInstanceOf(IllegalArgumentException.class);
+        assertThat(SigningAlgorithm.forKey(generateKeyPair(SigningAlgorithm.ES256).getPublic())).isEqualTo(SigningAlgorithm.ES256);
+    }
+
+    static KeyPair generateKeyPair(SigningAlgorithm algorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm.getKeyAlgorithm());
+        switch (algorithm) {
+            case RS256 -> generator.initialize(2048);
+            case ES256 -> generator.initialize(new ECGenParameterSpec("secp256r1"));
+            case EdDSA -> {
+                // Ed25519 has no parameters
+            }
+        }
+        return generator.generateKeyPair();
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.ilyaslabs.foodstack.authservice.web.jwt;
+
+import com.nimbusds.jwt.SignedJWT;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.Jwks;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.SigningAlgorithm;
+import io.github.ilyaslabs.foodstack.authservice.web.config.SigningConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class SigningKeysTest {
+
+    private static final String RSA_KEY_PREFIX = "io.github.ilyaslabs.microservice.security.jwt.rsa";
+
+    @Test
+    void testKeysAreRotatedOnEnvironmentChange() throws Exception {
+        KeyPair rsaKeyPair = JwsSignerTest.generateKeyPair(SigningAlgorithm.RS256);
+        KeyPair ecKeyPair = JwsSignerTest.generateKeyPair(SigningAlgorithm.ES256);
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(RSA_KEY_PREFIX + ".private-key", pem("PRIVATE KEY", rsaKeyPair.getPrivate()))
+                .withProperty(RSA_KEY_PREFIX + ".public-key", pem("PUBLIC KEY", rsaKeyPair.getPublic()));
+        SigningKeys signingKeys = new SigningKeys(environment, new SigningConfig());
+
+        String rsaKeyId = Jwks.keyId(rsaKeyPair.getPublic());
+        assertThat(signingKeys.getSigner().getAlgorithm()).isEqualTo(SigningAlgorithm.RS256);
+        assertThat(signingKeys.getSigner().getKeyId()).isEqualTo(rsaKeyId);
+        String etag = signingKeys.getJwkSet().etag();
+
+        // sign with the EC key, keep the RSA key published for tokens it signed
+        environment
+                .withProperty("auth.signing.algorithm", "ES256")
+                .withProperty("auth.signing.private-key", pem("PRIVATE KEY", ecKeyPair.getPrivate()))
+                .withProperty("auth.signing.public-key", pem("PUBLIC KEY", ecKeyPair.getPublic()))
+                .withProperty("auth.signing.published-keys[0]", pem("PUBLIC KEY", rsaKeyPair.getPublic()));
+        signingKeys.onEnvironmentChange(new EnvironmentChangeEvent(Set.of("auth.signing.algorithm")));
+
+        String ecKeyId = Jwks.keyId(ecKeyPair.getPublic());
+        assertThat(signingKeys.getSigner().getAlgorithm()).isEqualTo(SigningAlgorithm.ES256);
+        assertThat(SignedJWT.parse(signingKeys.getSigner().sign("{}")).getHeader().getKeyID()).isEqualTo(ecKeyId);
+        assertThat(signingKeys.getJwkSet().etag()).isNotEqualTo(etag);
+        assertThat(signingKeys.select(SigningAlgorithm.ES256, ecKeyId)).containsExactly(ecKeyPair.getPublic());
+        assertThat(signingKeys.select(SigningAlgorithm.RS256, rsaKeyId)).hasSize(1);
+    }
+
+    @Test
+    void testInvalidConfigurationKeepsCurrentKeys() throws Exception {
+        KeyPair rsaKeyPair = JwsSignerTest.generateKeyPair(SigningAlgorithm.RS256);
+        KeyPair ecKeyPair = JwsSignerTest.generateKeyPair(SigningAlgorithm.ES256);
+        KeyPair otherEcKeyPair = JwsSignerTest.generateKeyPair(SigningAlgorithm.ES256);
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(RSA_KEY_PREFIX + ".private-key", pem("PRIVATE KEY", rsaKeyPair.getPrivate()));
+        SigningKeys signingKeys = new SigningKeys(environment, new SigningConfig());
+        JwsSigner signer = signingKeys.getSigner();
+
+        // public key of another key pair
+        environment
+                .withProperty("auth.signing.algorithm", "ES256")
+                .withProperty("auth.signing.private-key", pem("PRIVATE KEY", ecKeyPair.getPrivate()))
+                .withProperty("auth.signing.public-key", pem("PUBLIC KEY", otherEcKeyPair.getPublic()));
+        signingKeys.onEnvironmentChange(new EnvironmentChangeEvent(Set.of("auth.signing.private-key")));
+
+        assertThat(signingKeys.getSigner()).isSameAs(signer);
+    }
+
+    private static String pem(String type, Key key) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder().encodeToString(key.getEncoded())
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,176 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository;
+
+import io.github.ilyaslabs.foodstack.authservice.web.BaseTest;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.AuthPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.service.IndexMigrator;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class UserRepositoryTest extends BaseTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTestRepository userTestRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private IndexMigrator indexMigrator;
+
+    @BeforeEach
+    void setUp() {
+        userTestRepository.deleteAll();
+    }
+
+    @Test
+    void testLoginKeysAreDerivedOnSave() {
+        User user = new User();
+        user.setUsername(" Chef ");
+        user.setEmail("Chef@Domain.com");
+        user.setEnabled(true);
+        userRepository.save(user);
+
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef")).isPresent();
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef@domain.com")).isPresent();
+        assertThat(userRepository.findLivePrincipalByLoginKeys("Chef")).isEmpty();
+    }
+
+    @Test
+    void testPrincipalsAreProjected() {
+        User user = new User();
+        user.setUsername("cook");
+        user.setEmail("cook@domain.com");
+        user.setPassword("{bcrypt}hash");
+        user.setEnabled(true);
+        user.setScopes(List.of(User.Scope.USER));
+        user = userRepository.save(user);
+
+        AuthPrincipal authPrincipal = userRepository.findFirstPrincipalByLoginKeysOrderByDeletedAtDesc("cook@domain.com").orElseThrow();
+        assertThat(authPrincipal).isEqualTo(new AuthPrincipal(user.getId(), "cook", "{bcrypt}hash", true, List.of(User.Scope.USER), null));
+
+        UserPrincipal userPrincipal = userRepository.findPrincipalById(user.getId()).orElseThrow();
+        assertThat(userPrincipal).isEqualTo(authPrincipal.toUserPrincipal());
+    }
+
+    @Test
+    void testBackfillLoginKeys() {
+        String collection = mongoTemplate.getCollectionName(User.class);
+        for (int i = 0; i < 5; i++) {
+            mongoTemplate.getCollection(collection).insertOne(new Document("_id", new ObjectId())
+                    .append("username", "Waiter" + i)
+                    .append("email", "waiter" + i + "@domain.com")
+                    .append("enabled", true));
+        }
+
+        UserRepositoryCustom.LoginKeysBackfillResult result = userRepository.backfillLoginKeys(2);
+
+        assertThat(result.updated()).isEqualTo(5);
+        assertThat(result.conflicted()).isZero();
+        ObjectId waiter = userRepository.findLivePrincipalByLoginKeys("waiter3").orElseThrow().id();
+        assertThat(userRepository.findById(waiter).orElseThrow().getLoginKeys())
+                .containsExactly("waiter3", "waiter3@domain.com");
+
+        assertThat(userRepository.backfillLoginKeys(2).updated()).isZero();
+    }
+
+    @Test
+    void testUsersStoredBeforeTheMigrationsAreFoundByUsernameOrEmail() {
+        // shaped like the users of the baseline, without loginKeys and deletedAt
+        String collection = mongoTemplate.getCollectionName(User.class);
+        ObjectId id = new ObjectId();
+        mongoTemplate.getCollection(collection).insertOne(new Document("_id", id)
+                .append("username", "Chef")
+                .append("email", "chef@domain.com")
+                .append("password", "{bcrypt}hash")
+                .append("enabled", true));
+
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef")).isEmpty();
+        assertThat(userRepository.findFirstPrincipalByLoginKeysOrderByDeletedAtDesc("chef")).isEmpty();
+        assertThat(userRepository.findUnkeyedPrincipalsByUsernameOrEmail("Chef", "Chef")).singleElement().satisfies(principal -> {
+            assertThat(principal.id()).isEqualTo(id);
+            assertThat(principal.deletedAt()).isNull();
+        });
+        assertThat(userRepository.findUnkeyedPrincipalsByUsernameOrEmail("chef@domain.com", "chef@domain.com")).hasSize(1);
+
+        indexMigrator.migrate();
+        assertThat(mongoTemplate.indexOps(User.class).getIndexInfo()).extracting(IndexInfo::getName)
+                .contains("username_loginKeys", "email_loginKeys");
+        assertThat(userRepository.findUnkeyedPrincipalsByUsernameOrEmail("Chef", "Chef")).hasSize(1);
+
+        userRepository.backfillLoginKeys(10);
+        assertThat(userRepository.findUnkeyedPrincipalsByUsernameOrEmail("Chef", "Chef")).isEmpty();
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef")).hasValueSatisfying(principal -> assertThat(principal.id()).isEqualTo(id));
+    }
+
+    @Test
+    void testLoginKeysAreUniqueAmongUsersWhichAreNotDeleted() {
+        indexMigrator.migrate();
+        assertThat(mongoTemplate.indexOps(User.class).getIndexInfo()).extracting(IndexInfo::getName)
+                .contains("loginKeys_notDeleted", "username_notDeleted", "email_notDeleted", "loginKeys")
+                .doesNotContain("username", "email", "deletedAt");
+
+        User deleted = user("chef");
+        deleted.setDeletedAt(Instant.parse("2025-01-01T00:00:00Z"));
+        userRepository.save(deleted);
+        User user = userRepository.save(user("chef"));
+
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef")).hasValueSatisfying(principal -> assertThat(principal.id()).isEqualTo(user.getId()));
+        assertThatThrownBy(() -> userRepository.save(user("Chef")))
+                .isInstanceOf(DuplicateKeyException.class);
+
+        user.setDeletedAt(Instant.parse("2025-02-01T00:00:00Z"));
+        userRepository.save(user);
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef")).isEmpty();
+        assertThat(userRepository.findFirstPrincipalByLoginKeysOrderByDeletedAtDesc("chef")).hasValueSatisfying(principal -> assertThat(principal.id()).isEqualTo(user.getId()));
+    }
+
+    @Test
+    void testMostRecentlyDeletedUserIsFoundByLoginKeys() {
+        indexMigrator.migrate();
+
+        User first = user("chef");
+        first.setDeletedAt(Instant.parse("2025-01-01T00:00:00Z"));
+        userRepository.save(first);
+        User second = user("Chef");
+        second.setDeletedAt(Instant.parse("2025-03-01T00:00:00Z"));
+        userRepository.save(second);
+        User third = user("CHEF");
+        third.setDeletedAt(Instant.parse("2025-02-01T00:00:00Z"));
+        userRepository.save(third);
+
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef")).isEmpty();
+        assertThat(userRepository.findFirstPrincipalByLoginKeysOrderByDeletedAtDesc("chef")).hasValueSatisfying(principal -> {
+            assertThat(principal.id()).isEqualTo(second.getId());
+            assertThat(principal.deletedAt()).isEqualTo(second.getDeletedAt());
+        });
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username.toLowerCase() + "@domain.com");
+        user.setEnabled(true);
+        return user;
+    }
+}
@@ -0,0 +1,207 @@
+package io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory;
+
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.RefreshTokenFamily;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.RevokedFamily;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class InMemoryRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final InMemoryUserRepository userRepository = new InMemoryUserRepository();
+    private final InMemoryRefreshTokenFamilyRepository familyRepository = new InMemoryRefreshTokenFamilyRepository(Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void testUsersAreFoundByLoginKeys() {
+        User user = userRepository.save(user(" Chef ", "Chef@Domain.com"));
+
+        assertThat(user.getId()).isNotNull();
+        assertThat(userRepository.findFirstPrincipalByLoginKeysOrderByDeletedAtDesc("chef")).hasValueSatisfying(principal -> {
+            assertThat(principal.id()).isEqualTo(user.getId());
+            assertThat(principal.password()).isEqualTo("{bcrypt}hash");
+        });
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef@domain.com")).isPresent();
+
+        // renaming releases the previous login key
+        user.setUsername("cook");
+        userRepository.save(user);
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef")).isEmpty();
+        assertThat(userRepository.findPrincipalById(user.getId())).hasValueSatisfying(principal -> assertThat(principal.username()).isEqualTo("cook"));
+    }
+
+    @Test
+    void testLoginKeysAreUnique() {
+        userRepository.save(user("chef", "chef@domain.com"));
+
+        assertThatThrownBy(() -> userRepository.save(user("CHEF", "other@domain.com")))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testDeletedUsersReleaseLoginKeys() {
+        User deleted = user("chef", "chef@domain.com");
+        deleted.setDeletedAt(NOW);
+        userRepository.save(deleted);
+        User user = userRepository.save(user("CHEF", "chef@domain.com"));
+
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef")).hasValueSatisfying(principal -> assertThat(principal.id()).isEqualTo(user.getId()));
+
+        userRepository.deleteById(user.getId());
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef")).isEmpty();
+        assertThat(userRepository.findFirstPrincipalByLoginKeysOrderByDeletedAtDesc("chef")).hasValueSatisfying(principal -> assertThat(principal.deletedAt()).isEqualTo(NOW));
+    }
+
+    @Test
+    void testMostRecentlyDeletedUserIsFoundByLoginKeys() {
+        User first = user("chef", "chef@domain.com");
+        first.setDeletedAt(NOW);
+        userRepository.save(first);
+        User second = user("Chef", "chef@domain.com");
+        second.setDeletedAt(NOW.plus(Duration.ofDays(2)));
+        userRepository.save(second);
+        User third = user("CHEF", "chef@domain.com");
+        third.setDeletedAt(NOW.plus(Duration.ofDays(1)));
+        userRepository.save(third);
+
+        assertThat(userRepository.findLivePrincipalByLoginKeys("chef")).isEmpty();
+        assertThat(userRepository.findFirstPrincipalByLoginKeysOrderByDeletedAtDesc("chef")).hasValueSatisfying(principal -> assertThat(principal.id()).isEqualTo(second.getId()));
+    }
+
+    @Test
+    void testStoredUsersAreCopies() {
+        User user = userRepository.save(user("chef", "chef@domain.com"));
+        user.setPassword("changed");
+
+        assertThat(userRepository.findById(user.getId())).hasValueSatisfying(stored -> assertThat(stored.getPassword()).isEqualTo("{bcrypt}hash"));
+    }
+
+    @Test
+    void testPasswordIsOnlyUpdatedIfUnchanged() {
+        User user = userRepository.save(user("chef", "chef@domain.com"));
+
+        assertThat(userRepository.updatePasswordIfUnchanged(user.getId(), "{bcrypt}other", "{argon2}new")).isFalse();
+        assertThat(userRepository.updatePasswordIfUnchanged(user.getId(), "{bcrypt}hash", "{argon2}new")).isTrue();
+        assertThat(userRepository.findFirstPrincipalByLoginKeysOrderByDeletedAtDesc("chef")).hasValueSatisfying(principal -> assertThat(principal.password()).isEqualTo("{argon2}new"));
+    }
+
+    @Test
+    void testFamilyIsRotatedOncePerToken() {
+        RefreshTokenFamily family = familyRepository.insert(family(new ObjectId(), "token-1", NOW.plus(Duration.ofDays(1))));
+
+        assertThat(familyRepository.rotate(family.getId(), "token-1", "token-2", NOW.plus(Duration.ofDays(2)), NOW)).isTrue();
+        assertThat(familyRepository.rotate(family.getId(), "token-1", "token-3", NOW.plus(Duration.ofDays(2)), NOW)).isFalse();
+        assertThat(familyRepository.findById(family.getId())).hasValueSatisfying(stored -> {
+            assertThat(stored.getCurrentTokenId()).isEqualTo("token-2");
+            assertThat(stored.getRotatedAt()).isEqualTo(NOW);
+        });
+    }
+
+    @Test
+    void testRevokedFamiliesAreNotRotated() {
+        ObjectId userId = new ObjectId();
+        RefreshTokenFamily first = familyRepository.insert(family(userId, "token-1", NOW.plus(Duration.ofDays(1))));
+        RefreshTokenFamily second = familyRepository.insert(family(userId, "token-2", NOW.plus(Duration.ofDays(1))));
+
+        assertThat(familyRepository.revoke(first.getId(), NOW)).contains(new RevokedFamily(first.getId(), first.getExpiresAt()));
+        assertThat(familyRepository.revoke(first.getId(), NOW)).isEmpty();
+        assertThat(familyRepository.revokeByUserIds(List.of(userId), NOW)).containsExactly(new RevokedFamily(second.getId(), second.getExpiresAt()));
+
+        assertThat(familyRepository.rotate(first.getId(), "token-1", "token-3", NOW.plus(Duration.ofDays(2)), NOW)).isFalse();
+        assertThat(familyRepository.findRevokedSince(NOW, NOW)).hasSize(2);
+        assertThat(familyRepository.findRevokedSince(NOW, NOW.plus(Duration.ofDays(1)))).isEmpty();
+    }
+
+    @Test
+    void testInsertRejectsExistingId() {
+        RefreshTokenFamily family = familyRepository.insert(family(new ObjectId(), "token-1", NOW.plus(Duration.ofDays(1))));
+
+        assertThatThrownBy(() -> familyRepository.insert(family))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void testUsersAreSortedAndPaged() {
+        User chef = userRepository.save(user("chef", "chef@domain.com"));
+        User baker = user("baker", "baker@domain.com");
+        baker.setDeletedAt(NOW);
+        userRepository.save(baker);
+        User cook = userRepository.save(user("Cook", "cook@domain.com"));
+
+        // missing values sort first and strings by their characters, like on MongoDB
+        assertThat(userRepository.findAll(Sort.by("deletedAt", "username")))
+                .extracting(User::getId).containsExactly(cook.getId(), chef.getId(), baker.getId());
+        assertThat(userRepository.findAll(Sort.by(Sort.Order.desc("username").ignoreCase())))
+                .extracting(User::getUsername).containsExactly("Cook", "chef", "baker");
+
+        Page<User> page = userRepository.findAll(PageRequest.of(1, 2, Sort.by("username")));
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(User::getUsername).containsExactly("chef");
+    }
+
+    @Test
+    void testUsersAreFoundByExample() {
+        userRepository.save(user("chef", "chef@domain.com"));
+        User disabled = user("cook", "cook@domain.com");
+        disabled.setEnabled(false);
+        userRepository.save(disabled);
+
+        User probe = new User();
+        probe.setEnabled(true);
+        assertThat(userRepository.findAll(Example.of(probe))).extracting(User::getUsername).containsExactly("chef");
+        assertThat(userRepository.count(Example.of(new User()))).isEqualTo(2);
+
+        probe = new User();
+        probe.setEmail("DOMAIN.COM");
+        Example<User> example = Example.of(probe, ExampleMatcher.matching().withMatcher("email", matcher -> matcher.endsWith().ignoreCase()));
+        assertThat(userRepository.findAll(example, Sort.by("username"))).extracting(User::getUsername).containsExactly("chef", "cook");
+        User last = userRepository.findBy(example, query -> query.sortBy(Sort.by(Sort.Order.desc("username"))).firstValue());
+        assertThat(last.getUsername()).isEqualTo("cook");
+        assertThatThrownBy(() -> userRepository.findOne(example))
+                .isInstanceOf(IncorrectResultSizeDataAccessException.class);
+
+        probe.setEmail("cook@");
+        assertThat(userRepository.exists(Example.of(probe, ExampleMatcher.matching().withStringMatcher(ExampleMatcher.StringMatcher.STARTING)))).isTrue();
+    }
+
+    private static User user(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword("{bcrypt}hash");
+        user.setEnabled(true);
+        user.setScopes(List.of(User.Scope.USER));
+        return user;
+    }
+
+    private static RefreshTokenFamily family(ObjectId userId, String tokenId, Instant expiresAt) {
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setUserId(userId);
+        family.setCurrentTokenId(tokenId);
+        family.setCreatedAt(NOW);
+        family.setExpiresAt(expiresAt);
+        return family;
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class AuthMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+
+    private AuthMetrics authMetrics;
+
+    @BeforeEach
+    void setUp() {
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("observationRegistry", observationRegistry);
+        authMetrics = new AuthMetrics(beanFactory.getBeanProvider(ObservationRegistry.class), meterRegistry);
+    }
+
+    @Test
+    void stagesAreTimedPerOperation() {
+        String result = authMetrics.observe(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Stage.LOOKUP, () -> "user");
+
+        assertThat(result).isEqualTo("user");
+        assertThat(stageTimer("authenticate", "lookup", "none").count()).isEqualTo(1);
+        assertThat(meterRegistry.find(AuthMetrics.STAGE_OBSERVATION).tag("operation", "refresh").timer()).isNull();
+    }
+
+    @Test
+    void failedStagesAreTaggedWithTheError() {
+        assertThatThrownBy(() -> authMetrics.observe(AuthMetrics.Operation.REFRESH, AuthMetrics.Stage.PERSIST, () -> {
+            throw new IllegalStateException("down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(stageTimer("refresh", "persist", "IllegalStateException").count()).isEqualTo(1);
+    }
+
+    @Test
+    void reactiveStagesAreTimedUntilTheyTerminate() {
+        Mono<String> stage = new ReactiveAuthMetrics(authMetrics).observe(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Stage.VERIFY, () -> Mono.just("match"));
+
+        // nothing is observed before subscription
+        assertThat(meterRegistry.find(AuthMetrics.STAGE_OBSERVATION).timer()).isNull();
+
+        assertThat(stage.block()).isEqualTo("match");
+        assertThat(stage.block()).isEqualTo("match");
+        assertThat(stageTimer("authenticate", "verify", "none").count()).isEqualTo(2);
+    }
+
+    @Test
+    void outcomesAreCounted() {
+        authMetrics.outcome(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Outcome.BAD_PASSWORD);
+        authMetrics.outcome(AuthMetrics.Operation.AUTHENTICATE, AuthMetrics.Outcome.BAD_PASSWORD);
+        authMetrics.outcome(AuthMetrics.Operation.REFRESH, AuthMetrics.Outcome.SUCCESS);
+
+        assertThat(meterRegistry.get("auth.requests").tags("operation", "authenticate", "outcome", "bad_password").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.requests").tags("operation", "refresh", "outcome", "success").counter().count()).isEqualTo(1);
+        // every outcome is registered up front, so rates start at zero
+        assertThat(meterRegistry.get("auth.requests").tags("operation", "authenticate", "outcome", "disabled").counter().count()).isZero();
+    }
+
+    private Timer stageTimer(String operation, String stage, String error) {
+        return meterRegistry.get(AuthMetrics.STAGE_OBSERVATION)
+                .tags("operation", operation, "stage", stage, "error", error)
+                .timer();
+    }
+}
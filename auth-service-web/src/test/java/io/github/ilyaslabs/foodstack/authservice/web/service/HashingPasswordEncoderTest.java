@@ -0,0 +1,103 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class HashingPasswordEncoderTest {
+
+    private static final String PASSWORD = "test123456";
+
+    @Test
+    void testLegacyBCryptHashIsVerifiedAndKept() {
+        HashingPasswordEncoder encoder = HashingPasswordEncoder.bcrypt(4);
+        String legacy = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        assertThat(encoder.matches(PASSWORD, legacy)).isTrue();
+        assertThat(encoder.matches("wrong-password", legacy)).isFalse();
+        assertThat(encoder.upgradeEncoding(legacy)).isFalse();
+    }
+
+    @Test
+    void testWeakerLegacyBCryptHashIsUpgraded() {
+        String legacy = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        assertThat(HashingPasswordEncoder.bcrypt(5).upgradeEncoding(legacy)).isTrue();
+        assertThat(HashingPasswordEncoder.pbkdf2(16, 1_000).upgradeEncoding(legacy)).isTrue();
+    }
+
+    @Test
+    void testCurrentHashIsNotUpgraded() {
+        HashingPasswordEncoder encoder = HashingPasswordEncoder.bcrypt(4);
+        String encoded = encoder.encode(PASSWORD);
+
+        assertThat(encoded).startsWith("{bcrypt}");
+        assertThat(encoder.matches(PASSWORD, encoded)).isTrue();
+        assertThat(encoder.upgradeEncoding(encoded)).isFalse();
+    }
+
+    @Test
+    void testWeakerBCryptStrengthIsUpgraded() {
+        String encoded = HashingPasswordEncoder.bcrypt(4).encode(PASSWORD);
+        HashingPasswordEncoder encoder = HashingPasswordEncoder.bcrypt(5);
+
+        assertThat(encoder.matches(PASSWORD, encoded)).isTrue();
+        assertThat(encoder.upgradeEncoding(encoded)).isTrue();
+    }
+
+    @Test
+    void testHashesOfOtherAlgorithmsAreVerifiedAndUpgraded() {
+        String pbkdf2 = HashingPasswordEncoder.pbkdf2(16, 1_000).encode(PASSWORD);
+        String argon2 = HashingPasswordEncoder.argon2(16, 32, 1, 1 << 10, 1).encode(PASSWORD);
+        HashingPasswordEncoder encoder = HashingPasswordEncoder.bcrypt(4);
+
+        assertThat(pbkdf2).startsWith("{pbkdf2-1000}");
+        assertThat(encoder.matches(PASSWORD, pbkdf2)).isTrue();
+        assertThat(encoder.upgradeEncoding(pbkdf2)).isTrue();
+
+        assertThat(argon2).startsWith("{argon2}");
+        assertThat(encoder.matches(PASSWORD, argon2)).isTrue();
+        assertThat(encoder.upgradeEncoding(argon2)).isTrue();
+    }
+
+    @Test
+    void testPbkdf2IterationChangeIsUpgraded() {
+        String encoded = HashingPasswordEncoder.pbkdf2(16, 1_000).encode(PASSWORD);
+        HashingPasswordEncoder encoder = HashingPasswordEncoder.pbkdf2(16, 2_000);
+
+        assertThat(encoder.matches(PASSWORD, encoded)).isTrue();
+        assertThat(encoder.upgradeEncoding(encoded)).isTrue();
+    }
+
+    @Test
+    void testStrongerPbkdf2HashIsNotDowngraded() {
+        // another instance calibrated to more iterations
+        String encoded = HashingPasswordEncoder.pbkdf2(16, 2_000).encode(PASSWORD);
+        HashingPasswordEncoder encoder = HashingPasswordEncoder.pbkdf2(16, 1_000);
+
+        assertThat(encoder.matches(PASSWORD, encoded)).isTrue();
+        assertThat(encoder.upgradeEncoding(encoded)).isFalse();
+    }
+
+    @Test
+    void testPbkdf2HashIsVerifiedAfterSaltLengthChange() {
+        String encoded = HashingPasswordEncoder.pbkdf2(16, 1_000).encode(PASSWORD);
+        HashingPasswordEncoder encoder = HashingPasswordEncoder.pbkdf2(32, 1_000);
+
+        assertThat(encoder.matches(PASSWORD, encoded)).isTrue();
+        assertThat(encoder.matches("wrong-password", encoded)).isFalse();
+        assertThat(encoder.matches(PASSWORD, encoder.encode(PASSWORD))).isTrue();
+    }
+
+    @Test
+    void testUnknownAlgorithmDoesNotMatch() {
+        HashingPasswordEncoder encoder = HashingPasswordEncoder.bcrypt(4);
+
+        assertThat(encoder.matches(PASSWORD, "{noop}" + PASSWORD)).isFalse();
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.web.BaseTest;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.AppliedIndexMigration;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.IndexMigrationLease;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.migration.UserIndexMigrations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class IndexMigratorTest extends BaseTest {
+
+    @Autowired
+    private IndexMigrator indexMigrator;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private Clock clock;
+
+    /**
+     * a database of the baseline: full unique indexes and no migration applied
+     */
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(AppliedIndexMigration.class);
+        IndexOperations indexOperations = mongoTemplate.indexOps(User.class);
+        indexOperations.dropAllIndexes();
+        indexOperations.createIndex(new Index().on("username", Sort.Direction.ASC).unique().named("username"));
+        indexOperations.createIndex(new Index().on("email", Sort.Direction.ASC).unique().named("email"));
+    }
+
+    @Test
+    void testConcurrentMigrationsApplyEachMigrationOnce() throws Exception {
+        int applied;
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<Integer> first = executor.submit(indexMigrator::migrate);
+            Future<Integer> second = executor.submit(indexMigrator::migrate);
+            applied = first.get() + second.get();
+        }
+
+        assertThat(applied).isEqualTo(UserIndexMigrations.MIGRATIONS.size());
+        assertThat(mongoTemplate.count(Query.query(Criteria.where("appliedAt").exists(true)), AppliedIndexMigration.class))
+                .isEqualTo(UserIndexMigrations.MIGRATIONS.size());
+        assertThat(mongoTemplate.indexOps(User.class).getIndexInfo()).extracting(IndexInfo::getName)
+                .contains("loginKeys_notDeleted", "username_notDeleted", "email_notDeleted")
+                .doesNotContain("username", "email");
+        assertThat(mongoTemplate.exists(Query.query(Criteria.where("_id").is(IndexMigrationLease.ID)), IndexMigrationLease.class)).isFalse();
+    }
+
+    @Test
+    void testExpiredLeaseIsTakenOver() {
+        // held by an instance which stopped while migrating
+        IndexMigrationLease lease = new IndexMigrationLease();
+        lease.setId(IndexMigrationLease.ID);
+        lease.setOwner("stopped");
+        lease.setExpiresAt(clock.instant().minus(Duration.ofMinutes(1)));
+        mongoTemplate.save(lease);
+
+        assertThat(indexMigrator.migrate()).isEqualTo(UserIndexMigrations.MIGRATIONS.size());
+        assertThat(indexMigrator.migrate()).isZero();
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthRequest;
+import io.github.ilyaslabs.foodstack.authservice.web.config.LoginCoalescingConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.AuthPrincipal;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class LoginCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoginCoalescingConfig config = new LoginCoalescingConfig();
+    private final AtomicInteger logins = new AtomicInteger();
+
+    @Test
+    void concurrentIdenticalRequestsShareOneVerification() throws Exception {
+        LoginCoalescer loginCoalescer = new LoginCoalescer(config, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<AuthPrincipal>> users = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                // the login key ignores case, like the lookup
+                String username = i % 2 == 0 ? "alice" : "Alice";
+                users.add(executor.submit(() -> loginCoalescer.coalesce(new AuthRequest(username, "password1"), () -> {
+                    await(release);
+                    return principal();
+                })));
+            }
+
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<AuthPrincipal> user : users) {
+                assertThat(user.get(5, TimeUnit.SECONDS).username()).isEqualTo("user-1");
+            }
+        }
+
+        assertThat(logins).hasValue(1);
+        assertThat(meterRegistry.get("auth.login.coalesced").counter().count()).isEqualTo(7);
+    }
+
+    @Test
+    void otherPasswordIsNotCoalesced() throws Exception {
+        LoginCoalescer loginCoalescer = new LoginCoalescer(config, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<AuthPrincipal> first = executor.submit(() -> loginCoalescer.coalesce(new AuthRequest("alice", "password1"), () -> {
+                await(release);
+                return principal();
+            }));
+            Future<AuthPrincipal> second = executor.submit(() -> loginCoalescer.coalesce(new AuthRequest("alice", "password2"), () -> {
+                await(release);
+                return principal();
+            }));
+
+            Thread.sleep(200);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).username()).isNotEqualTo(second.get(5, TimeUnit.SECONDS).username());
+        }
+
+        assertThat(logins).hasValue(2);
+    }
+
+    @Test
+    void completedResultIsOnlyReusedWithinWindow() {
+        LoginCoalescer loginCoalescer = new LoginCoalescer(config, meterRegistry);
+        loginCoalescer.coalesce(new AuthRequest("alice", "password1"), this::principal);
+        loginCoalescer.coalesce(new AuthRequest("alice", "password1"), this::principal);
+        assertThat(logins).hasValue(2);
+
+        config.setWindow(Duration.ofMinutes(1));
+        LoginCoalescer windowed = new LoginCoalescer(config, meterRegistry);
+        AuthPrincipal first = windowed.coalesce(new AuthRequest("alice", "password1"), this::principal);
+        assertThat(windowed.coalesce(new AuthRequest("alice", "password1"), this::principal)).isSameAs(first);
+        assertThat(logins).hasValue(3);
+    }
+
+    @Test
+    void failuresAreNotKept() {
+        config.setWindow(Duration.ofMinutes(1));
+        LoginCoalescer loginCoalescer = new LoginCoalescer(config, meterRegistry);
+
+        assertThatThrownBy(() -> loginCoalescer.coalesce(new AuthRequest("alice", "password1"), () -> {
+            logins.incrementAndGet();
+            throw HttpResponseException.of(HttpStatus.SERVICE_UNAVAILABLE, "Busy", Map.of());
+        })).isInstanceOf(HttpResponseException.class);
+
+        loginCoalescer.coalesce(new AuthRequest("alice", "password1"), this::principal);
+        assertThat(logins).hasValue(2);
+    }
+
+    @Test
+    void asyncRequestsShareOneVerification() throws Exception {
+        LoginCoalescer loginCoalescer = new LoginCoalescer(config, meterRegistry);
+        CompletableFuture<AuthPrincipal> login = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+
+        CompletableFuture<AuthPrincipal> first = loginCoalescer.coalesceAsync(new AuthRequest("alice", "password1"), () -> {
+            started.incrementAndGet();
+            return login;
+        });
+        CompletableFuture<AuthPrincipal> second = loginCoalescer.coalesceAsync(new AuthRequest("alice", "password1"), () -> {
+            started.incrementAndGet();
+            return login;
+        });
+        // a request going away does not cancel the shared login
+        first.cancel(false);
+        CompletableFuture<AuthPrincipal> third = loginCoalescer.coalesceAsync(new AuthRequest("alice", "password1"), () -> {
+            started.incrementAndGet();
+            return login;
+        });
+
+        login.complete(principal());
+
+        assertThat(started).hasValue(1);
+        assertThat(second.get(5, TimeUnit.SECONDS).username()).isEqualTo("user-1");
+        assertThat(third.get(5, TimeUnit.SECONDS).username()).isEqualTo("user-1");
+    }
+
+    private AuthPrincipal principal() {
+        return new AuthPrincipal(new ObjectId(), "user-" + logins.incrementAndGet(), "hash", true, List.of(), null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
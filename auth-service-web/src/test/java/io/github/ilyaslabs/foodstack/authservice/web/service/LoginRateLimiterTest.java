@@ -0,0 +1,189 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.RateLimitConfig;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class LoginRateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TestClock clock = new TestClock();
+    private final RateLimitConfig config = new RateLimitConfig();
+
+    private LoginRateLimiter loginRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        config.setStripes(1_024);
+        loginRateLimiter = new LoginRateLimiter(config, clock, meterRegistry);
+    }
+
+    @Test
+    void limitsAttemptsPerUsernameAndRefills() {
+        for (int i = 0; i < 5; i++) {
+            loginRateLimiter.acquire("alice", "10.0.0." + i);
+        }
+        // the username is normalized like the lookup
+        assertThatThrownBy(() -> loginRateLimiter.acquire(" Alice", "10.0.0.9"))
+                .isInstanceOf(HttpResponseException.class);
+        assertThat(meterRegistry.get("auth.rate-limit.rejected").tag("reason", "username").counter().count()).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(12));
+        loginRateLimiter.acquire("alice", "10.0.0.9");
+        assertThatThrownBy(() -> loginRateLimiter.acquire("alice", "10.0.0.9"))
+                .isInstanceOf(HttpResponseException.class);
+    }
+
+    @Test
+    void servicePrincipalsHaveBucketsOfTheirOwn() {
+        config.setServicePrincipals(Set.of("System"));
+        loginRateLimiter = new LoginRateLimiter(config, clock, meterRegistry);
+
+        // e.g. 100 instances of other services starting together
+        for (int i = 0; i < 100; i++) {
+            loginRateLimiter.acquire("system", "10.0.1." + i);
+        }
+        assertThatThrownBy(() -> loginRateLimiter.acquire("system", "10.0.2.1"))
+                .isInstanceOf(HttpResponseException.class);
+
+        clock.advance(Duration.ofMillis(100));
+        loginRateLimiter.acquire("system", "10.0.2.1");
+
+        // other usernames keep the per-user limit
+        for (int i = 0; i < 5; i++) {
+            loginRateLimiter.acquire("alice", "10.0.0." + i);
+        }
+        assertThatThrownBy(() -> loginRateLimiter.acquire("alice", "10.0.0.9"))
+                .isInstanceOf(HttpResponseException.class);
+    }
+
+    @Test
+    void limitsAttemptsPerAddress() {
+        for (int i = 0; i < 30; i++) {
+            loginRateLimiter.acquire("user" + i, "10.0.0.1");
+        }
+
+        assertThatThrownBy(() -> loginRateLimiter.acquire("bob", "10.0.0.1"))
+                .isInstanceOf(HttpResponseException.class);
+        assertThat(meterRegistry.get("auth.rate-limit.rejected").tag("reason", "address").counter().count()).isEqualTo(1);
+
+        loginRateLimiter.acquire("bob", "10.0.0.2");
+    }
+
+    @Test
+    void locksOutProgressivelyAfterConsecutiveFailures() {
+        config.getUsername().setCapacity(100);
+
+        for (int i = 0; i < 5; i++) {
+            loginRateLimiter.acquire("alice", null);
+            loginRateLimiter.onFailure("alice");
+        }
+        assertThatThrownBy(() -> loginRateLimiter.acquire("alice", null))
+                .isInstanceOf(HttpResponseException.class);
+        assertThat(meterRegistry.get("auth.rate-limit.rejected").tag("reason", "lockout").counter().count()).isEqualTo(1);
+
+        // the first lockout lasts the initial duration
+        clock.advance(Duration.ofSeconds(30));
+        loginRateLimiter.acquire("alice", null);
+        loginRateLimiter.onFailure("alice");
+
+        // the next one twice as long
+        clock.advance(Duration.ofSeconds(59));
+        assertThatThrownBy(() -> loginRateLimiter.acquire("alice", null))
+                .isInstanceOf(HttpResponseException.class);
+        clock.advance(Duration.ofSeconds(1));
+        loginRateLimiter.acquire("alice", null);
+
+        // a successful login lifts it
+        loginRateLimiter.onFailure("alice");
+        loginRateLimiter.onSuccess("alice");
+        loginRateLimiter.acquire("alice", null);
+    }
+
+    @Test
+    void failuresAreForgottenAfterResetTime() {
+        config.getUsername().setCapacity(100);
+
+        for (int i = 0; i < 4; i++) {
+            loginRateLimiter.onFailure("alice");
+        }
+        clock.advance(Duration.ofMinutes(15));
+        loginRateLimiter.onFailure("alice");
+
+        loginRateLimiter.acquire("alice", null);
+    }
+
+    @Test
+    void concurrentAttemptsNeverExceedCapacity() throws Exception {
+        config.getUsername().setCapacity(50);
+        AtomicInteger acquired = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 200; i++) {
+                executor.execute(() -> {
+                    try {
+                        loginRateLimiter.acquire("alice", null);
+                        acquired.incrementAndGet();
+                    } catch (HttpResponseException e) {
+                        // limited
+                    }
+                });
+            }
+        }
+
+        assertThat(acquired).hasValue(50);
+    }
+
+    @Test
+    void disabledLimiterAllowsEverything() {
+        config.setEnabled(false);
+
+        for (int i = 0; i < 100; i++) {
+            loginRateLimiter.acquire("alice", "10.0.0.1");
+            loginRateLimiter.onFailure("alice");
+        }
+    }
+
+    private static class TestClock extends Clock {
+
+        private volatile Instant instant = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.web.config.HashingConfig;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class PasswordHasherTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PasswordHasher passwordHasher;
+
+    @BeforeEach
+    void setUp() {
+        HashingConfig hashingConfig = new HashingConfig();
+        hashingConfig.setThreads(1);
+        hashingConfig.setQueueCapacity(1);
+        hashingConfig.setMaxWait(Duration.ofSeconds(5));
+
+        passwordHasher = new PasswordHasher(new BlockingPasswordEncoder(), hashingConfig, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    void testMatchesRunsOnHashingExecutor() {
+        release.countDown();
+
+        assertThat(passwordHasher.matches("password", "password")).isTrue();
+        assertThat(passwordHasher.matches("password", "other")).isFalse();
+        assertThat(meterRegistry.get("auth.hashing.queue.wait").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testMatchesIsRejectedWhenQueueIsFull() throws Exception {
+        // one task running, one task queued
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> passwordHasher.matches("password", "password"));
+        waitForActiveTasks();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> passwordHasher.matches("password", "password"));
+        waitForQueueDepth();
+
+        assertThatThrownBy(() -> passwordHasher.matches("password", "password"))
+                .isInstanceOf(HttpResponseException.class);
+        assertThat(meterRegistry.get("auth.hashing.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void testMatchesIsSkippedWhenItWaitsTooLongForAThread() throws Exception {
+        HashingConfig hashingConfig = new HashingConfig();
+        hashingConfig.setThreads(1);
+        hashingConfig.setMaxWait(Duration.ofMillis(50));
+        CountingPasswordEncoder passwordEncoder = new CountingPasswordEncoder();
+        SimpleMeterRegistry hasherMeterRegistry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(passwordEncoder, hashingConfig, hasherMeterRegistry);
+
+        try {
+            // the running hash outlives the maximum wait, it is not interrupted
+            CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> hasher.matches("password", "password"));
+            waitForActiveTasks(hasherMeterRegistry);
+            CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> hasher.matches("password", "password"));
+            waitForQueueDepth(hasherMeterRegistry);
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(HttpResponseException.class);
+            assertThat(passwordEncoder.hashes).hasValue(1);
+            assertThat(hasherMeterRegistry.get("auth.hashing.timeout").counter().count()).isEqualTo(1);
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void testMatchesAsyncIsSkippedWhenItWaitsTooLongForAThread() throws Exception {
+        HashingConfig hashingConfig = new HashingConfig();
+        hashingConfig.setThreads(1);
+        hashingConfig.setMaxWait(Duration.ofMillis(50));
+        CountingPasswordEncoder passwordEncoder = new CountingPasswordEncoder();
+        SimpleMeterRegistry hasherMeterRegistry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(passwordEncoder, hashingConfig, hasherMeterRegistry);
+
+        try {
+            // the running hash outlives the maximum wait and still completes
+            CompletableFuture<Boolean> running = hasher.matchesAsync("password", "password");
+            waitForActiveTasks(hasherMeterRegistry);
+            CompletableFuture<Boolean> queued = hasher.matchesAsync("password", "password");
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(HttpResponseException.class);
+            assertThat(passwordEncoder.hashes).hasValue(1);
+            assertThat(hasherMeterRegistry.get("auth.hashing.timeout").counter().count()).isEqualTo(1);
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void testCancelledMatchesAsyncIsSkipped() throws Exception {
+        CountingPasswordEncoder passwordEncoder = new CountingPasswordEncoder();
+        SimpleMeterRegistry hasherMeterRegistry = new SimpleMeterRegistry();
+        HashingConfig hashingConfig = new HashingConfig();
+        hashingConfig.setThreads(1);
+        PasswordHasher hasher = new PasswordHasher(passwordEncoder, hashingConfig, hasherMeterRegistry);
+
+        try {
+            CompletableFuture<Boolean> running = hasher.matchesAsync("password", "password");
+            waitForActiveTasks(hasherMeterRegistry);
+            hasher.matchesAsync("password", "password").cancel(false);
+            release.countDown();
+
+            assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+            // the cancelled task reached the thread and was dropped, a later hash runs after it
+            assertThat(hasher.matchesAsync("password", "password").get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(passwordEncoder.hashes).hasValue(2);
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void testVirtualThreadWaitingForHashDoesNotPinCarrier() throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            // the caller parks in the wait for the hashing executor, which must unmount it
+            Thread caller = Thread.ofVirtual().start(() -> passwordHasher.matches("password", "password"));
+            waitForActiveTasks();
+            release.countDown();
+            caller.join();
+
+            recording.stop();
+        }
+
+        assertThat(pinned).isEmpty();
+    }
+
+    private void waitForActiveTasks() throws InterruptedException {
+        waitForActiveTasks(meterRegistry);
+    }
+
+    private void waitForQueueDepth() throws InterruptedException {
+        waitForQueueDepth(meterRegistry);
+    }
+
+    private static void waitForActiveTasks(SimpleMeterRegistry meterRegistry) throws InterruptedException {
+        while (meterRegistry.get("auth.hashing.active").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void waitForQueueDepth(SimpleMeterRegistry meterRegistry) throws InterruptedException {
+        while (meterRegistry.get("auth.hashing.queue.depth").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * {@link BlockingPasswordEncoder} counting the hashes started.
+     */
+    private class CountingPasswordEncoder extends BlockingPasswordEncoder {
+
+        private final AtomicInteger hashes = new AtomicInteger();
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            hashes.incrementAndGet();
+            return super.matches(rawPassword, encodedPassword);
+        }
+    }
+
+    /**
+     * Plain text encoder which blocks until the test releases it, simulating a slow hash.
+     */
+    private class BlockingPasswordEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
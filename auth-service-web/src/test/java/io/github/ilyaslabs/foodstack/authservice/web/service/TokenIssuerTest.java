@@ -0,0 +1,109 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.AuthResponse;
+import io.github.ilyaslabs.foodstack.authservice.security.common.CommonSecurityConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.db.projection.UserPrincipal;
+import io.github.ilyaslabs.foodstack.authservice.web.jwt.JwsSigner;
+import io.github.ilyaslabs.microservice.exception.HttpResponseException;
+import io.github.ilyaslabs.microservice.security.jwt.AuthService;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class TokenIssuerTest {
+
+    private static final String ISSUER = "http://foodstack.authservice.com";
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private static KeyPair keyPair;
+    private static TokenIssuer tokenIssuer;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+
+        tokenIssuer = new TokenIssuer(
+                JwsSigner.rs256(keyPair.getPrivate()),
+                ISSUER,
+                Duration.ofMinutes(10),
+                Duration.ofDays(1),
+                Clock.fixed(NOW, ZoneOffset.UTC)
+        );
+    }
+
+    @Test
+    void testTokensAreSignedWithExpectedClaims() throws Exception {
+        ObjectId id = new ObjectId();
+        AuthResponse response = tokenIssuer.buildAuthResponse(
+                new UserPrincipal(id, "chef \"quoted\"", true, List.of(User.Scope.USER, User.Scope.ADMIN), null));
+
+        assertThat(response.getUserId()).isEqualTo(id.toHexString());
+        assertThat(response.getUsername()).isEqualTo("chef \"quoted\"");
+        assertThat(response.getScopes()).containsExactly("ADMIN", "USER");
+        assertThat(response.getExpiresIn()).isEqualTo(NOW.plus(Duration.ofMinutes(10)).getEpochSecond());
+        assertThat(response.getRefreshTokenExpiresIn()).isEqualTo(NOW.plus(Duration.ofDays(1)).getEpochSecond());
+
+        JWTClaimsSet token = verify(response.getToken());
+        assertThat(token.getIssuer()).isEqualTo(ISSUER);
+        assertThat(token.getSubject()).isEqualTo(id.toHexString());
+        assertThat(token.getIssueTime().toInstant()).isEqualTo(NOW);
+        assertThat(token.getExpirationTime().toInstant().getEpochSecond()).isEqualTo(response.getExpiresIn());
+        assertThat(token.getClaim(CommonSecurityConfig.JWT_CLAIM_USER_ID)).isEqualTo(id.toHexString());
+        assertThat(token.getClaim(CommonSecurityConfig.JWT_CLAIM_USERNAME)).isEqualTo("chef \"quoted\"");
+        assertThat(token.getClaim(AuthService.KEY_SCOPE_CLAIM)).isEqualTo("ADMIN USER");
+
+        JWTClaimsSet refreshToken = verify(response.getRefreshToken());
+        assertThat(refreshToken.getSubject()).isEqualTo(id.toHexString());
+        assertThat(refreshToken.getExpirationTime().toInstant().getEpochSecond()).isEqualTo(response.getRefreshTokenExpiresIn());
+        assertThat(refreshToken.getClaim(CommonSecurityConfig.JWT_CLAIM_USER_ID)).isEqualTo(id.toHexString());
+        assertThat(refreshToken.getClaim(AuthService.KEY_SCOPE_CLAIM)).isEqualTo(CommonSecurityConfig.SCOPE_REFRESH_TOKEN);
+    }
+
+    @Test
+    void testUserWithoutScopes() throws Exception {
+        AuthResponse response = tokenIssuer.buildAuthResponse(new UserPrincipal(new ObjectId(), "waiter", true, null, null));
+
+        assertThat(response.getScopes()).isEmpty();
+        assertThat(verify(response.getToken()).getClaim(AuthService.KEY_SCOPE_CLAIM)).isNull();
+    }
+
+    @Test
+    void testDisabledUserIsRejected() {
+        assertThatThrownBy(() -> tokenIssuer.buildAuthResponse(new UserPrincipal(new ObjectId(), "waiter", false, null, null)))
+                .isInstanceOf(HttpResponseException.class);
+        assertThatThrownBy(() -> tokenIssuer.buildAuthResponse(new UserPrincipal(new ObjectId(), "waiter", true, null, NOW)))
+                .isInstanceOf(HttpResponseException.class);
+    }
+
+    private static JWTClaimsSet verify(String token) throws Exception {
+        SignedJWT jwt = SignedJWT.parse(token);
+
+        assertThat(jwt.getHeader().getAlgorithm()).isEqualTo(JWSAlgorithm.RS256);
+        assertThat(jwt.verify(new RSASSAVerifier((RSAPublicKey) keyPair.getPublic()))).isTrue();
+
+        return jwt.getJWTClaimsSet();
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.UserExportRecord;
+import io.github.ilyaslabs.foodstack.authservice.web.config.UserExportConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory.InMemoryUserRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class UserExporterTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final InMemoryUserRepository userRepository = new InMemoryUserRepository();
+    private final UserExportConfig config = new UserExportConfig();
+    private final UserExporter userExporter = new UserExporter(userRepository, config);
+    private final List<UserExportRecord> records = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        config.setPageSize(3);
+        // user-0 and user-1 updated last, all others in pairs with the same update time
+        for (int i = 0; i < 10; i++) {
+            User user = new User();
+            user.setId(new ObjectId(String.format("5f73333333333333333333%02d", i)));
+            user.setUsername("user-" + i);
+            user.setEmail("user-" + i + "@domain.com");
+            user.setEnabled(true);
+            user.setScopes(List.of(User.Scope.USER));
+            user.setUpdatedAt(NOW.plus(Duration.ofMinutes(i < 2 ? 10 : i / 2)));
+            userRepository.save(user);
+        }
+    }
+
+    @Test
+    void testAllUsersAreExportedInIdOrder() {
+        assertThat(userExporter.export(null, null, records::add)).isEqualTo(10);
+
+        assertThat(records).extracting(UserExportRecord::getUsername)
+                .containsExactly("user-0", "user-1", "user-2", "user-3", "user-4", "user-5", "user-6", "user-7", "user-8", "user-9");
+        assertThat(records.getFirst().getScopes()).containsExactly("USER");
+    }
+
+    @Test
+    void testExportIsResumedAfterTheLastUserReceived() {
+        userExporter.export(new ObjectId("5f7333333333333333333306"), null, records::add);
+
+        assertThat(records).extracting(UserExportRecord::getUsername).containsExactly("user-7", "user-8", "user-9");
+    }
+
+    @Test
+    void testUsersUpdatedSinceTheWatermarkAreExportedAcrossPages() {
+        // the page boundary falls between users updated at the same time
+        userExporter.export(null, NOW.plus(Duration.ofMinutes(3)), records::add);
+
+        assertThat(records).extracting(UserExportRecord::getUsername)
+                .containsExactly("user-6", "user-7", "user-8", "user-9", "user-0", "user-1");
+
+        records.clear();
+        userExporter.export(new ObjectId("5f7333333333333333333308"), NOW.plus(Duration.ofMinutes(4)), records::add);
+
+        assertThat(records).extracting(UserExportRecord::getUsername).containsExactly("user-9", "user-0", "user-1");
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.ilyaslabs.foodstack.authservice.web.service;
+
+import io.github.ilyaslabs.foodstack.authservice.api.v1.dto.UserImportResult;
+import io.github.ilyaslabs.foodstack.authservice.web.config.UserImportConfig;
+import io.github.ilyaslabs.foodstack.authservice.web.db.document.User;
+import io.github.ilyaslabs.foodstack.authservice.web.repository.inmemory.InMemoryUserRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class UserImporterTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final InMemoryUserRepository userRepository = new InMemoryUserRepository();
+    private final UserImportConfig config = new UserImportConfig();
+    private final List<UserImportResult> results = new ArrayList<>();
+
+    private UserImporter userImporter;
+
+    @AfterEach
+    void tearDown() {
+        userImporter.shutdown();
+    }
+
+    @Test
+    void testUsersAreImportedAndRejectedPerRecord() throws IOException {
+        config.setBatchSize(2);
+        userImporter = userImporter();
+
+        long created = userImporter.importUsers(ndjson("""
+                {"username":"chef","email":"chef@domain.com","password":"password1"}
+                not json
+
+                {"username":"cook","email":"cook@domain.com","password":"short"}
+                {"username":"Chef","email":"other@domain.com","password":"password1"}
+                {"username":"waiter","email":"waiter@domain.com","password":"password1","enabled":false,"scopes":["ADMIN"]}
+                {"username":"host","email":"host@domain.com","password":"password1","scopes":["OWNER"]}
+                """), results::add);
+
+        Map<Long, UserImportResult> byLine = results.stream().collect(Collectors.toMap(UserImportResult::getLine, Function.identity()));
+        assertThat(created).isEqualTo(2);
+        assertThat(byLine).hasSize(6);
+        assertThat(byLine.get(1L).getUserId()).isNotNull();
+        assertThat(byLine.get(2L).getError()).isEqualTo("Invalid JSON");
+        assertThat(byLine.get(4L).getError()).isEqualTo("Password must be at least 8 characters long");
+        assertThat(byLine.get(5L).getError()).isEqualTo("User already exists");
+        assertThat(byLine.get(7L).getError()).isEqualTo("Invalid scope");
+
+        User chef = findUser("chef");
+        assertThat(chef.getId().toHexString()).isEqualTo(byLine.get(1L).getUserId());
+        assertThat(chef.getPassword()).isEqualTo("{test}password1");
+        assertThat(chef.getScopes()).containsExactly(User.Scope.USER);
+        assertThat(chef.getEnabled()).isTrue();
+        assertThat(chef.getCreatedAt()).isEqualTo(NOW);
+
+        User waiter = findUser("waiter@domain.com");
+        assertThat(waiter.getEnabled()).isFalse();
+        assertThat(waiter.getScopes()).containsExactly(User.Scope.ADMIN);
+    }
+
+    @Test
+    void testUploadIsReadOneBatchAhead() throws IOException {
+        config.setBatchSize(10);
+        userImporter = userImporter();
+
+        // each record counts the users inserted when it is read
+        List<Integer> insertedWhenRead = new ArrayList<>();
+        List<InputStream> lines = IntStream.range(0, 35)
+                .mapToObj(i -> (InputStream) new ByteArrayInputStream(new byte[0]) {
+                    @Override
+                    public synchronized int read(byte[] b, int off, int len) {
+                        if (pos == 0 && count == 0) {
+                            insertedWhenRead.add((int) userRepository.count());
+                            buf = ("{\"username\":\"user-" + i + "\",\"email\":\"user-" + i + "@domain.com\",\"password\":\"password1\"}\n").getBytes(StandardCharsets.UTF_8);
+                            count = buf.length;
+                        }
+                        return super.read(b, off, len);
+                    }
+                })
+                .toList();
+
+        long created = userImporter.importUsers(new SequenceInputStream(Collections.enumeration(lines)), results::add);
+
+        assertThat(created).isEqualTo(35);
+        assertThat(results).hasSize(35).allSatisfy(result -> assertThat(result.getError()).isNull());
+        assertThat(insertedWhenRead.get(9)).isZero();
+        assertThat(insertedWhenRead.get(10)).isEqualTo(10);
+        assertThat(insertedWhenRead.get(34)).isEqualTo(30);
+    }
+
+    private UserImporter userImporter() {
+        Validator validator = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory()
+                .getValidator();
+        return new UserImporter(userRepository, new TestPasswordEncoder(), JsonMapper.builder().build(), validator, Clock.fixed(NOW, ZoneOffset.UTC), config);
+    }
+
+    private User findUser(String loginKey) {
+        return userRepository.findById(userRepository.findLivePrincipalByLoginKeys(loginKey).orElseThrow().id()).orElseThrow();
+    }
+
+    private static InputStream ndjson(String lines) {
+        return new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class TestPasswordEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "{test}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package io.github.ilyaslabs.foodstack.authservice.security.common;
 
+import io.github.ilyaslabs.microservice.security.jwt.AuthService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
 /**
@@ -19,8 +23,16 @@ public class CommonSecurityConfig {
 
     public static final String JWT_CLAIM_USER_ID = "userId";
     public static final String JWT_CLAIM_USERNAME = "username";
+    public static final String JWT_CLAIM_TOKEN_ID = "jti";
+    public static final String JWT_CLAIM_FAMILY_ID = "fid";
 
-    private static final String[] SWAGGER_WHITELIST = {
+    static final String PATH_AUTHENTICATE = "/api/v*/authenticate";
+    static final String PATH_REFRESH = "/api/v*/refresh";
+    static final String PATH_INTERNAL = "/api/v*/internal/**";
+    static final String PATH_JWKS = "/.well-known/jwks.json";
+    static final String PATH_ACTUATOR = "/actuator/**";
+
+    static final String[] SWAGGER_WHITELIST = {
             "/v3/api-docs/**",
             "/swagger-ui/**",
             "/swagger-ui.html",
@@ -29,15 +41,21 @@ public class CommonSecurityConfig {
     };
 
     @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
     public SecurityFilterChain SecurityFilterChain(HttpSecurity http,
                                                    DocumentationConfig docConfig,
                                                    ActuatorConfig actuatorConfig) throws Exception {
+        // bearer tokens are verified by the JwtDecoder bean, their scopes mapped like on the reactive stack
+        http
+                .oauth2ResourceServer(customizer -> customizer.jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())));
+
         http
                 .authorizeHttpRequests(customizer ->
                         customizer
-                                .requestMatchers("/api/v*/authenticate").permitAll()
-                                .requestMatchers("/api/v*/refresh").hasAuthority(SCOPE_PREFIX + SCOPE_REFRESH_TOKEN)
-                                .requestMatchers("/api/v*/internal/**").hasAuthority(SCOPE_PREFIX + SCOPE_SYSTEM)
+                                .requestMatchers(PATH_AUTHENTICATE).permitAll()
+                                .requestMatchers(PATH_JWKS).permitAll()
+                                .requestMatchers(PATH_REFRESH).hasAuthority(SCOPE_PREFIX + SCOPE_REFRESH_TOKEN)
+                                .requestMatchers(PATH_INTERNAL).hasAuthority(SCOPE_PREFIX + SCOPE_SYSTEM)
                 );
 
         // allow public access to swagger
@@ -47,7 +65,7 @@ public class CommonSecurityConfig {
 
         // allow public access to actuator
         if (actuatorConfig.isEnabled()) {
-            http.authorizeHttpRequests(customizer -> customizer.requestMatchers("/actuator/**").permitAll());
+            http.authorizeHttpRequests(customizer -> customizer.requestMatchers(PATH_ACTUATOR).permitAll());
         }
 
         http
@@ -55,4 +73,20 @@ public class CommonSecurityConfig {
 
         return http.build();
     }
+
+    /**
+     * Maps the scopes of a token to {@code SCOPE_} prefixed authorities, which the rules of the
+     * filter chains are expressed in.
+     *
+     * @return converter of decoded tokens to authentications
+     */
+    public static JwtAuthenticationConverter jwtAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        authoritiesConverter.setAuthoritiesClaimName(AuthService.KEY_SCOPE_CLAIM);
+        authoritiesConverter.setAuthorityPrefix(SCOPE_PREFIX);
+
+        JwtAuthenticationConverter authenticationConverter = new JwtAuthenticationConverter();
+        authenticationConverter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+        return authenticationConverter;
+    }
 }
@@ -0,0 +1,70 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common;
+
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.JwksVerificationKeys;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.PemKeys;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.PublicKeyJwtDecoders;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.StaticVerificationKeys;
+import io.github.ilyaslabs.foodstack.authservice.security.common.jwt.VerificationKeySource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.security.PublicKey;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Configuration
+class JwtDecoderConfig {
+
+    /**
+     * Decoder accepting tokens signed with the RSA key of the microservice JWT support, with any of
+     * the {@code auth.jwt.public-keys}, with keys of the {@code auth.jwt.jwks-uri} and with keys of
+     * {@link VerificationKeySource} beans of the application. Expiry is checked against the
+     * application's {@link Clock}, if it has one.
+     */
+    @Bean
+    @Primary
+    JwtDecoder multiAlgorithmJwtDecoder(JwtVerificationConfig config,
+                                        ObjectProvider<VerificationKeySource> applicationKeySources,
+                                        ObjectProvider<Clock> clock,
+                                        @Value("${io.github.ilyaslabs.microservice.security.jwt.rsa.public-key:}") String rsaPublicKey) {
+        List<VerificationKeySource> keySources = new ArrayList<>();
+        applicationKeySources.orderedStream().forEach(keySources::add);
+
+        List<PublicKey> publicKeys = new ArrayList<>();
+        if (!rsaPublicKey.isBlank()) {
+            publicKeys.add(PemKeys.readPublicKey(rsaPublicKey, "RSA"));
+        }
+        config.getPublicKeys().forEach(publicKey -> publicKeys.add(PemKeys.readPublicKey(publicKey)));
+        if (!publicKeys.isEmpty()) {
+            keySources.add(new StaticVerificationKeys(publicKeys));
+        }
+
+        if (config.getJwksUri() != null) {
+            keySources.add(new JwksVerificationKeys(config.getJwksUri(), config.getJwksCacheTtl()));
+        }
+
+        if (keySources.isEmpty()) {
+            throw new IllegalStateException("No JWT verification key configured");
+        }
+
+        NimbusJwtDecoder jwtDecoder = PublicKeyJwtDecoders.create(keySources);
+        clock.ifUnique(applicationClock -> {
+            JwtTimestampValidator timestampValidator = new JwtTimestampValidator();
+            timestampValidator.setClock(applicationClock);
+            jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithValidators(timestampValidator));
+        });
+        return jwtDecoder;
+    }
+}
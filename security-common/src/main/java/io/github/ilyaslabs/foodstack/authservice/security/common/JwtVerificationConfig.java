@@ -0,0 +1,34 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@ConfigurationProperties("auth.jwt")
+@Data
+class JwtVerificationConfig {
+
+    /**
+     * PEM encoded RS256, ES256 (P-256) or EdDSA (Ed25519) public keys accepted in addition to the
+     * {@code io.github.ilyaslabs.microservice.security.jwt.rsa.public-key}
+     */
+    private List<String> publicKeys = new ArrayList<>();
+
+    /**
+     * JWKS endpoint of the auth service, e.g. {@code http://auth-service/.well-known/jwks.json}
+     */
+    private URL jwksUri;
+
+    /**
+     * how long a fetched key set is used, it is refreshed in the background shortly before expiring
+     */
+    private Duration jwksCacheTtl = Duration.ofHours(1);
+}
@@ -0,0 +1,72 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux counterpart of {@link CommonSecurityConfig}, applying the same rules to services running
+ * on the reactive stack.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCommonSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         ReactiveJwtDecoder reactiveJwtDecoder,
+                                                         DocumentationConfig docConfig,
+                                                         ActuatorConfig actuatorConfig) {
+        // stateless bearer token API
+        http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .oauth2ResourceServer(customizer -> customizer.jwt(jwt -> jwt
+                        .jwtDecoder(reactiveJwtDecoder)
+                        .jwtAuthenticationConverter(new ReactiveJwtAuthenticationConverterAdapter(CommonSecurityConfig.jwtAuthenticationConverter()))));
+
+        http
+                .authorizeExchange(customizer ->
+                        customizer
+                                .pathMatchers(CommonSecurityConfig.PATH_AUTHENTICATE).permitAll()
+                                .pathMatchers(CommonSecurityConfig.PATH_JWKS).permitAll()
+                                .pathMatchers(CommonSecurityConfig.PATH_REFRESH).hasAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_REFRESH_TOKEN)
+                                .pathMatchers(CommonSecurityConfig.PATH_INTERNAL).hasAuthority(CommonSecurityConfig.SCOPE_PREFIX + CommonSecurityConfig.SCOPE_SYSTEM)
+                );
+
+        // allow public access to swagger
+        if (docConfig.isEnabled()) {
+            http.authorizeExchange(customizer -> customizer.pathMatchers(CommonSecurityConfig.SWAGGER_WHITELIST).permitAll());
+        }
+
+        // allow public access to actuator
+        if (actuatorConfig.isEnabled()) {
+            http.authorizeExchange(customizer -> customizer.pathMatchers(CommonSecurityConfig.PATH_ACTUATOR).permitAll());
+        }
+
+        http
+                .authorizeExchange(customizer -> customizer.anyExchange().authenticated());
+
+        return http.build();
+    }
+
+    /**
+     * Adapts the {@link JwtDecoderConfig multi algorithm decoder}. Keys are cached, but a cache miss
+     * or a refresh ahead of expiry calls a JWKS endpoint, so decoding runs off the event loop.
+     */
+    @Bean
+    ReactiveJwtDecoder reactiveJwtDecoder(JwtDecoder jwtDecoder) {
+        return token -> Mono.fromCallable(() -> jwtDecoder.decode(token))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates verifiers for the {@link SigningAlgorithm supported algorithms} backed by the JDK
+ * {@link Signature} implementations, so EdDSA tokens verify without additional libraries.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+final class JcaJwsVerifierFactory implements JWSVerifierFactory {
+
+    private static final Set<JWSAlgorithm> SUPPORTED_ALGORITHMS = Arrays.stream(SigningAlgorithm.values())
+            .map(algorithm -> JWSAlgorithm.parse(algorithm.getJwsName()))
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final JCAContext jcaContext = new JCAContext();
+
+    @Override
+    public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+        SigningAlgorithm algorithm = SigningAlgorithm.fromJwsName(header.getAlgorithm().getName());
+        if (algorithm == null) {
+            throw new JOSEException("Unsupported JWS algorithm " + header.getAlgorithm());
+        }
+        if (!(key instanceof PublicKey publicKey) || SigningAlgorithm.forKey(publicKey) != algorithm) {
+            throw new JOSEException("Key does not match JWS algorithm " + header.getAlgorithm());
+        }
+
+        return new Verifier(algorithm, publicKey, jcaContext);
+    }
+
+    @Override
+    public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+        return SUPPORTED_ALGORITHMS;
+    }
+
+    @Override
+    public JCAContext getJCAContext() {
+        return jcaContext;
+    }
+
+    private record Verifier(SigningAlgorithm algorithm, PublicKey publicKey, JCAContext jcaContext) implements JWSVerifier {
+
+        @Override
+        public boolean verify(JWSHeader header, byte[] signingInput, Base64URL signature) throws JOSEException {
+            if (!algorithm.getJwsName().equals(header.getAlgorithm().getName())) {
+                return false;
+            }
+
+            try {
+                Signature verifier = Signature.getInstance(algorithm.getJcaAlgorithm());
+                verifier.initVerify(publicKey);
+                verifier.update(signingInput);
+                return verifier.verify(signature.decode());
+            } catch (SignatureException e) {
+                // malformed signature
+                return false;
+            } catch (GeneralSecurityException e) {
+                throw new JOSEException("Cannot verify " + algorithm.getJwsName() + " signature", e);
+            }
+        }
+
+        @Override
+        public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+            return Set.of(JWSAlgorithm.parse(algorithm.getJwsName()));
+        }
+
+        @Override
+        public JCAContext getJCAContext() {
+            return jcaContext;
+        }
+    }
+}
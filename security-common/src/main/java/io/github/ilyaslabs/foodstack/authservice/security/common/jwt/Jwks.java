@@ -0,0 +1,108 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+
+/**
+ * Conversions between {@link PublicKey}s and their JWK representation.
+ * <p>
+ * Key ids are RFC 7638 thumbprints, so the same key gets the same {@code kid} on the issuing and
+ * the verifying side without any coordination.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public final class Jwks {
+
+    // X.509 SubjectPublicKeyInfo prefix of an Ed25519 key, followed by the 32 byte public key
+    private static final byte[] ED25519_PREFIX = {0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00};
+    private static final int ED25519_KEY_LENGTH = 32;
+
+    private Jwks() {
+    }
+
+    /**
+     * @param publicKey key of a {@link SigningAlgorithm supported algorithm}
+     * @return the public JWK with {@code kid}, {@code alg} and {@code use} set
+     */
+    public static JWK toJwk(PublicKey publicKey) {
+        SigningAlgorithm algorithm = SigningAlgorithm.forKey(publicKey);
+        JWSAlgorithm jwsAlgorithm = JWSAlgorithm.parse(algorithm.getJwsName());
+
+        try {
+            return switch (algorithm) {
+                case RS256 -> new RSAKey.Builder((RSAPublicKey) publicKey)
+                        .keyIDFromThumbprint()
+                        .algorithm(jwsAlgorithm)
+                        .keyUse(KeyUse.SIGNATURE)
+                        .build();
+                case ES256 -> new ECKey.Builder(Curve.P_256, (ECPublicKey) publicKey)
+                        .keyIDFromThumbprint()
+                        .algorithm(jwsAlgorithm)
+                        .keyUse(KeyUse.SIGNATURE)
+                        .build();
+                case EdDSA -> new OctetKeyPair.Builder(Curve.Ed25519, Base64URL.encode(ed25519KeyBytes(publicKey)))
+                        .keyIDFromThumbprint()
+                        .algorithm(jwsAlgorithm)
+                        .keyUse(KeyUse.SIGNATURE)
+                        .build();
+            };
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Cannot compute JWK thumbprint", e);
+        }
+    }
+
+    /**
+     * @param publicKey key of a {@link SigningAlgorithm supported algorithm}
+     * @return the key's RFC 7638 thumbprint
+     */
+    public static String keyId(PublicKey publicKey) {
+        return toJwk(publicKey).getKeyID();
+    }
+
+    /**
+     * @param jwk RSA, P-256 or Ed25519 JWK
+     * @return the public key, {@code null} if the JWK is not of a supported type
+     */
+    public static PublicKey toPublicKey(JWK jwk) {
+        try {
+            return switch (jwk) {
+                case RSAKey rsaKey -> rsaKey.toRSAPublicKey();
+                case ECKey ecKey when Curve.P_256.equals(ecKey.getCurve()) -> ecKey.toECPublicKey();
+                case OctetKeyPair okp when Curve.Ed25519.equals(okp.getCurve()) -> ed25519PublicKey(okp.getDecodedX());
+                default -> null;
+            };
+        } catch (JOSEException | GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid JWK " + jwk.getKeyID(), e);
+        }
+    }
+
+    private static byte[] ed25519KeyBytes(PublicKey publicKey) {
+        byte[] encoded = publicKey.getEncoded();
+        return Arrays.copyOfRange(encoded, encoded.length - ED25519_KEY_LENGTH, encoded.length);
+    }
+
+    private static PublicKey ed25519PublicKey(byte[] x) throws GeneralSecurityException {
+        if (x.length != ED25519_KEY_LENGTH) {
+            throw new GeneralSecurityException("Invalid Ed25519 key length " + x.length);
+        }
+
+        byte[] encoded = Arrays.copyOf(ED25519_PREFIX, ED25519_PREFIX.length + ED25519_KEY_LENGTH);
+        System.arraycopy(x, 0, encoded, ED25519_PREFIX.length, ED25519_KEY_LENGTH);
+        return KeyFactory.getInstance(SigningAlgorithm.EdDSA.getKeyAlgorithm()).generatePublic(new X509EncodedKeySpec(encoded));
+    }
+}
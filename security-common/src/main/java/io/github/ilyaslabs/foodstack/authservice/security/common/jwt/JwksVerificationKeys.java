@@ -0,0 +1,86 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common.jwt;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.net.URL;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verification keys published by the auth service's JWKS endpoint.
+ * <p>
+ * The key set is cached for {@code timeToLive} and refreshed in the background before it expires,
+ * so verification does not wait for the endpoint. An unknown {@code kid} triggers a rate limited
+ * reload, which picks up rotated keys, and the last key set keeps being used while the endpoint
+ * is unreachable.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public final class JwksVerificationKeys implements VerificationKeySource {
+
+    private static final int MAX_CONVERTED_KEYS = 64;
+
+    private final JWKSource<SecurityContext> jwkSource;
+
+    // JWK to JCA key conversion is not free, the cached key set returns the same JWK instances
+    private final Map<JWK, PublicKey> publicKeys = new ConcurrentHashMap<>();
+
+    /**
+     * @param jwksUrl    JWKS endpoint
+     * @param timeToLive how long a fetched key set is used
+     */
+    public JwksVerificationKeys(URL jwksUrl, Duration timeToLive) {
+        this.jwkSource = JWKSourceBuilder.<SecurityContext>create(jwksUrl)
+                .cache(timeToLive.toMillis(), JWKSourceBuilder.DEFAULT_CACHE_REFRESH_TIMEOUT)
+                .refreshAheadCache(true)
+                .outageTolerant(true)
+                .build();
+    }
+
+    @Override
+    public List<PublicKey> select(SigningAlgorithm algorithm, String keyId) {
+        JWKMatcher.Builder matcher = new JWKMatcher.Builder()
+                .algorithms(JWSAlgorithm.parse(algorithm.getJwsName()), null)
+                .keyUses(KeyUse.SIGNATURE, null);
+        if (keyId != null) {
+            matcher.keyID(keyId);
+        }
+
+        List<JWK> jwks;
+        try {
+            jwks = jwkSource.get(new JWKSelector(matcher.build()), null);
+        } catch (KeySourceException e) {
+            throw new JwtException("Cannot load JWKS", e);
+        }
+
+        List<PublicKey> keys = new ArrayList<>(jwks.size());
+        for (JWK jwk : jwks) {
+            PublicKey publicKey = publicKeys.get(jwk);
+            if (publicKey == null) {
+                if (publicKeys.size() >= MAX_CONVERTED_KEYS) {
+                    publicKeys.clear();
+                }
+                publicKey = Jwks.toPublicKey(jwk);
+                if (publicKey == null || SigningAlgorithm.forKey(publicKey) != algorithm) {
+                    continue;
+                }
+                publicKeys.put(jwk, publicKey);
+            }
+            keys.add(publicKey);
+        }
+        return keys;
+    }
+}
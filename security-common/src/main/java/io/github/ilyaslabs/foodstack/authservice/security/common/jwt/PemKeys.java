@@ -0,0 +1,74 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common.jwt;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Reads PEM encoded keys, private keys in PKCS#8 and public keys in X.509 format.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public final class PemKeys {
+
+    private PemKeys() {
+    }
+
+    /**
+     * @param pem       PEM encoded {@code PRIVATE KEY}
+     * @param algorithm JCA key algorithm, e.g. {@code RSA}
+     * @return the private key
+     */
+    public static PrivateKey readPrivateKey(String pem, String algorithm) {
+        try {
+            return KeyFactory.getInstance(algorithm).generatePrivate(new PKCS8EncodedKeySpec(decode(pem)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid " + algorithm + " private key", e);
+        }
+    }
+
+    /**
+     * @param pem       PEM encoded {@code PUBLIC KEY}
+     * @param algorithm JCA key algorithm, e.g. {@code RSA}
+     * @return the public key
+     */
+    public static PublicKey readPublicKey(String pem, String algorithm) {
+        try {
+            return KeyFactory.getInstance(algorithm).generatePublic(new X509EncodedKeySpec(decode(pem)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid " + algorithm + " public key", e);
+        }
+    }
+
+    /**
+     * Reads a public key of any {@link SigningAlgorithm supported algorithm}.
+     *
+     * @param pem PEM encoded {@code PUBLIC KEY}
+     * @return the public key
+     */
+    public static PublicKey readPublicKey(String pem) {
+        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(decode(pem));
+        for (SigningAlgorithm algorithm : SigningAlgorithm.values()) {
+            try {
+                return KeyFactory.getInstance(algorithm.getKeyAlgorithm()).generatePublic(keySpec);
+            } catch (GeneralSecurityException e) {
+                // not a key of this algorithm
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported public key");
+    }
+
+    private static byte[] decode(String pem) {
+        if (pem == null || pem.isBlank()) {
+            throw new IllegalArgumentException("Key is empty");
+        }
+
+        String base64 = pem.replaceAll("-----(BEGIN|END)[A-Z ]*-----", "");
+        return Base64.getMimeDecoder().decode(base64);
+    }
+}
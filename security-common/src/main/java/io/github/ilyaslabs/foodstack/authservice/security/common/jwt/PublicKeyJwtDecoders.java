@@ -0,0 +1,67 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common.jwt;
+
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds {@link NimbusJwtDecoder}s that verify tokens signed with any of a set of public keys.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public final class PublicKeyJwtDecoders {
+
+    private PublicKeyJwtDecoders() {
+    }
+
+    /**
+     * @param publicKeys verification keys, of any {@link SigningAlgorithm}
+     * @return the decoder, validating timestamps by default
+     * @see StaticVerificationKeys
+     */
+    public static NimbusJwtDecoder create(Collection<? extends PublicKey> publicKeys) {
+        return create(List.of(new StaticVerificationKeys(publicKeys)));
+    }
+
+    /**
+     * Keys are selected by the {@code alg} and {@code kid} headers, tokens no source has a key for
+     * are rejected.
+     *
+     * @param keySources sources of verification keys, consulted in order
+     * @return the decoder, validating timestamps by default
+     */
+    public static NimbusJwtDecoder create(List<? extends VerificationKeySource> keySources) {
+        List<VerificationKeySource> sources = List.copyOf(keySources);
+
+        JWSKeySelector<SecurityContext> keySelector = (header, context) -> {
+            SigningAlgorithm algorithm = SigningAlgorithm.fromJwsName(header.getAlgorithm().getName());
+            if (algorithm == null) {
+                return List.of();
+            }
+            if (sources.size() == 1) {
+                return sources.getFirst().select(algorithm, header.getKeyID());
+            }
+
+            List<PublicKey> keys = new ArrayList<>();
+            for (VerificationKeySource source : sources) {
+                keys.addAll(source.select(algorithm, header.getKeyID()));
+            }
+            return keys;
+        };
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(keySelector);
+        jwtProcessor.setJWSVerifierFactory(new JcaJwsVerifierFactory());
+        // claims are validated by the NimbusJwtDecoder
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        return new NimbusJwtDecoder(jwtProcessor);
+    }
+}
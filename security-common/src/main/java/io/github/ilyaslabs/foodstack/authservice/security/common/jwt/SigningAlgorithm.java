@@ -0,0 +1,87 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common.jwt;
+
+import com.nimbusds.jose.jwk.Curve;
+
+import java.security.Key;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.EdECKey;
+import java.security.interfaces.RSAKey;
+
+/**
+ * JWS algorithms used to sign and verify tokens.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public enum SigningAlgorithm {
+
+    RS256("RS256", "SHA256withRSA", "RSA"),
+
+    /**
+     * ECDSA on P-256, JWS signatures use the fixed length R || S format rather than DER
+     */
+    ES256("ES256", "SHA256withECDSAinP1363Format", "EC"),
+
+    /**
+     * Ed25519
+     */
+    EdDSA("EdDSA", "Ed25519", "Ed25519");
+
+    private final String jwsName;
+    private final String jcaAlgorithm;
+    private final String keyAlgorithm;
+
+    SigningAlgorithm(String jwsName, String jcaAlgorithm, String keyAlgorithm) {
+        this.jwsName = jwsName;
+        this.jcaAlgorithm = jcaAlgorithm;
+        this.keyAlgorithm = keyAlgorithm;
+    }
+
+    /**
+     * @return the {@code alg} header value
+     */
+    public String getJwsName() {
+        return jwsName;
+    }
+
+    /**
+     * @return the {@link java.security.Signature} algorithm
+     */
+    public String getJcaAlgorithm() {
+        return jcaAlgorithm;
+    }
+
+    /**
+     * @return the {@link java.security.KeyFactory} algorithm
+     */
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    /**
+     * EC keys must be on P-256, other curves of the same size, e.g. secp256k1, are rejected.
+     *
+     * @param key signing or verification key
+     * @return the algorithm the key is used with
+     */
+    public static SigningAlgorithm forKey(Key key) {
+        return switch (key) {
+            case RSAKey ignored -> RS256;
+            case ECKey ecKey when Curve.P_256.equals(Curve.forECParameterSpec(ecKey.getParams())) -> ES256;
+            case EdECKey edKey when "Ed25519".equals(edKey.getParams().getName()) -> EdDSA;
+            default -> throw new IllegalArgumentException("Unsupported key " + key.getAlgorithm());
+        };
+    }
+
+    /**
+     * @param jwsName {@code alg} header value
+     * @return the algorithm, or {@code null} if it is not supported
+     */
+    public static SigningAlgorithm fromJwsName(String jwsName) {
+        for (SigningAlgorithm algorithm : values()) {
+            if (algorithm.jwsName.equals(jwsName)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common.jwt;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fixed set of verification keys. Tokens with a {@code kid} header only verify with the key of
+ * that id, tokens without one with any key of their algorithm.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public final class StaticVerificationKeys implements VerificationKeySource {
+
+    private final Map<SigningAlgorithm, List<PublicKey>> keysByAlgorithm = new EnumMap<>(SigningAlgorithm.class);
+    private final Map<String, PublicKey> keysById = new HashMap<>();
+
+    /**
+     * @param publicKeys keys of any {@link SigningAlgorithm}
+     */
+    public StaticVerificationKeys(Collection<? extends PublicKey> publicKeys) {
+        for (PublicKey publicKey : publicKeys) {
+            keysByAlgorithm.computeIfAbsent(SigningAlgorithm.forKey(publicKey), algorithm -> new ArrayList<>()).add(publicKey);
+            keysById.put(Jwks.keyId(publicKey), publicKey);
+        }
+        keysByAlgorithm.replaceAll((algorithm, keys) -> List.copyOf(keys));
+    }
+
+    @Override
+    public List<PublicKey> select(SigningAlgorithm algorithm, String keyId) {
+        if (keyId == null) {
+            return keysByAlgorithm.getOrDefault(algorithm, List.of());
+        }
+
+        PublicKey publicKey = keysById.get(keyId);
+        return publicKey != null && SigningAlgorithm.forKey(publicKey) == algorithm ? List.of(publicKey) : List.of();
+    }
+
+    /**
+     * @return {@code true} if there are no keys
+     */
+    public boolean isEmpty() {
+        return keysById.isEmpty();
+    }
+}
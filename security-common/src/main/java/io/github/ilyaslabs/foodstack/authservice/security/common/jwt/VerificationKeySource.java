@@ -0,0 +1,20 @@
+package io.github.ilyaslabs.foodstack.authservice.security.common.jwt;
+
+import java.security.PublicKey;
+import java.util.List;
+
+/**
+ * Provides the keys a token may be verified with. Implementations are consulted for every
+ * verified token and must answer from memory.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+public interface VerificationKeySource {
+
+    /**
+     * @param algorithm algorithm of the token's {@code alg} header
+     * @param keyId     the token's {@code kid} header, {@code null} if absent
+     * @return candidate keys, empty if none matches
+     */
+    List<PublicKey> select(SigningAlgorithm algorithm, String keyId);
+}